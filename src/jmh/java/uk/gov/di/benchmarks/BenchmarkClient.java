@@ -0,0 +1,64 @@
+package uk.gov.di.benchmarks;
+
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.fakeop.FakeOp;
+import uk.gov.di.fakeop.FakeOpSettings;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * A relying party registered with an embedded {@link FakeOp}, so benchmarks can build real clients
+ * without reaching the network.
+ */
+public class BenchmarkClient implements AutoCloseable {
+    public static final String CLIENT_ID = "benchmark-client";
+    public static final String CALLBACK_URL = "http://localhost/oidc/authorization-code/callback";
+
+    private final FakeOp op;
+    private final String clientPrivateKey;
+
+    public BenchmarkClient() {
+        try {
+            var keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+            keyPairGenerator.initialize(2048);
+            clientPrivateKey =
+                    Base64.getMimeEncoder()
+                            .encodeToString(
+                                    keyPairGenerator.generateKeyPair().getPrivate().getEncoded());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+        op = FakeOp.start(FakeOpSettings.defaults());
+    }
+
+    public RPConfig relyingPartyConfig(String clientType) {
+        return new RPConfig(
+                clientPrivateKey,
+                op.issuer() + "/.well-known/did.json",
+                "https://home.example.com",
+                CLIENT_ID,
+                clientType,
+                "ES256",
+                "Benchmark Service",
+                op.issuer(),
+                null,
+                null,
+                null,
+                null);
+    }
+
+    public String clientPrivateKey() {
+        return clientPrivateKey;
+    }
+
+    public String signedCoreIdentity() {
+        return op.coreIdentityCredential("urn:fdc:gov.uk:2022:benchmark", CLIENT_ID);
+    }
+
+    @Override
+    public void close() {
+        op.close();
+    }
+}
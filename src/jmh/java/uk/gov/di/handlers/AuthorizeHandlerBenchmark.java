@@ -0,0 +1,38 @@
+package uk.gov.di.handlers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.utils.FormDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthorizeHandlerBenchmark {
+    // A typical submission of the stub's home page form
+    private static final String FORM_BODY =
+            "2fa=Cl.Cm&loc-P2=P2&scopes-email=email&scopes-phone=phone"
+                    + "&claims-core-identity=https%3A%2F%2Fvocab.account.gov.uk%2Fv1%2FcoreIdentityJWT"
+                    + "&claims-address=https%3A%2F%2Fvocab.account.gov.uk%2Fv1%2Faddress"
+                    + "&prompt=none&lng=en&request=object&pkce=yes&channel=none"
+                    + "&login-hint=user%40example.com&rp-sid=&max-age=";
+
+    private static final byte[] FORM_BYTES = FORM_BODY.getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public AuthorizeForm decodeAuthorizeForm() {
+        return AuthorizeForm.from(FormDecoder.decode(FORM_BYTES));
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.di.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.benchmarks.BenchmarkClient;
+import uk.gov.di.config.RPConfig;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoreIdentityValidatorBenchmark {
+    private BenchmarkClient client;
+    private RPConfig relyingPartyConfig;
+    private CoreIdentityValidator warmValidator;
+    private String coreIdentity;
+
+    @Setup
+    public void setUp() {
+        client = new BenchmarkClient();
+        relyingPartyConfig = client.relyingPartyConfig("web");
+        coreIdentity = client.signedCoreIdentity();
+        warmValidator = CoreIdentityValidator.forRelyingParty(relyingPartyConfig);
+        warmValidator.isValid(coreIdentity);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public CoreIdentityValidator.Result isValidWarmCache() {
+        return warmValidator.isValid(coreIdentity);
+    }
+
+    // A fresh validator has to fetch the DID document and build its verifier first
+    @Benchmark
+    public CoreIdentityValidator.Result isValidColdCache() {
+        return CoreIdentityValidator.createValidator(relyingPartyConfig).isValid(coreIdentity);
+    }
+}
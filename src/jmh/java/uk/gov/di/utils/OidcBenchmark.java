@@ -0,0 +1,119 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.Scope;
+import com.nimbusds.oauth2.sdk.pkce.CodeChallengeMethod;
+import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
+import com.nimbusds.openid.connect.sdk.AuthenticationRequest;
+import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
+import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.benchmarks.BenchmarkClient;
+
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OidcBenchmark {
+    private static final List<String> VTR = List.of("Cl.Cm");
+    private static final List<String> SCOPES = List.of("openid", "email", "phone");
+
+    private BenchmarkClient client;
+    private Oidc oidc;
+    private Oidc docAppOidc;
+    private ClaimsSetRequest claimsSetRequest;
+    private CodeVerifier codeVerifier;
+    private AuthorizeRequestOptions authorizeRequestOptions;
+
+    @Setup
+    public void setUp() {
+        client = new BenchmarkClient();
+        oidc = new Oidc(client.relyingPartyConfig("web"));
+        docAppOidc = new Oidc(client.relyingPartyConfig("app"));
+        claimsSetRequest =
+                new ClaimsSetRequest()
+                        .add(
+                                new ClaimsSetRequest.Entry(
+                                                "https://vocab.account.gov.uk/v1/coreIdentityJWT")
+                                        .withClaimRequirement(ClaimRequirement.ESSENTIAL));
+        codeVerifier = new CodeVerifier();
+        authorizeRequestOptions =
+                new AuthorizeRequestOptions(
+                        BenchmarkClient.CALLBACK_URL,
+                        VTR,
+                        SCOPES,
+                        List.of("https://vocab.account.gov.uk/v1/coreIdentityJWT"),
+                        "en",
+                        "none",
+                        "rp-sid",
+                        null,
+                        "web",
+                        false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public AuthenticationRequest buildJarAuthorizeRequest() {
+        return oidc.buildJarAuthorizeRequest(
+                BenchmarkClient.CALLBACK_URL,
+                VTR,
+                SCOPES,
+                claimsSetRequest,
+                "en",
+                "none",
+                "rp-sid",
+                null,
+                null,
+                CodeChallengeMethod.S256,
+                codeVerifier,
+                "user@example.com",
+                "web",
+                false);
+    }
+
+    @Benchmark
+    public AuthenticationRequest buildQueryParamAuthorizeRequest() throws URISyntaxException {
+        return oidc.buildQueryParamAuthorizeRequest(
+                BenchmarkClient.CALLBACK_URL,
+                VTR,
+                SCOPES,
+                claimsSetRequest,
+                "en",
+                "none",
+                "rp-sid",
+                null,
+                CodeChallengeMethod.S256,
+                codeVerifier,
+                "web",
+                false);
+    }
+
+    @Benchmark
+    public String buildCachedQueryParamAuthorizeRequest() {
+        return oidc.buildCachedQueryParamAuthorizeRequest(authorizeRequestOptions, codeVerifier);
+    }
+
+    @Benchmark
+    public String buildDocAppAuthorizeRequest() {
+        return docAppOidc.buildDocAppAuthorizeRequest(
+                BenchmarkClient.CALLBACK_URL, Scope.parse("openid doc-checking-app"), "en", false);
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.di.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.benchmarks.BenchmarkClient;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrivateKeyReaderBenchmark {
+    private BenchmarkClient client;
+    private PrivateKeyReader privateKeyReader;
+
+    @Setup
+    public void setUp() {
+        client = new BenchmarkClient();
+        privateKeyReader = new PrivateKeyReader(client.clientPrivateKey());
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public PrivateKey get() {
+        return privateKeyReader.get();
+    }
+
+    @Benchmark
+    public PublicKey getPublicKey() {
+        return privateKeyReader.getPublicKey();
+    }
+}
@@ -0,0 +1,98 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import uk.gov.di.benchmarks.BenchmarkClient;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the authorize request path, including the lines the handler logs and the journey
+ * context it carries, with the stub's logging configuration switched on and off.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestLoggingBenchmark {
+    static {
+        // Log lines would otherwise be relayed through the JMH host process, which is far slower
+        // than the awslogs driver, so what's measured is the cost on the request thread
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    private static final Logger HANDLER_LOG =
+            LoggerFactory.getLogger("uk.gov.di.handlers.AuthorizeHandler");
+
+    @Param({"INFO", "OFF"})
+    public String level;
+
+    private BenchmarkClient client;
+    private Oidc oidc;
+    private AuthorizeRequestOptions options;
+
+    @Setup
+    public void setUp() {
+        Configurator.setAllLevels("uk.gov.di", Level.valueOf(level));
+        client = new BenchmarkClient();
+        oidc = new Oidc(client.relyingPartyConfig("web"));
+        options =
+                new AuthorizeRequestOptions(
+                        BenchmarkClient.CALLBACK_URL,
+                        List.of("Cl.Cm"),
+                        List.of("openid", "email", "phone"),
+                        List.of("https://vocab.account.gov.uk/v1/coreIdentityJWT"),
+                        "en",
+                        "none",
+                        null,
+                        null,
+                        null,
+                        false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        Configurator.setAllLevels("uk.gov.di", Level.INFO);
+    }
+
+    @Benchmark
+    public String authorizeRequest() {
+        MDC.put(JourneyContext.CLIENT_ID, BenchmarkClient.CLIENT_ID);
+        try {
+            HANDLER_LOG.info(
+                    "Scopes {}, essential claims {} and VTR {} requested",
+                    options.scopes(),
+                    options.essentialClaims(),
+                    options.vtr());
+            HANDLER_LOG.info("Building authorize request with query params");
+            var uri = oidc.buildCachedQueryParamAuthorizeRequest(options, new CodeVerifier());
+            HANDLER_LOG.info("Redirecting to OP");
+            return uri;
+        } finally {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.gov.di.config.RPConfig;
+
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/** Cost of signing and verifying a request object with each supported request algorithm. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestSigningBenchmark {
+
+    @Param({"RS512", "RS256", "PS256", "ES256", "ES384"})
+    public String algorithm;
+
+    private SigningKeys signingKeys;
+    private JWSHeader header;
+    private JWTClaimsSet claims;
+    private JWSVerifier verifier;
+    private SignedJWT signed;
+
+    @Setup
+    public void setUp() throws Exception {
+        var relyingPartyConfig =
+                new RPConfig(
+                        privateKeyFor(algorithm),
+                        null,
+                        null,
+                        "benchmark-" + algorithm,
+                        "web",
+                        "ES256",
+                        "Benchmark Service",
+                        "http://localhost",
+                        null,
+                        null,
+                        null,
+                        algorithm);
+        signingKeys = SigningKeys.forRelyingParty(relyingPartyConfig);
+        header =
+                new JWSHeader.Builder(signingKeys.requestSigningAlgorithm())
+                        .keyID(signingKeys.requestSigningKeyId())
+                        .build();
+        claims =
+                new JWTClaimsSet.Builder()
+                        .issuer("benchmark-client")
+                        .audience("http://localhost/authorize")
+                        .claim("redirect_uri", "http://localhost/callback")
+                        .claim("scope", "openid email phone")
+                        .claim("state", "state")
+                        .claim("nonce", "nonce")
+                        .build();
+        verifier =
+                new DefaultJWSVerifierFactory()
+                        .createJWSVerifier(header, signingKeys.requestSigningPublicKey());
+        signed = sign();
+    }
+
+    @Benchmark
+    public SignedJWT sign() throws JOSEException {
+        var jwt = new SignedJWT(header, claims);
+        jwt.sign(signingKeys.requestSigner());
+        return jwt;
+    }
+
+    @Benchmark
+    public boolean verify() throws JOSEException {
+        return signed.verify(verifier);
+    }
+
+    private static String privateKeyFor(String algorithm) throws Exception {
+        byte[] encoded;
+        if (algorithm.startsWith("ES")) {
+            var curve = algorithm.equals("ES384") ? Curve.P_384 : Curve.P_256;
+            encoded = new ECKeyGenerator(curve).generate().toPrivateKey().getEncoded();
+        } else {
+            var generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            encoded = generator.generateKeyPair().getPrivate().getEncoded();
+        }
+        return Base64.getMimeEncoder().encodeToString(encoded);
+    }
+}
@@ -0,0 +1,125 @@
+package uk.gov.di.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.openid.connect.sdk.claims.UserInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Reads an identity journey's userinfo response and pulls out what the callback page shows,
+// through Nimbus's UserInfo as before and through UserInfoClaims
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserInfoParsingBenchmark {
+    private static final String VOCAB = "https://vocab.account.gov.uk/v1/";
+    private static final String CORE_IDENTITY_CLAIM = VOCAB + "coreIdentityJWT";
+
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws Exception {
+        var random = new Random(1);
+        var claims = new LinkedHashMap<String, Object>();
+        claims.put("sub", "urn:fdc:gov.uk:2022:" + token(random, 32));
+        claims.put("email", "fake.user@example.com");
+        claims.put("email_verified", true);
+        claims.put("phone_number", "+447700900000");
+        claims.put("phone_number_verified", true);
+        claims.put(
+                CORE_IDENTITY_CLAIM,
+                token(random, 600) + "." + token(random, 2400) + "." + token(random, 64));
+        var addresses = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 4; i++) {
+            var address = new LinkedHashMap<String, Object>();
+            address.put("uprn", 100120012077L + i);
+            address.put("buildingNumber", Integer.toString(8 + i));
+            address.put("buildingName", "");
+            address.put("streetName", "HADLEY ROAD");
+            address.put("addressLocality", "BATH");
+            address.put("postalCode", "BA2 5AA");
+            address.put("addressCountry", "GB");
+            address.put("validFrom", "20%02d-01-01".formatted(10 + i));
+            addresses.add(address);
+        }
+        claims.put(VOCAB + "address", addresses);
+        claims.put(
+                VOCAB + "passport",
+                List.of(
+                        Map.of(
+                                "documentNumber",
+                                "321654987",
+                                "icaoIssuerCode",
+                                "GBR",
+                                "expiryDate",
+                                "2030-01-01")));
+        claims.put(
+                VOCAB + "drivingPermit",
+                List.of(
+                        Map.of(
+                                "personalNumber", "DOE99802085J99FG",
+                                "expiryDate", "2032-02-02",
+                                "issueDate", "2022-02-02",
+                                "issuingCountry", "GB",
+                                "issuedBy", "DVLA",
+                                "issueNumber", "12")));
+        claims.put(VOCAB + "returnCode", List.of(Map.of("code", "A"), Map.of("code", "C")));
+        response = new ObjectMapper().writeValueAsBytes(claims);
+    }
+
+    @Benchmark
+    public void nimbusUserInfo(Blackhole blackhole) throws Exception {
+        var userInfo = UserInfo.parse(new String(response, StandardCharsets.UTF_8));
+        blackhole.consume(userInfo.getStringClaim(CORE_IDENTITY_CLAIM));
+        blackhole.consume(userInfo.getEmailAddress());
+        blackhole.consume(userInfo.getPhoneNumber());
+        blackhole.consume(userInfo.getClaim("wallet_subject_id"));
+        blackhole.consume(String.valueOf(userInfo.getClaim(VOCAB + "returnCode")));
+        blackhole.consume(userInfo.getClaim(VOCAB + "address") != null);
+        blackhole.consume(userInfo.getClaim(VOCAB + "passport") != null);
+        blackhole.consume(userInfo.getClaim(VOCAB + "drivingPermit") != null);
+        blackhole.consume(userInfo.getClaim("locale"));
+        blackhole.consume(userInfo.toJSONString());
+    }
+
+    @Benchmark
+    public void userInfoClaims(Blackhole blackhole) throws Exception {
+        var userInfo = UserInfoClaims.read(response);
+        blackhole.consume(userInfo.stringClaim(CORE_IDENTITY_CLAIM));
+        blackhole.consume(userInfo.stringClaim("email"));
+        blackhole.consume(userInfo.stringClaim("phone_number"));
+        blackhole.consume(userInfo.claimAsText("wallet_subject_id"));
+        blackhole.consume(userInfo.claimAsText(VOCAB + "returnCode"));
+        blackhole.consume(userInfo.has(VOCAB + "address"));
+        blackhole.consume(userInfo.has(VOCAB + "passport"));
+        blackhole.consume(userInfo.has(VOCAB + "drivingPermit"));
+        blackhole.consume(userInfo.claimAsText("locale"));
+        blackhole.consume(userInfo.json());
+    }
+
+    private static String token(Random random, int length) {
+        var bytes = new byte[length * 3 / 4];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -1,7 +1,26 @@
 package uk.gov.di;
 
+import uk.gov.di.config.Configuration;
+import uk.gov.di.fakeop.FakeOp;
+import uk.gov.di.fakeop.FakeOpSettings;
+import uk.gov.di.loadtest.LoadTest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
 public class App {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (Configuration.getFakeOpPort().isPresent()) {
+            FakeOp.start(FakeOpSettings.fromConfiguration());
+        }
+        if (args.length > 0 && args[0].equals("load-test")) {
+            if (args.length != 2) {
+                throw new IllegalArgumentException("Usage: load-test <scenarios.jsonl>");
+            }
+            LoadTest.run(Path.of(args[1]), System.out);
+            // The fake OP's server threads would otherwise keep the JVM running
+            System.exit(0);
+        }
         new OidcRp();
     }
 }
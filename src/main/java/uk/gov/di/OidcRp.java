@@ -3,25 +3,42 @@ package uk.gov.di;
 import com.github.mustachejava.DefaultMustacheFactory;
 import io.javalin.Javalin;
 import io.javalin.rendering.template.JavalinMustache;
+import io.javalin.util.ConcurrencyUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
 import uk.gov.di.handlers.AuthCallbackHandler;
 import uk.gov.di.handlers.AuthorizeHandler;
 import uk.gov.di.handlers.BackChannelLogoutHandler;
+import uk.gov.di.handlers.ClientJwksHandler;
 import uk.gov.di.handlers.ExceptionHandler;
 import uk.gov.di.handlers.HomeHandler;
 import uk.gov.di.handlers.InternalServerErrorHandler;
-import uk.gov.di.handlers.JwkHandler;
+import uk.gov.di.handlers.MetricsHandler;
+import uk.gov.di.handlers.ReadinessHandler;
 import uk.gov.di.handlers.RelyingPartyGetHandler;
 import uk.gov.di.handlers.RelyingPartyPostHandler;
 import uk.gov.di.handlers.SignOutHandler;
 import uk.gov.di.handlers.SignedOutHandler;
+import uk.gov.di.handlers.StaticAssetHandler;
+import uk.gov.di.utils.JourneyContext;
+import uk.gov.di.utils.JourneyTiming;
+import uk.gov.di.utils.OidcClientRegistry;
 import uk.gov.di.utils.ResponseHeaderHelper;
-
-import static uk.gov.di.config.Configuration.getClientsPublicKeys;
+import uk.gov.di.utils.WarmUp;
 
 public class OidcRp {
+    private static final Logger LOG = LoggerFactory.getLogger(OidcRp.class);
     private static final int DEFAULT_PORT = 8080;
 
     public OidcRp() {
+        var executionMode = Configuration.getExecutionMode();
+        if (executionMode.usesVirtualThreads() && !ConcurrencyUtil.isLoomAvailable()) {
+            LOG.warn("Virtual threads are not available on this JVM, using platform threads");
+        } else {
+            LOG.info("Handling requests on {} threads", executionMode.name().toLowerCase());
+        }
+        JourneyTiming.loadKey();
         var homeHandler = new HomeHandler();
         var authorizeHandler = new AuthorizeHandler();
         var authCallbackHandler = new AuthCallbackHandler();
@@ -31,13 +48,34 @@ public class OidcRp {
         var exceptionHandler = new ExceptionHandler();
         var relyingPartyGetHandler = new RelyingPartyGetHandler();
         var relyingPartyPostHandler = new RelyingPartyPostHandler();
+        var metricsHandler = new MetricsHandler();
+        var backChannelLogoutHandler = new BackChannelLogoutHandler();
+        var staticAssetHandler = StaticAssetHandler.load();
+        var clientJwksHandler = new ClientJwksHandler(Configuration.getInstance().values());
+        var warmUp =
+                new WarmUp(
+                        Configuration.getInstance().values(),
+                        Configuration.getWarmUpSigningIterations(),
+                        Configuration.getWarmUpTimeout());
+        var readinessHandler = new ReadinessHandler(warmUp);
+
+        Configuration.addChangeListener(OidcClientRegistry::onConfigurationChange);
+        Configuration.addChangeListener(clientJwksHandler::onConfigurationChange);
+        Configuration.watchForChanges(Configuration.getConfigurationPollInterval());
 
         Javalin.create(
                         config -> {
-                            config.staticFiles.add("/public");
+                            config.concurrency.useVirtualThreads =
+                                    executionMode.usesVirtualThreads();
+                            if (staticAssetHandler.isEmpty()) {
+                                config.staticFiles.add("/public");
+                            }
                             config.jetty.port = getPort();
                             config.fileRenderer(
                                     new JavalinMustache(new DefaultMustacheFactory("templates")));
+                            config.requestLogger.http(MetricsHandler::recordRequest);
+
+                            config.routes.before(JourneyContext::enter);
 
                             config.routes.get("/", homeHandler::handle);
                             config.routes.post("/oidc/auth", authorizeHandler::handle);
@@ -47,25 +85,28 @@ public class OidcRp {
                             config.routes.post("/logout", logoutHandler::handle);
                             config.routes.get("/signed-out", signedOutHandler::handle);
                             config.routes.post(
-                                    "/backchannel-logout", new BackChannelLogoutHandler()::handle);
+                                    "/backchannel-logout", backChannelLogoutHandler::handle);
+                            config.routes.post(
+                                    "/backchannel-logout/{clientId}",
+                                    backChannelLogoutHandler::handle);
                             config.routes.get("/relying-party", relyingPartyGetHandler::handle);
                             config.routes.post("/relying-party", relyingPartyPostHandler::handle);
-                            getClientsPublicKeys()
-                                    .forEach(
-                                            clientIdAndPubKey ->
-                                                    config.routes.get(
-                                                            "/"
-                                                                    + clientIdAndPubKey.get(
-                                                                            "client_id")
-                                                                    + "/.well-known/jwks.json",
-                                                            new JwkHandler(clientIdAndPubKey)
-                                                                    ::handle));
+                            config.routes.get("/metrics", metricsHandler::handle);
+                            config.routes.get("/healthcheck/ready", readinessHandler::handle);
+                            config.routes.get(
+                                    "/{client_id}/.well-known/jwks.json",
+                                    clientJwksHandler::handle);
+                            if (!staticAssetHandler.isEmpty()) {
+                                config.routes.get("/<path>", staticAssetHandler::handle);
+                            }
 
                             config.routes.exception(Exception.class, exceptionHandler::handle);
                             config.routes.error(500, internalServerErrorHandler::handle);
                             config.routes.after(ResponseHeaderHelper::setHeaders);
+                            config.routes.after(JourneyContext::exit);
                         })
                 .start();
+        warmUp.start();
     }
 
     private int getPort() {
@@ -2,33 +2,125 @@ package uk.gov.di.config;
 
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import uk.gov.di.utils.BackgroundExecutors;
+import uk.gov.di.utils.SigningKeys;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalUnit;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class Configuration extends HashMap<String, RPConfig> {
+    private static final Logger LOG = LoggerFactory.getLogger(Configuration.class);
     private static final String LOCAL_CONFIGURATION_SOURCE = "local";
-    private static Configuration instance;
+    private static final Path LOCAL_CONFIGURATION_PATH = Path.of("config.json");
+    private static final Object loadLock = new Object();
+    private static final List<Consumer<ConfigurationChange>> changeListeners =
+            new CopyOnWriteArrayList<>();
+    private static volatile Snapshot current;
 
-    public static Configuration getInstance() {
-        if (instance == null) {
-            instance = fetchConfiguration();
+    private record Snapshot(Map<String, RPConfig> relyingParties, String version) {}
+
+    record Source(String config, String version) {}
+
+    public static Map<String, RPConfig> getInstance() {
+        var snapshot = current;
+        if (snapshot == null) {
+            synchronized (loadLock) {
+                snapshot = current;
+                if (snapshot == null) {
+                    snapshot = load(fetchSource());
+                    current = snapshot;
+                }
+            }
+        }
+        return snapshot.relyingParties();
+    }
+
+    public static void addChangeListener(Consumer<ConfigurationChange> listener) {
+        changeListeners.add(listener);
+    }
+
+    public static void watchForChanges(Duration interval) {
+        if (interval.isZero()) {
+            return;
+        }
+        BackgroundExecutors.newScheduledThread("configuration-watch")
+                .scheduleWithFixedDelay(
+                        () -> {
+                            try {
+                                reloadIfChanged();
+                            } catch (RuntimeException e) {
+                                LOG.warn("Unable to reload configuration, keeping current", e);
+                            }
+                        },
+                        interval.toMillis(),
+                        interval.toMillis(),
+                        TimeUnit.MILLISECONDS);
+    }
+
+    // Each snapshot is complete and validated before it is published, so readers see either
+    // the old configuration or the new one and never a mixture
+    static void reloadIfChanged() {
+        reloadIfChanged(Configuration::fetchSource);
+    }
+
+    static void reloadIfChanged(Supplier<Source> sources) {
+        synchronized (loadLock) {
+            var previous = current;
+            var source = sources.get();
+            if (previous != null && previous.version().equals(source.version())) {
+                return;
+            }
+            var loaded = load(source);
+            current = loaded;
+            if (previous == null) {
+                return;
+            }
+            var change =
+                    ConfigurationChange.between(previous.relyingParties(), loaded.relyingParties());
+            if (change.isEmpty()) {
+                return;
+            }
+            LOG.info(
+                    "Loaded configuration version {}: {} relying parties added or changed, {}"
+                            + " removed",
+                    loaded.version(),
+                    change.changed().size(),
+                    change.removed().size());
+            SigningKeys.evict(change.removed());
+            changeListeners.forEach(
+                    listener -> {
+                        try {
+                            listener.accept(change);
+                        } catch (RuntimeException e) {
+                            LOG.error("Configuration change listener failed", e);
+                        }
+                    });
         }
-        return instance;
     }
 
     public static RPConfig getRelyingPartyConfig(String relyingPartyName) {
-        getInstance();
+        var relyingParties = getInstance();
 
         if (relyingPartyName == null) {
             relyingPartyName = defaultClientId();
@@ -36,7 +128,7 @@ public class Configuration extends HashMap<String, RPConfig> {
 
         if (relyingPartyName == null) {
             var defaultConfig =
-                    instance.entrySet().stream()
+                    relyingParties.entrySet().stream()
                             .findFirst()
                             .orElseThrow(
                                     () ->
@@ -45,7 +137,7 @@ public class Configuration extends HashMap<String, RPConfig> {
             return defaultConfig.getValue();
         }
 
-        return Optional.ofNullable(instance.get(relyingPartyName))
+        return Optional.ofNullable(relyingParties.get(relyingPartyName))
                 .orElseThrow(
                         () ->
                                 new MissingConfigurationException(
@@ -69,51 +161,279 @@ public class Configuration extends HashMap<String, RPConfig> {
         return "https://identity.build.account.gov.uk/";
     }
 
-    private static Configuration fetchConfiguration() {
-        String config;
-        if (LOCAL_CONFIGURATION_SOURCE.equals(configSource())) {
-            config = fetchLocalConfig();
-        } else {
-            config = fetchConfigFromSecretsManager();
-        }
+    public static Duration getProviderMetadataTtl() {
+        return durationFromEnv(
+                "PROVIDER_METADATA_TTL_SECONDS", ChronoUnit.SECONDS, Duration.ofMinutes(15));
+    }
+
+    public static Duration getProviderMetadataRetryInterval() {
+        return durationFromEnv(
+                "PROVIDER_METADATA_RETRY_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(30));
+    }
+
+    public static Duration getHttpConnectTimeout() {
+        return durationFromEnv(
+                "HTTP_CONNECT_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(3));
+    }
+
+    public static Duration getHttpReadTimeout() {
+        return durationFromEnv(
+                "HTTP_READ_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    }
+
+    public static Duration getJwksCacheLifetime() {
+        return durationFromEnv(
+                "JWKS_CACHE_LIFETIME_SECONDS", ChronoUnit.SECONDS, Duration.ofMinutes(5));
+    }
+
+    public static Duration getJwksRefreshAhead() {
+        return durationFromEnv(
+                "JWKS_REFRESH_AHEAD_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(30));
+    }
 
+    public static Duration getJwksRefreshJitter() {
+        return durationFromEnv(
+                "JWKS_REFRESH_JITTER_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(15));
+    }
+
+    public static Duration getJwksForcedRefreshInterval() {
+        return durationFromEnv(
+                "JWKS_FORCED_REFRESH_INTERVAL_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(30));
+    }
+
+    public static Duration getJwksFetchTimeout() {
+        return durationFromEnv(
+                "JWKS_FETCH_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(2));
+    }
+
+    public static Duration getJwksRefreshTimeout() {
+        return durationFromEnv(
+                "JWKS_REFRESH_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    }
+
+    public static ExecutionMode getExecutionMode() {
+        return Optional.ofNullable(System.getenv("EXECUTION_MODE"))
+                .map(ExecutionMode::parse)
+                .orElse(ExecutionMode.PLATFORM);
+    }
+
+    public static Duration getCallbackTokenTimeout() {
+        return durationFromEnv(
+                "CALLBACK_TOKEN_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    }
+
+    public static Duration getCallbackIdTokenTimeout() {
+        return durationFromEnv(
+                "CALLBACK_ID_TOKEN_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(5));
+    }
+
+    public static Duration getCallbackUserInfoTimeout() {
+        return durationFromEnv(
+                "CALLBACK_USERINFO_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(10));
+    }
+
+    public static Duration getCallbackCoreIdentityTimeout() {
+        return durationFromEnv(
+                "CALLBACK_CORE_IDENTITY_TIMEOUT_MILLIS", ChronoUnit.MILLIS, Duration.ofSeconds(5));
+    }
+
+    public static Optional<Integer> getFakeOpPort() {
+        return Optional.ofNullable(System.getenv("FAKE_OP_PORT")).map(Integer::parseInt);
+    }
+
+    public static Optional<String> getFakeOpUrl() {
+        return Optional.ofNullable(System.getenv("FAKE_OP_URL"));
+    }
+
+    public static Optional<String> getFakeOpUserInfoClaims() {
+        return Optional.ofNullable(System.getenv("FAKE_OP_USERINFO_CLAIMS"));
+    }
+
+    public static Optional<String> getFakeOpCoreIdentityClaims() {
+        return Optional.ofNullable(System.getenv("FAKE_OP_CORE_IDENTITY_CLAIMS"));
+    }
+
+    public static Duration getFakeOpLatency(String endpoint) {
+        return durationFromEnv(
+                "FAKE_OP_" + endpoint + "_LATENCY_MILLIS", ChronoUnit.MILLIS, Duration.ZERO);
+    }
+
+    public static Duration getFakeOpJitter(String endpoint) {
+        return durationFromEnv(
+                "FAKE_OP_" + endpoint + "_JITTER_MILLIS", ChronoUnit.MILLIS, Duration.ZERO);
+    }
+
+    public static double getFakeOpErrorRate(String endpoint) {
+        return Optional.ofNullable(System.getenv("FAKE_OP_" + endpoint + "_ERROR_RATE"))
+                .map(Double::parseDouble)
+                .orElse(0.0);
+    }
+
+    public static int getWarmUpSigningIterations() {
+        return Optional.ofNullable(System.getenv("WARM_UP_SIGNING_ITERATIONS"))
+                .map(Integer::parseInt)
+                .orElse(200);
+    }
+
+    public static int getFormMaxBytes() {
+        return Optional.ofNullable(System.getenv("FORM_MAX_BYTES"))
+                .map(Integer::parseInt)
+                .orElse(64 * 1024);
+    }
+
+    public static int getAuthorizeTemplateCacheSize() {
+        return Optional.ofNullable(System.getenv("AUTHORIZE_TEMPLATE_CACHE_SIZE"))
+                .map(Integer::parseInt)
+                .orElse(256);
+    }
+
+    public static int getClientAssertionPoolSize() {
+        return Optional.ofNullable(System.getenv("CLIENT_ASSERTION_POOL_SIZE"))
+                .map(Integer::parseInt)
+                .orElse(32);
+    }
+
+    public static Duration getClientAssertionSafetyMargin() {
+        return durationFromEnv(
+                "CLIENT_ASSERTION_SAFETY_MARGIN_SECONDS",
+                ChronoUnit.SECONDS,
+                Duration.ofSeconds(60));
+    }
+
+    public static Duration getWarmUpTimeout() {
+        return durationFromEnv(
+                "WARM_UP_TIMEOUT_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(60));
+    }
+
+    public static int getLogoutReplayCacheSize() {
+        return Optional.ofNullable(System.getenv("LOGOUT_REPLAY_CACHE_SIZE"))
+                .map(Integer::parseInt)
+                .orElse(100_000);
+    }
+
+    public static Duration getLogoutReplayWindow() {
+        return durationFromEnv(
+                "LOGOUT_REPLAY_WINDOW_SECONDS", ChronoUnit.SECONDS, Duration.ofMinutes(5));
+    }
+
+    public static int getJourneyStoreMaxEntries() {
+        return Optional.ofNullable(System.getenv("JOURNEY_STORE_MAX_ENTRIES"))
+                .map(Integer::parseInt)
+                .orElse(100_000);
+    }
+
+    public static long getJourneyStoreMaxBytes() {
+        return Optional.ofNullable(System.getenv("JOURNEY_STORE_MAX_BYTES"))
+                .map(Long::parseLong)
+                .orElse(64L * 1024 * 1024);
+    }
+
+    public static Duration getJourneyTtl() {
+        return durationFromEnv("JOURNEY_TTL_SECONDS", ChronoUnit.SECONDS, Duration.ofHours(1));
+    }
+
+    // Off by default because tasks aren't sticky, so a callback can land on a task that
+    // didn't start the journey
+    public static boolean isKnownStateRequired() {
+        return Optional.ofNullable(System.getenv("REQUIRE_KNOWN_STATE"))
+                .map(Boolean::parseBoolean)
+                .orElse(false);
+    }
+
+    public static Optional<String> getJourneyTimingKey() {
+        return Optional.ofNullable(System.getenv("JOURNEY_TIMING_KEY"));
+    }
+
+    public static boolean isLocalConfiguration() {
+        return LOCAL_CONFIGURATION_SOURCE.equals(configSource());
+    }
+
+    public static Duration getJourneySummaryInterval() {
+        return durationFromEnv(
+                "JOURNEY_SUMMARY_INTERVAL_SECONDS", ChronoUnit.SECONDS, Duration.ofMinutes(1));
+    }
+
+    public static int getLoadTestMaxInFlight() {
+        return Optional.ofNullable(System.getenv("LOAD_TEST_MAX_IN_FLIGHT"))
+                .map(Integer::parseInt)
+                .orElse(10_000);
+    }
+
+    public static Duration getLoadTestDrainTimeout() {
+        return durationFromEnv(
+                "LOAD_TEST_DRAIN_TIMEOUT_SECONDS", ChronoUnit.SECONDS, Duration.ofSeconds(30));
+    }
+
+    public static Duration getConfigurationPollInterval() {
+        return durationFromEnv(
+                "CONFIGURATION_POLL_INTERVAL_SECONDS", ChronoUnit.SECONDS, Duration.ofMinutes(1));
+    }
+
+    private static Snapshot load(Source source) {
         var serialiser =
                 new GsonBuilder()
                         .setFieldNamingPolicy(FieldNamingPolicy.LOWER_CASE_WITH_UNDERSCORES)
                         .create();
-        return serialiser.fromJson(config, Configuration.class);
+        var configuration = serialiser.fromJson(source.config(), Configuration.class);
+        SigningKeys.preload(configuration.values());
+        return new Snapshot(Collections.unmodifiableMap(configuration), source.version());
     }
 
-    private static String fetchLocalConfig() {
-        var configPath = "config.json";
+    private static Source fetchSource() {
+        if (LOCAL_CONFIGURATION_SOURCE.equals(configSource())) {
+            return fetchLocalConfig();
+        } else {
+            return fetchConfigFromSecretsManager(SecretsManager.client, configSource());
+        }
+    }
+
+    private static Source fetchLocalConfig() {
+        var version = localConfigVersion();
         String config;
-        try (BufferedReader reader = new BufferedReader(new FileReader(configPath))) {
+        try (BufferedReader reader =
+                new BufferedReader(new FileReader(LOCAL_CONFIGURATION_PATH.toFile()))) {
             config = reader.lines().collect(Collectors.joining());
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
-        return config;
+        return new Source(config, version);
     }
 
-    private static String fetchConfigFromSecretsManager() {
-        String secretName = configSource();
-        Region region = Region.of("eu-west-2");
-        try (SecretsManagerClient client = SecretsManagerClient.builder().region(region).build()) {
-            var secretRequest = GetSecretValueRequest.builder().secretId(secretName).build();
-
-            return client.getSecretValue(secretRequest).secretString();
+    private static String localConfigVersion() {
+        try {
+            return Files.getLastModifiedTime(LOCAL_CONFIGURATION_PATH).toMillis()
+                    + ":"
+                    + Files.size(LOCAL_CONFIGURATION_PATH);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    // The task role can only read the secret value, so its version id comes from the same call
+    static Source fetchConfigFromSecretsManager(SecretsManagerClient client, String secretId) {
+        var secretRequest = GetSecretValueRequest.builder().secretId(secretId).build();
+        var secret = client.getSecretValue(secretRequest);
+        return new Source(secret.secretString(), secret.versionId());
+    }
+
     private static String configSource() {
         return System.getenv().getOrDefault("CONFIGURATION_SOURCE", LOCAL_CONFIGURATION_SOURCE);
     }
 
+    private static Duration durationFromEnv(String name, TemporalUnit unit, Duration defaultValue) {
+        return Optional.ofNullable(System.getenv(name))
+                .map(Long::parseLong)
+                .map(amount -> Duration.of(amount, unit))
+                .orElse(defaultValue);
+    }
+
     private static String defaultClientId() {
         return System.getenv().getOrDefault("DEFAULT_CLIENT_ID", null);
     }
 
-    public static Stream<Map<String, Serializable>> getClientsPublicKeys() {
-        return getInstance().values().stream().map(RPConfig::jwksConfiguration);
+    // Created on first use, so local runs never build an AWS client
+    private static class SecretsManager {
+        private static final SecretsManagerClient client =
+                SecretsManagerClient.builder().region(Region.of("eu-west-2")).build();
     }
 }
@@ -0,0 +1,22 @@
+package uk.gov.di.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public record ConfigurationChange(List<RPConfig> changed, List<RPConfig> removed) {
+
+    static ConfigurationChange between(Map<String, RPConfig> previous, Map<String, RPConfig> next) {
+        var previousConfigs = Set.copyOf(previous.values());
+        var nextConfigs = Set.copyOf(next.values());
+        return new ConfigurationChange(
+                next.values().stream().filter(config -> !previousConfigs.contains(config)).toList(),
+                previous.values().stream()
+                        .filter(config -> !nextConfigs.contains(config))
+                        .toList());
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,21 @@
+package uk.gov.di.config;
+
+import java.util.Locale;
+
+public enum ExecutionMode {
+    PLATFORM,
+    VIRTUAL;
+
+    public static ExecutionMode parse(String value) {
+        try {
+            return ExecutionMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MissingConfigurationException(
+                    "Unknown EXECUTION_MODE " + value + ", expected platform or virtual");
+        }
+    }
+
+    public boolean usesVirtualThreads() {
+        return this == VIRTUAL;
+    }
+}
@@ -1,10 +1,9 @@
 package uk.gov.di.config;
 
-import uk.gov.di.utils.PrivateKeyReader;
+import uk.gov.di.utils.SigningKeys;
 
 import java.io.Serializable;
 import java.util.Map;
-import java.util.UUID;
 
 public record RPConfig(
         String clientPrivateKey,
@@ -17,25 +16,43 @@ public record RPConfig(
         String opBaseUrl,
         String tokenClientSecret,
         String inheritedIdentityJwtSigningKey,
-        String alternativeBaseUrl) {
-
-    private static final String kid = UUID.randomUUID().toString();
+        String alternativeBaseUrl,
+        String requestSigningAlgorithm) {
 
     public String authCallbackUrl() {
         return Configuration.getStubUrl() + "/oidc/authorization-code/callback";
     }
 
+    public RPConfig withOpBaseUrl(String opBaseUrl) {
+        return new RPConfig(
+                clientPrivateKey,
+                identitySigningKeyUrl,
+                accountManagementUrl,
+                clientId,
+                clientType,
+                idTokenSigningAlgorithm,
+                serviceName,
+                opBaseUrl,
+                tokenClientSecret,
+                inheritedIdentityJwtSigningKey,
+                alternativeBaseUrl,
+                requestSigningAlgorithm);
+    }
+
     public String postLogoutRedirectUrl() {
         return Configuration.getStubUrl() + "/signed-out";
     }
 
     public Map<String, Serializable> jwksConfiguration() {
+        var signingKeys = SigningKeys.forRelyingParty(this);
         return Map.of(
                 "client_id",
                 clientId(),
                 "public_key",
-                new PrivateKeyReader(clientPrivateKey()).getPublicKey(),
+                signingKeys.requestSigningPublicKey(),
                 "public_key_id",
-                kid);
+                signingKeys.requestSigningKeyId(),
+                "algorithm",
+                signingKeys.requestSigningAlgorithm());
     }
 }
@@ -0,0 +1,404 @@
+package uk.gov.di.fakeop;
+
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.ParseException;
+import com.nimbusds.openid.connect.sdk.OIDCClaimsRequest;
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import org.apache.http.client.utils.URIBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.fakeop.FakeOpSettings.Endpoint;
+import uk.gov.di.fakeop.FakeOpSettings.Faults;
+import uk.gov.di.utils.BackgroundExecutors;
+import uk.gov.di.utils.HttpTransport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An OpenID Provider stand-in that approves every authorization request, so the stub can be run
+ * end to end without a network. Codes and access tokens are signed JWTs carrying the grant, which
+ * keeps the fake stateless; client authentication is not checked.
+ */
+public class FakeOp implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FakeOp.class);
+    private static final String CORE_IDENTITY_CLAIM =
+            "https://vocab.account.gov.uk/v1/coreIdentityJWT";
+    private static final String DOC_APP_CREDENTIAL_CLAIM = "doc-app-credential";
+    private static final String BACKCHANNEL_LOGOUT_EVENT =
+            "http://schemas.openid.net/event/backchannel-logout";
+    private static final Duration CODE_LIFETIME = Duration.ofMinutes(5);
+    private static final Duration ACCESS_TOKEN_LIFETIME = Duration.ofMinutes(3);
+    private static final Duration ID_TOKEN_LIFETIME = Duration.ofMinutes(2);
+    private static final ExecutorService delayedResponses =
+            BackgroundExecutors.newCachedPool("fake-op-delayed");
+
+    private final FakeOpSettings settings;
+    private final TokenIssuer tokens = new TokenIssuer();
+    private final Javalin app;
+    private volatile String issuer;
+
+    private FakeOp(FakeOpSettings settings) {
+        this.settings = settings;
+        this.app =
+                Javalin.create(
+                        config -> {
+                            config.jetty.port = settings.port();
+                            config.routes.get(
+                                    "/.well-known/openid-configuration",
+                                    withFaults(Endpoint.DISCOVERY, this::discovery));
+                            config.routes.get(
+                                    "/.well-known/jwks.json",
+                                    withFaults(Endpoint.JWKS, this::jwks));
+                            config.routes.get(
+                                    "/.well-known/did.json", withFaults(Endpoint.DID, this::did));
+                            config.routes.get(
+                                    "/authorize", withFaults(Endpoint.AUTHORIZE, this::authorize));
+                            config.routes.post("/token", withFaults(Endpoint.TOKEN, this::token));
+                            config.routes.get(
+                                    "/userinfo", withFaults(Endpoint.USERINFO, this::userInfo));
+                            config.routes.get("/logout", withFaults(Endpoint.LOGOUT, this::logout));
+                            config.routes.post(
+                                    "/backchannel-logout",
+                                    withFaults(
+                                            Endpoint.BACKCHANNEL_LOGOUT, this::backChannelLogout));
+                        });
+    }
+
+    public static FakeOp start(FakeOpSettings settings) {
+        var fakeOp = new FakeOp(settings);
+        fakeOp.app.start();
+        fakeOp.issuer =
+                settings.baseUrl() != null
+                        ? settings.baseUrl()
+                        : "http://localhost:" + fakeOp.app.port();
+        LOG.info("Fake OP listening with issuer {}", fakeOp.issuer);
+        return fakeOp;
+    }
+
+    public String issuer() {
+        return issuer;
+    }
+
+    public int port() {
+        return app.port();
+    }
+
+    /** Signs a core identity credential for the subject as the userinfo endpoint would. */
+    public String coreIdentityCredential(String subject, String clientId) {
+        return identityCredential(subject, clientId, settings.coreIdentityClaims());
+    }
+
+    @Override
+    public void close() {
+        app.stop();
+    }
+
+    // Latency is waited out off the request thread, so a slow fake OP can hold as many requests
+    // open at once as a real one rather than being limited by Jetty's thread pool
+    private Handler withFaults(Endpoint endpoint, Handler handler) {
+        var faults = settings.faultsFor(endpoint);
+        return ctx -> {
+            var delayMillis = faults.delayMillis();
+            if (delayMillis <= 0) {
+                respond(ctx, endpoint, faults, handler);
+                return;
+            }
+            ctx.future(
+                    () ->
+                            CompletableFuture.runAsync(
+                                    () -> {
+                                        try {
+                                            respond(ctx, endpoint, faults, handler);
+                                        } catch (Exception e) {
+                                            throw new CompletionException(e);
+                                        }
+                                    },
+                                    CompletableFuture.delayedExecutor(
+                                            delayMillis, TimeUnit.MILLISECONDS, delayedResponses)));
+        };
+    }
+
+    private static void respond(Context ctx, Endpoint endpoint, Faults faults, Handler handler)
+            throws Exception {
+        if (faults.shouldFail()) {
+            LOG.info("Injecting failure for {}", endpoint);
+            ctx.status(500).json(error("server_error", "Injected failure"));
+            return;
+        }
+        handler.handle(ctx);
+    }
+
+    private void discovery(Context ctx) {
+        var metadata = new LinkedHashMap<String, Object>();
+        metadata.put("issuer", issuer);
+        metadata.put("authorization_endpoint", issuer + "/authorize");
+        metadata.put("token_endpoint", issuer + "/token");
+        metadata.put("userinfo_endpoint", issuer + "/userinfo");
+        metadata.put("end_session_endpoint", issuer + "/logout");
+        metadata.put("jwks_uri", issuer + "/.well-known/jwks.json");
+        metadata.put("scopes_supported", List.of("openid", "email", "phone", "offline_access"));
+        metadata.put("response_types_supported", List.of("code"));
+        metadata.put("grant_types_supported", List.of("authorization_code"));
+        metadata.put("code_challenge_methods_supported", List.of("S256"));
+        metadata.put(
+                "token_endpoint_auth_methods_supported",
+                List.of("private_key_jwt", "client_secret_post"));
+        metadata.put("ui_locales_supported", List.of("en", "cy"));
+        metadata.put("request_parameter_supported", true);
+        metadata.put("subject_types_supported", List.of("public", "pairwise"));
+        metadata.put("id_token_signing_alg_values_supported", List.of("ES256"));
+        metadata.put("claim_types_supported", List.of("normal"));
+        metadata.put("backchannel_logout_supported", true);
+        metadata.put("backchannel_logout_session_supported", false);
+        ctx.header("Cache-Control", "max-age=3600");
+        ctx.json(metadata);
+    }
+
+    private void jwks(Context ctx) {
+        ctx.header("Cache-Control", "max-age=3600");
+        ctx.contentType("application/json");
+        ctx.result(tokens.jwks());
+    }
+
+    private void did(Context ctx) {
+        ctx.header("Cache-Control", "max-age=3600");
+        ctx.contentType("application/json");
+        ctx.result(tokens.didDocument(issuer));
+    }
+
+    private void authorize(Context ctx) throws java.text.ParseException, URISyntaxException {
+        var parameters = authorizeParameters(ctx);
+        var clientId = stringValue(parameters, "client_id");
+        var redirectUri = stringValue(parameters, "redirect_uri");
+        if (clientId == null || redirectUri == null) {
+            ctx.status(400).json(error("invalid_request", "client_id and redirect_uri required"));
+            return;
+        }
+
+        var code =
+                tokens.sign(
+                        new JWTClaimsSet.Builder()
+                                .issuer(issuer)
+                                .subject("urn:fdc:gov.uk:2022:" + UUID.randomUUID())
+                                .expirationTime(Date.from(Instant.now().plus(CODE_LIFETIME)))
+                                .claim("client_id", clientId)
+                                .claim("redirect_uri", redirectUri)
+                                .claim("nonce", stringValue(parameters, "nonce"))
+                                .claim("scope", stringValue(parameters, "scope"))
+                                .claim("claims", stringValue(parameters, "claims"))
+                                .claim("sid", UUID.randomUUID().toString())
+                                .build());
+
+        var location = new URIBuilder(redirectUri).addParameter("code", code);
+        var state = stringValue(parameters, "state");
+        if (state != null) {
+            location.addParameter("state", state);
+        }
+        ctx.redirect(location.build().toString());
+    }
+
+    // Parameters in a request object take precedence over those in the query
+    private static Map<String, Object> authorizeParameters(Context ctx)
+            throws java.text.ParseException {
+        var parameters = new HashMap<String, Object>();
+        ctx.queryParamMap().forEach((name, values) -> parameters.put(name, values.get(0)));
+        var requestObject = ctx.queryParam("request");
+        if (requestObject != null) {
+            parameters.putAll(SignedJWT.parse(requestObject).getJWTClaimsSet().getClaims());
+        }
+        return parameters;
+    }
+
+    private void token(Context ctx) {
+        var code = ctx.formParam("code");
+        var grant = code == null ? null : tokens.verify(code);
+        if (!"authorization_code".equals(ctx.formParam("grant_type"))
+                || grant == null
+                || !issuer.equals(grant.getIssuer())
+                || !grant.getClaim("redirect_uri").equals(ctx.formParam("redirect_uri"))) {
+            ctx.status(400).json(error("invalid_grant", "Unknown or expired authorization code"));
+            return;
+        }
+
+        var clientId = grant.getClaim("client_id").toString();
+        var now = Instant.now();
+        var idToken =
+                tokens.sign(
+                        new JWTClaimsSet.Builder()
+                                .issuer(issuer)
+                                .subject(grant.getSubject())
+                                .audience(clientId)
+                                .issueTime(Date.from(now))
+                                .expirationTime(Date.from(now.plus(ID_TOKEN_LIFETIME)))
+                                .claim("nonce", grant.getClaim("nonce"))
+                                .claim("sid", grant.getClaim("sid"))
+                                .claim("vot", "Cl.Cm")
+                                .claim("vtm", issuer + "/trustmark")
+                                .build());
+        var accessToken =
+                tokens.sign(
+                        new JWTClaimsSet.Builder(grant)
+                                .expirationTime(Date.from(now.plus(ACCESS_TOKEN_LIFETIME)))
+                                .build());
+
+        ctx.header("Cache-Control", "no-store");
+        ctx.json(
+                Map.of(
+                        "access_token",
+                        accessToken,
+                        "token_type",
+                        "Bearer",
+                        "expires_in",
+                        ACCESS_TOKEN_LIFETIME.toSeconds(),
+                        "id_token",
+                        idToken));
+    }
+
+    private void userInfo(Context ctx) throws ParseException {
+        var authorization = ctx.header("Authorization");
+        var grant =
+                authorization != null && authorization.startsWith("Bearer ")
+                        ? tokens.verify(authorization.substring("Bearer ".length()))
+                        : null;
+        if (grant == null) {
+            ctx.header("WWW-Authenticate", "Bearer error=\"invalid_token\"");
+            ctx.status(401).json(error("invalid_token", "Unknown or expired access token"));
+            return;
+        }
+
+        var claims = new LinkedHashMap<>(settings.userInfoClaims());
+        claims.put("sub", grant.getSubject());
+        var clientId = grant.getClaim("client_id").toString();
+        if (requestedUserInfoClaims(grant).contains(CORE_IDENTITY_CLAIM)) {
+            claims.put(
+                    CORE_IDENTITY_CLAIM,
+                    identityCredential(
+                            grant.getSubject(), clientId, settings.coreIdentityClaims()));
+        }
+        var scope = grant.getClaim("scope");
+        if (scope != null && scope.toString().contains("doc-checking-app")) {
+            claims.put(
+                    DOC_APP_CREDENTIAL_CLAIM,
+                    List.of(
+                            identityCredential(
+                                    grant.getSubject(),
+                                    clientId,
+                                    Map.of(
+                                            "vc",
+                                            Map.of(
+                                                    "type",
+                                                    List.of(
+                                                            "VerifiableCredential",
+                                                            "DocumentCheckCredential"))))));
+        }
+        ctx.json(claims);
+    }
+
+    private static Set<String> requestedUserInfoClaims(JWTClaimsSet grant) throws ParseException {
+        var claimsRequest = grant.getClaim("claims");
+        if (claimsRequest == null) {
+            return Set.of();
+        }
+        var userInfoClaims =
+                OIDCClaimsRequest.parse(claimsRequest.toString()).getUserInfoClaimsRequest();
+        return userInfoClaims == null ? Set.of() : userInfoClaims.getClaimNames(false);
+    }
+
+    private String identityCredential(
+            String subject, String clientId, Map<String, Object> credentialClaims) {
+        var claims =
+                new JWTClaimsSet.Builder()
+                        .issuer(issuer)
+                        .subject(subject)
+                        .audience(clientId)
+                        .notBeforeTime(new Date());
+        credentialClaims.forEach(claims::claim);
+        return tokens.signIdentityCredential(issuer, claims.build());
+    }
+
+    private void logout(Context ctx) throws URISyntaxException {
+        var postLogoutRedirectUri = ctx.queryParam("post_logout_redirect_uri");
+        if (postLogoutRedirectUri == null) {
+            ctx.result("Signed out");
+            return;
+        }
+        var location = new URIBuilder(postLogoutRedirectUri);
+        var state = ctx.queryParam("state");
+        if (state != null) {
+            location.addParameter("state", state);
+        }
+        ctx.redirect(location.build().toString());
+    }
+
+    // Sends a signed logout token to an RP's back-channel logout endpoint, so the RP side of
+    // back-channel logout can be driven on demand
+    private void backChannelLogout(Context ctx) throws IOException {
+        var logoutUri = ctx.formParam("backchannel_logout_uri");
+        var clientId = ctx.formParam("client_id");
+        var subject = ctx.formParam("sub");
+        if (logoutUri == null || clientId == null || subject == null) {
+            ctx.status(400)
+                    .json(
+                            error(
+                                    "invalid_request",
+                                    "backchannel_logout_uri, client_id and sub required"));
+            return;
+        }
+
+        var now = Instant.now();
+        var logoutToken =
+                tokens.sign(
+                        new JWTClaimsSet.Builder()
+                                .issuer(issuer)
+                                .subject(subject)
+                                .audience(clientId)
+                                .issueTime(Date.from(now))
+                                .expirationTime(Date.from(now.plus(ID_TOKEN_LIFETIME)))
+                                .jwtID(UUID.randomUUID().toString())
+                                .claim("sid", ctx.formParam("sid"))
+                                .claim("events", Map.of(BACKCHANNEL_LOGOUT_EVENT, Map.of()))
+                                .build(),
+                        new JOSEObjectType("logout+jwt"));
+        var response =
+                HttpTransport.getInstance()
+                        .send(
+                                HttpRequest.newBuilder(URI.create(logoutUri))
+                                        .header("Content-Type", "application/x-www-form-urlencoded")
+                                        .POST(
+                                                HttpRequest.BodyPublishers.ofString(
+                                                        "logout_token=" + logoutToken)),
+                                HttpResponse.BodyHandlers.discarding());
+        LOG.info("Back-channel logout to {} returned {}", logoutUri, response.statusCode());
+        ctx.json(Map.of("status", response.statusCode()));
+    }
+
+    private static Map<String, String> error(String error, String description) {
+        return Map.of("error", error, "error_description", description);
+    }
+
+    private static String stringValue(Map<String, Object> parameters, String name) {
+        return parameters.get(name) instanceof String value ? value : null;
+    }
+}
@@ -0,0 +1,109 @@
+package uk.gov.di.fakeop;
+
+import com.nimbusds.jose.util.JSONObjectUtils;
+import uk.gov.di.config.Configuration;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+public record FakeOpSettings(
+        int port,
+        String baseUrl,
+        Map<String, Object> userInfoClaims,
+        Map<String, Object> coreIdentityClaims,
+        Map<Endpoint, Faults> faults) {
+
+    private static final Map<String, Object> DEFAULT_USER_INFO_CLAIMS =
+            parseClaims(
+                    """
+                    {"email":"fake.user@example.com","email_verified":true,\
+                    "phone_number":"+447700900000","phone_number_verified":true}""");
+    private static final Map<String, Object> DEFAULT_CORE_IDENTITY_CLAIMS =
+            parseClaims(
+                    """
+                    {"vot":"P2","vc":{"type":["VerifiableCredential","IdentityCheckCredential"],\
+                    "credentialSubject":{"name":[{"nameParts":[\
+                    {"type":"GivenName","value":"Kenneth"},\
+                    {"type":"FamilyName","value":"Decerqueira"}]}],\
+                    "birthDate":[{"value":"1965-07-08"}]}}}""");
+
+    public enum Endpoint {
+        DISCOVERY,
+        JWKS,
+        DID,
+        AUTHORIZE,
+        TOKEN,
+        USERINFO,
+        LOGOUT,
+        BACKCHANNEL_LOGOUT
+    }
+
+    public record Faults(Duration latency, Duration jitter, double errorRate) {
+        public static final Faults NONE = new Faults(Duration.ZERO, Duration.ZERO, 0);
+
+        long delayMillis() {
+            var millis = latency.toMillis();
+            if (!jitter.isZero()) {
+                millis += ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1);
+            }
+            return millis;
+        }
+
+        boolean shouldFail() {
+            return errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        }
+    }
+
+    public static FakeOpSettings defaults() {
+        return new FakeOpSettings(
+                0,
+                null,
+                DEFAULT_USER_INFO_CLAIMS,
+                DEFAULT_CORE_IDENTITY_CLAIMS,
+                new EnumMap<>(Endpoint.class));
+    }
+
+    public static FakeOpSettings fromConfiguration() {
+        var faults = new EnumMap<Endpoint, Faults>(Endpoint.class);
+        for (var endpoint : Endpoint.values()) {
+            faults.put(
+                    endpoint,
+                    new Faults(
+                            Configuration.getFakeOpLatency(endpoint.name()),
+                            Configuration.getFakeOpJitter(endpoint.name()),
+                            Configuration.getFakeOpErrorRate(endpoint.name())));
+        }
+        return new FakeOpSettings(
+                Configuration.getFakeOpPort().orElse(0),
+                Configuration.getFakeOpUrl().orElse(null),
+                Configuration.getFakeOpUserInfoClaims()
+                        .map(FakeOpSettings::parseClaims)
+                        .orElse(DEFAULT_USER_INFO_CLAIMS),
+                Configuration.getFakeOpCoreIdentityClaims()
+                        .map(FakeOpSettings::parseClaims)
+                        .orElse(DEFAULT_CORE_IDENTITY_CLAIMS),
+                faults);
+    }
+
+    public FakeOpSettings withFaults(Endpoint endpoint, Faults endpointFaults) {
+        var updated = new EnumMap<Endpoint, Faults>(Endpoint.class);
+        updated.putAll(faults);
+        updated.put(endpoint, endpointFaults);
+        return new FakeOpSettings(port, baseUrl, userInfoClaims, coreIdentityClaims, updated);
+    }
+
+    Faults faultsFor(Endpoint endpoint) {
+        return faults.getOrDefault(endpoint, Faults.NONE);
+    }
+
+    private static Map<String, Object> parseClaims(String json) {
+        try {
+            return JSONObjectUtils.parse(json);
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
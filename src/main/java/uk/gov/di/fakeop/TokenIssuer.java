@@ -0,0 +1,109 @@
+package uk.gov.di.fakeop;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.net.URI;
+import java.text.ParseException;
+import java.util.Date;
+
+class TokenIssuer {
+
+    private static final String SIGNING_KEY_ID = "fake-op-signing-key";
+    private static final String IDENTITY_KEY_ID = "fake-op-identity-key";
+
+    private final ECKey signingKey;
+    private final ECKey identityKey;
+    private final ECDSASigner signer;
+    private final ECDSASigner identitySigner;
+    private final ECDSAVerifier verifier;
+
+    TokenIssuer() {
+        try {
+            signingKey =
+                    new ECKeyGenerator(Curve.P_256)
+                            .keyID(SIGNING_KEY_ID)
+                            .keyUse(KeyUse.SIGNATURE)
+                            .generate();
+            identityKey = new ECKeyGenerator(Curve.P_256).keyID(IDENTITY_KEY_ID).generate();
+            signer = new ECDSASigner(signingKey);
+            identitySigner = new ECDSASigner(identityKey);
+            verifier = new ECDSAVerifier(signingKey.toPublicJWK());
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    String sign(JWTClaimsSet claims) {
+        return sign(claims, null);
+    }
+
+    String sign(JWTClaimsSet claims, JOSEObjectType type) {
+        var header = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(SIGNING_KEY_ID).type(type);
+        return sign(new SignedJWT(header.build(), claims), signer);
+    }
+
+    // Identity credentials are signed with the key published in the DID document, with a kid
+    // that names the DID controller, as the real identity service does
+    String signIdentityCredential(String issuer, JWTClaimsSet claims) {
+        var header =
+                new JWSHeader.Builder(JWSAlgorithm.ES256)
+                        .keyID(controller(issuer) + "#" + IDENTITY_KEY_ID)
+                        .build();
+        return sign(new SignedJWT(header, claims), identitySigner);
+    }
+
+    /** Returns the claims of a token this issuer signed, or null if it is invalid or expired. */
+    JWTClaimsSet verify(String token) {
+        try {
+            var jwt = SignedJWT.parse(token);
+            if (!jwt.verify(verifier)) {
+                return null;
+            }
+            var claims = jwt.getJWTClaimsSet();
+            var expiry = claims.getExpirationTime();
+            return expiry == null || expiry.after(new Date()) ? claims : null;
+        } catch (ParseException | JOSEException e) {
+            return null;
+        }
+    }
+
+    String jwks() {
+        return new JWKSet(signingKey.toPublicJWK()).toString();
+    }
+
+    String didDocument(String issuer) {
+        var controller = controller(issuer);
+        var jwk = identityKey.toPublicJWK();
+        return """
+                {"@context":["https://www.w3.org/ns/did/v1","https://w3id.org/security/jwk/v1"],\
+                "id":"%1$s","assertionMethod":[{"id":"%1$s#%2$s","type":"JsonWebKey",\
+                "controller":"%1$s","publicKeyJwk":{"kty":"EC","crv":"P-256","x":"%3$s",\
+                "y":"%4$s"}}]}"""
+                .formatted(controller, IDENTITY_KEY_ID, jwk.getX(), jwk.getY());
+    }
+
+    private static String controller(String issuer) {
+        return "did:web:" + URI.create(issuer).getAuthority().replace(":", "%3A");
+    }
+
+    private static String sign(SignedJWT jwt, ECDSASigner jwtSigner) {
+        try {
+            jwt.sign(jwtSigner);
+            return jwt.serialize();
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
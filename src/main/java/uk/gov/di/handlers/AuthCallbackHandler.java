@@ -1,106 +1,175 @@
 package uk.gov.di.handlers;
 
+import com.nimbusds.openid.connect.sdk.Nonce;
+import com.nimbusds.openid.connect.sdk.token.OIDCTokens;
 import io.javalin.http.Context;
 import io.javalin.http.Cookie;
+import io.javalin.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.di.config.Configuration;
 import uk.gov.di.config.RPConfig;
+import uk.gov.di.utils.BackgroundExecutors;
+import uk.gov.di.utils.CallbackPipeline;
 import uk.gov.di.utils.CoreIdentityValidator;
-import uk.gov.di.utils.Oidc;
-
+import uk.gov.di.utils.Journey;
+import uk.gov.di.utils.JourneyLatency;
+import uk.gov.di.utils.JourneyStore;
+import uk.gov.di.utils.JourneyTiming;
+import uk.gov.di.utils.OidcClientRegistry;
+import uk.gov.di.utils.UserInfoClaims;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 public class AuthCallbackHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthCallbackHandler.class);
+    private static final String CORE_IDENTITY_CLAIM =
+            "https://vocab.account.gov.uk/v1/coreIdentityJWT";
+    private static final ExecutorService executor =
+            BackgroundExecutors.newRequestPool("auth-callback");
 
     public void handle(Context ctx) throws Exception {
         LOG.info("Callback received");
         if (ctx.queryParam("error") != null) {
-            renderError(ctx);
+            LOG.error("Error response in callback");
+            renderError(ctx, ctx.queryParam("error"), ctx.queryParam("error_description"));
+            return;
+        }
+
+        var journey = JourneyStore.getInstance().take(ctx.queryParam("state"));
+        if (journey.isEmpty() && Configuration.isKnownStateRequired()) {
+            LOG.warn("Callback state is unknown, expired or already used");
+            ctx.status(HttpStatus.BAD_REQUEST);
+            renderError(ctx, "invalid_request", "Unknown or expired state");
             return;
         }
+        if (journey.isEmpty()) {
+            LOG.warn("No journey stored for callback state, using cookies");
+        }
 
-        var relyingPartyConfig = Configuration.getRelyingPartyConfig(ctx.cookie("relyingParty"));
-        var oidcClient = new Oidc(relyingPartyConfig);
-        var validator = CoreIdentityValidator.createValidator(relyingPartyConfig);
+        var relyingPartyConfig =
+                Configuration.getRelyingPartyConfig(
+                        journey.map(Journey::clientId).orElse(ctx.cookie("relyingParty")));
+        var oidcClient = OidcClientRegistry.getClient(relyingPartyConfig);
+        var validator = CoreIdentityValidator.forRelyingParty(relyingPartyConfig);
 
-        var codeVerifierValue = ctx.cookie("codeVerifier");
-        if (codeVerifierValue != null) {
+        var codeVerifierCookie = ctx.cookie("codeVerifier");
+        if (codeVerifierCookie != null) {
             ctx.removeCookie("codeVerifier", "/");
         }
-        var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
-        var tokens =
-                oidcClient.makeTokenRequest(
-                        ctx.queryParam("code"),
-                        relyingPartyConfig.authCallbackUrl(),
-                        codeVerifierValue,
-                        useAlternativeDomain);
-        oidcClient.validateIdToken(tokens.getIDToken(), useAlternativeDomain);
+        var codeVerifierValue =
+                journey.isPresent() ? journey.get().codeVerifier() : codeVerifierCookie;
+        var useAlternativeDomain =
+                journey.map(Journey::useAlternativeDomain)
+                        .orElse("true".equals(ctx.cookie("useAlternativeDomain")));
+        var expectedNonce = journey.map(j -> new Nonce(j.nonce())).orElse(null);
+        var timing = JourneyTiming.open(ctx.cookie(JourneyTiming.COOKIE));
+        ctx.removeCookie(JourneyTiming.COOKIE, "/");
+        var code = ctx.queryParam("code");
+        var pipeline =
+                new CallbackPipeline(
+                        executor, oidcClient, validator, relyingPartyConfig.clientId());
+
+        ctx.future(
+                () ->
+                        pipeline.run(
+                                        code,
+                                        relyingPartyConfig.authCallbackUrl(),
+                                        codeVerifierValue,
+                                        expectedNonce,
+                                        useAlternativeDomain)
+                                .thenAccept(
+                                        result -> render(ctx, relyingPartyConfig, result, timing)));
+    }
+
+    private static void render(
+            Context ctx,
+            RPConfig relyingPartyConfig,
+            CallbackPipeline.Result result,
+            Optional<JourneyTiming.Started> timing) {
+        var tokens = result.tokens();
+        var userInfo = result.userInfo();
         ctx.cookie(
                 new Cookie(
                         "idToken", tokens.getIDToken().getParsedString(), "/", 3600, false, true));
-        var userInfo =
-                oidcClient.makeUserInfoRequest(tokens.getAccessToken(), useAlternativeDomain);
 
         var model = new HashMap<String, Object>();
         model.put("id_token", tokens.getIDToken().getParsedString());
         model.put("access_token", tokens.getAccessToken().toJSONString());
-        model.put("user_info_response", userInfo.toJSONString());
-        model.put("journey_id", tokens.getIDToken().getJWTClaimsSet().getStringClaim("sid"));
+        model.put("user_info_response", userInfo.json());
+        model.put("journey_id", journeyId(tokens));
         model.put("client_name", relyingPartyConfig.serviceName());
 
         var templateName = "/userinfo.mustache";
         if (relyingPartyConfig.clientType().equals("app")) {
-            List<String> docAppCredential = (List<String>) userInfo.getClaim("doc-app-credential");
-            model.put("doc_app_credential", docAppCredential.get(0));
+            model.put("doc_app_credential", docAppCredential(userInfo));
             templateName = "/doc-app-userinfo.mustache";
         } else {
-            model.put("email", userInfo.getEmailAddress());
-            model.put("phone_number", userInfo.getPhoneNumber());
+            model.put("email", userInfo.stringClaim("email"));
+            model.put("phone_number", userInfo.stringClaim("phone_number"));
 
-            var walletSubjectID = userInfo.getClaim("wallet_subject_id");
+            var walletSubjectID = userInfo.claimAsText("wallet_subject_id");
             boolean walletSubjectIDPresent = Objects.nonNull(walletSubjectID);
             model.put("wallet_subject_id_present", walletSubjectIDPresent);
             model.put("wallet_subject_id", walletSubjectID);
 
-            var coreIdentityJWT =
-                    userInfo.getStringClaim("https://vocab.account.gov.uk/v1/coreIdentityJWT");
+            var coreIdentityJWT = userInfo.stringClaim(CORE_IDENTITY_CLAIM);
             boolean coreIdentityClaimPresent = Objects.nonNull(coreIdentityJWT);
             model.put("core_identity_claim_present", coreIdentityClaimPresent);
             model.put("core_identity_claim", coreIdentityJWT);
             if (coreIdentityClaimPresent) {
-                model.put("core_identity_claim_signature", validator.isValid(coreIdentityJWT));
+                model.put("core_identity_claim_signature", result.coreIdentityResult());
             }
 
-            var returnCodeClaim = userInfo.getClaim("https://vocab.account.gov.uk/v1/returnCode");
+            var returnCodeClaim =
+                    userInfo.claimAsText("https://vocab.account.gov.uk/v1/returnCode");
             boolean returnCodeClaimPresent = Objects.nonNull(returnCodeClaim);
             model.put("return_code_claim_present", returnCodeClaimPresent);
             model.put("return_code_claim", returnCodeClaim);
 
-            boolean addressClaimPresent =
-                    Objects.nonNull(userInfo.getClaim("https://vocab.account.gov.uk/v1/address"));
-            boolean passportClaimPresent =
-                    Objects.nonNull(userInfo.getClaim("https://vocab.account.gov.uk/v1/passport"));
+            boolean addressClaimPresent = userInfo.has("https://vocab.account.gov.uk/v1/address");
+            boolean passportClaimPresent = userInfo.has("https://vocab.account.gov.uk/v1/passport");
             boolean drivingPermitClaimPresent =
-                    Objects.nonNull(
-                            userInfo.getClaim("https://vocab.account.gov.uk/v1/drivingPermit"));
+                    userInfo.has("https://vocab.account.gov.uk/v1/drivingPermit");
             model.put("address_claim_present", addressClaimPresent);
             model.put("passport_claim_present", passportClaimPresent);
             model.put("driving_permit_claim_present", drivingPermitClaimPresent);
-            model.put("locale_claim", userInfo.getClaim("locale"));
+            model.put("locale_claim", userInfo.claimAsText("locale"));
         }
         model.put("my_account_url", relyingPartyConfig.accountManagementUrl());
 
         ctx.render(templateName, model);
+        timing.ifPresent(
+                started ->
+                        JourneyLatency.record(
+                                started.options(),
+                                Duration.between(started.startedAt(), Instant.now())));
+    }
+
+    private static String docAppCredential(UserInfoClaims userInfo) {
+        try {
+            return userInfo.stringListClaim("doc-app-credential").get(0);
+        } catch (com.nimbusds.oauth2.sdk.ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String journeyId(OIDCTokens tokens) {
+        try {
+            return tokens.getIDToken().getJWTClaimsSet().getStringClaim("sid");
+        } catch (ParseException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private static void renderError(Context ctx) {
-        LOG.error("Error response in callback");
+    private static void renderError(Context ctx, String error, String errorDescription) {
         Optional<RPConfig> rpConfigOptional = Optional.empty();
         try {
             rpConfigOptional =
@@ -110,8 +179,8 @@ public class AuthCallbackHandler {
         }
 
         var model = new HashMap<String, Object>();
-        model.put("error", ctx.queryParam("error"));
-        model.put("error_description", ctx.queryParam("error_description"));
+        model.put("error", error);
+        model.put("error_description", errorDescription);
 
         rpConfigOptional.ifPresent(c -> model.put("client_name", c.serviceName()));
         ctx.render("/callback-error.mustache", model);
@@ -0,0 +1,66 @@
+package uk.gov.di.handlers;
+
+import uk.gov.di.utils.FormParameters;
+
+import java.util.ArrayList;
+import java.util.List;
+
+record AuthorizeForm(
+        String language,
+        String emailScope,
+        String phoneScope,
+        String walletSubjectIdScope,
+        String accountManagementScope,
+        String secondFactorAuthentication,
+        List<String> levelsOfConfidence,
+        String prompt,
+        String rpSid,
+        String reauthIdToken,
+        String maxAge,
+        String coreIdentityClaim,
+        String passportClaim,
+        String addressClaim,
+        String drivingPermitClaim,
+        String returnCodeClaim,
+        String inheritedIdentityClaim,
+        String vot,
+        boolean pkce,
+        String loginHint,
+        String channel,
+        boolean requestObject) {
+
+    private static final List<String> LEVEL_OF_CONFIDENCE_FIELDS =
+            List.of("loc-P0", "loc-P1", "loc-P2", "loc-P3");
+
+    static AuthorizeForm from(FormParameters form) {
+        var levelsOfConfidence = new ArrayList<String>(LEVEL_OF_CONFIDENCE_FIELDS.size());
+        for (var field : LEVEL_OF_CONFIDENCE_FIELDS) {
+            if (form.has(field)) {
+                levelsOfConfidence.add(form.first(field));
+            }
+        }
+        return new AuthorizeForm(
+                form.first("lng"),
+                form.first("scopes-email"),
+                form.first("scopes-phone"),
+                form.first("scopes-wallet-subject-id"),
+                form.first("scopes-account-management"),
+                form.first("2fa"),
+                levelsOfConfidence,
+                form.first("prompt"),
+                form.first("rp-sid"),
+                form.first("reauth-id-token"),
+                form.first("max-age"),
+                form.first("claims-core-identity"),
+                form.first("claims-passport"),
+                form.first("claims-address"),
+                form.first("claims-driving-permit"),
+                form.first("claims-return-code"),
+                form.first("claims-inherited-identity"),
+                form.first("vot"),
+                "yes".equals(form.first("pkce")),
+                form.first("login-hint"),
+                form.first("channel"),
+                "object".equals(form.first("request", "query")));
+    }
+}
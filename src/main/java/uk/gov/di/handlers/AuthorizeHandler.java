@@ -3,10 +3,10 @@ package uk.gov.di.handlers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
 import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.ECDSASigner;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.oauth2.sdk.Scope;
@@ -17,53 +17,44 @@ import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
 import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
 import io.javalin.http.Context;
 import io.javalin.http.Cookie;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.di.config.Configuration;
 import uk.gov.di.config.RPConfig;
+import uk.gov.di.utils.AuthorizeRequestOptions;
+import uk.gov.di.utils.FormDecoder;
+import uk.gov.di.utils.JourneyTiming;
 import uk.gov.di.utils.Oidc;
+import uk.gov.di.utils.OidcClientRegistry;
+import uk.gov.di.utils.SigningKeys;
 
 import java.net.URISyntaxException;
-import java.nio.charset.Charset;
-import java.security.KeyFactory;
-import java.security.NoSuchAlgorithmException;
-import java.security.interfaces.ECPrivateKey;
-import java.security.spec.EncodedKeySpec;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.PKCS8EncodedKeySpec;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class AuthorizeHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(AuthorizeHandler.class);
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String INHERITED_IDENTITY_CLAIM =
+            "https://vocab.account.gov.uk/v1/inheritedIdentityJWT";
 
     public void handle(Context ctx) {
         var relyingPartyConfig = Configuration.getRelyingPartyConfig(ctx.cookie("relyingParty"));
-        var oidcClient = new Oidc(relyingPartyConfig);
+        var oidcClient = OidcClientRegistry.getClient(relyingPartyConfig);
         try {
             List<String> scopes = new ArrayList<>();
             scopes.add("openid");
 
-            List<NameValuePair> pairs = URLEncodedUtils.parse(ctx.body(), Charset.defaultCharset());
+            var form = AuthorizeForm.from(FormDecoder.decode(ctx.bodyAsBytes()));
 
-            Map<String, String> formParameters =
-                    pairs.stream()
-                            .collect(
-                                    Collectors.toMap(
-                                            NameValuePair::getName, NameValuePair::getValue));
-
-            String language = formParameters.get("lng");
+            String language = form.language();
 
             if (relyingPartyConfig.clientType().equals("app")) {
                 LOG.info("Doc Checking App journey initialized");
@@ -75,161 +66,54 @@ public class AuthorizeHandler {
                                 Scope.parse(scopes),
                                 language,
                                 useAlternativeDomain);
+                startJourneyTimer(
+                        ctx,
+                        JourneyTiming.Options.of(
+                                relyingPartyConfig.clientId(),
+                                List.of(),
+                                List.of(),
+                                "doc_app",
+                                false,
+                                useAlternativeDomain));
                 LOG.info("Redirecting to OP");
                 ctx.redirect(opURL);
                 return;
             }
 
-            if (formParameters.containsKey("scopes-email")) {
-                LOG.info("Email scope requested");
-                scopes.add(formParameters.get("scopes-email"));
-            }
-
-            if (formParameters.containsKey("scopes-phone")) {
-                LOG.info("Phone scope requested");
-                scopes.add(formParameters.get("scopes-phone"));
-            }
-
-            if (formParameters.containsKey("scopes-wallet-subject-id")) {
-                LOG.info("Wallet Subject ID scope requested");
-                scopes.add(formParameters.get("scopes-wallet-subject-id"));
-            }
-
-            if (formParameters.containsKey("scopes-account-management")) {
-                LOG.info("Account Management scope requested");
-                scopes.add(formParameters.get("scopes-account-management"));
-            }
-
-            String secondFactorAuthentication = formParameters.get("2fa");
-
-            var prompt = formParameters.get("prompt");
-
-            String rpSid = formParameters.get("rp-sid");
+            addIfPresent(scopes, form.emailScope());
+            addIfPresent(scopes, form.phoneScope());
+            addIfPresent(scopes, form.walletSubjectIdScope());
+            addIfPresent(scopes, form.accountManagementScope());
 
-            String idToken = formParameters.get("reauth-id-token");
-
-            String maxAge = formParameters.get("max-age");
+            String secondFactorAuthentication = form.secondFactorAuthentication();
 
             List<String> vtr = new ArrayList<>();
 
-            if (formParameters.containsKey("loc-P0")) {
-                var vtrToAdd =
-                        "%s.%s".formatted(formParameters.get("loc-P0"), secondFactorAuthentication);
-                vtr.add(vtrToAdd);
-                LOG.info("VTR value selected: {}", vtrToAdd);
-            }
-
-            if (formParameters.containsKey("loc-P1")) {
-                var vtrToAdd =
-                        "%s.%s".formatted(formParameters.get("loc-P1"), secondFactorAuthentication);
-                vtr.add(vtrToAdd);
-                LOG.info("VTR value selected: {}", vtrToAdd);
-            }
-
-            if (formParameters.containsKey("loc-P2")) {
-                var vtrToAdd =
-                        "%s.%s".formatted(formParameters.get("loc-P2"), secondFactorAuthentication);
-                vtr.add(vtrToAdd);
-                LOG.info("VTR value selected: {}", vtrToAdd);
-            }
-
-            if (formParameters.containsKey("loc-P3")) {
-                var vtrToAdd =
-                        "%s.%s".formatted(formParameters.get("loc-P3"), secondFactorAuthentication);
-                vtr.add(vtrToAdd);
-                LOG.info("VTR value selected: {}", vtrToAdd);
+            for (var levelOfConfidence : form.levelsOfConfidence()) {
+                vtr.add("%s.%s".formatted(levelOfConfidence, secondFactorAuthentication));
             }
 
             if (vtr.isEmpty()) {
                 vtr.add(secondFactorAuthentication);
             }
 
-            var claimsSetRequest = new ClaimsSetRequest();
-
-            if (formParameters.containsKey("claims-core-identity")) {
-                LOG.info("Core Identity claim requested");
-                var identityEntry =
-                        new ClaimsSetRequest.Entry(formParameters.get("claims-core-identity"))
-                                .withClaimRequirement(ClaimRequirement.ESSENTIAL);
-                claimsSetRequest = claimsSetRequest.add(identityEntry);
-            }
-
-            if (formParameters.containsKey("claims-passport")) {
-                LOG.info("Passport claim requested");
-                var passportEntry =
-                        new ClaimsSetRequest.Entry(formParameters.get("claims-passport"))
-                                .withClaimRequirement(ClaimRequirement.ESSENTIAL);
-                claimsSetRequest = claimsSetRequest.add(passportEntry);
-            }
-
-            if (formParameters.containsKey("claims-address")) {
-                LOG.info("Address claim requested");
-                var addressEntry =
-                        new ClaimsSetRequest.Entry(formParameters.get("claims-address"))
-                                .withClaimRequirement(ClaimRequirement.ESSENTIAL);
-                claimsSetRequest = claimsSetRequest.add(addressEntry);
-            }
+            List<String> essentialClaims = new ArrayList<>();
+            addIfPresent(essentialClaims, form.coreIdentityClaim());
+            addIfPresent(essentialClaims, form.passportClaim());
+            addIfPresent(essentialClaims, form.addressClaim());
+            addIfPresent(essentialClaims, form.drivingPermitClaim());
+            addIfPresent(essentialClaims, form.returnCodeClaim());
 
-            if (formParameters.containsKey("claims-driving-permit")) {
-                LOG.info("Driving permit claim requested");
-                var drivingPermitEntry =
-                        new ClaimsSetRequest.Entry(formParameters.get("claims-driving-permit"))
-                                .withClaimRequirement(ClaimRequirement.ESSENTIAL);
-                claimsSetRequest = claimsSetRequest.add(drivingPermitEntry);
-            }
-
-            if (formParameters.containsKey("claims-return-code")) {
-                LOG.info("Return code claim requested");
-                var returnCodeEntry =
-                        new ClaimsSetRequest.Entry(formParameters.get("claims-return-code"))
-                                .withClaimRequirement(ClaimRequirement.ESSENTIAL);
-                claimsSetRequest = claimsSetRequest.add(returnCodeEntry);
-            }
-
-            if (formParameters.containsKey("claims-inherited-identity")) {
-                if (!formParameters.get("claims-inherited-identity").trim().isEmpty()) {
-                    LOG.info("Inherited Identity record claim requested");
-                    var inheritedIdentity =
-                            convertJsonToMap(
-                                    "{" + formParameters.get("claims-inherited-identity") + "}");
-
-                    JWTClaimsSet claims =
-                            new JWTClaimsSet.Builder()
-                                    .subject(
-                                            "urn:fdc:gov.uk:2022:-WaWGynBDXunAih77MAGjvYfJfcN9y_wzmuX4MT9MuA")
-                                    .audience(Configuration.getIpvEndpoint())
-                                    .issuer(Configuration.getInheritedIdentityJwtIssuer())
-                                    .notBeforeTime(new Date())
-                                    .claim("vot", formParameters.get("vot"))
-                                    .claim("vtm", Configuration.getInheritedIdentityJwtVtm())
-                                    .jwtID(
-                                            String.format(
-                                                    "%s:%s",
-                                                    "urn:uuid", UUID.randomUUID().toString()))
-                                    .claim("vc", inheritedIdentity)
-                                    .build();
-
-                    JWSSigner signer =
-                            new ECDSASigner(
-                                    getSigningKey(
-                                            relyingPartyConfig.inheritedIdentityJwtSigningKey()));
-                    SignedJWT signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
-                    signedJwt.sign(signer);
-
-                    var inheritedIdentityEntry =
-                            new ClaimsSetRequest.Entry(
-                                            "https://vocab.account.gov.uk/v1/inheritedIdentityJWT")
-                                    .withValues(List.of(signedJwt.serialize()));
-                    claimsSetRequest = claimsSetRequest.add(inheritedIdentityEntry);
-                } else {
-                    claimsSetRequest.delete("claims-inherited-identity");
-                }
-            }
+            LOG.info(
+                    "Scopes {}, essential claims {} and VTR {} requested",
+                    scopes,
+                    essentialClaims,
+                    vtr);
 
             CodeChallengeMethod codeChallengeMethod = null;
             CodeVerifier codeVerifier = null;
 
-            if (formParameters.containsKey("pkce") && formParameters.get("pkce").equals("yes")) {
+            if (form.pkce()) {
                 codeChallengeMethod = CodeChallengeMethod.S256;
                 codeVerifier = new CodeVerifier();
 
@@ -240,36 +124,85 @@ public class AuthorizeHandler {
 
             String loginHint = null;
 
-            if (formParameters.containsKey("login-hint")
-                    && "object".equals(formParameters.getOrDefault("request", "query"))) {
-                loginHint = formParameters.get("login-hint");
+            if (form.loginHint() != null && form.requestObject()) {
+                loginHint = form.loginHint();
             }
 
             String channel = null;
 
-            if (!Objects.equals(formParameters.get("channel"), "none")) {
-                channel = formParameters.get("channel");
+            if (!Objects.equals(form.channel(), "none")) {
+                channel = form.channel();
             }
             var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
+            var inheritedIdentityRequested =
+                    form.inheritedIdentityClaim() != null
+                            && !form.inheritedIdentityClaim().trim().isEmpty();
+            var requestedClaims = new ArrayList<>(essentialClaims);
+            if (inheritedIdentityRequested) {
+                requestedClaims.add(INHERITED_IDENTITY_CLAIM);
+            }
+            var journeyOptions =
+                    JourneyTiming.Options.of(
+                            relyingPartyConfig.clientId(),
+                            vtr,
+                            requestedClaims,
+                            form.requestObject() ? "jar" : "query",
+                            form.pkce(),
+                            useAlternativeDomain);
+
+            // The inherited identity claim carries a freshly signed JWT, so it can't be templated
+            if (!form.requestObject() && !inheritedIdentityRequested) {
+                LOG.info("Building authorize request with query params");
+                var opURL =
+                        oidcClient.buildCachedQueryParamAuthorizeRequest(
+                                new AuthorizeRequestOptions(
+                                        relyingPartyConfig.authCallbackUrl(),
+                                        vtr,
+                                        scopes,
+                                        essentialClaims,
+                                        language,
+                                        form.prompt(),
+                                        form.rpSid(),
+                                        form.maxAge(),
+                                        channel,
+                                        useAlternativeDomain),
+                                codeVerifier);
+                startJourneyTimer(ctx, journeyOptions);
+                LOG.info("Redirecting to OP");
+                ctx.redirect(opURL);
+                return;
+            }
+
+            var claimsSetRequest = new ClaimsSetRequest();
+            for (var claim : essentialClaims) {
+                claimsSetRequest =
+                        claimsSetRequest.add(
+                                new ClaimsSetRequest.Entry(claim)
+                                        .withClaimRequirement(ClaimRequirement.ESSENTIAL));
+            }
+
+            if (inheritedIdentityRequested) {
+                LOG.info("Inherited Identity record claim requested");
+                claimsSetRequest =
+                        claimsSetRequest.add(inheritedIdentityEntry(relyingPartyConfig, form));
+            }
+
             var authRequest =
                     buildAuthorizeRequest(
                             relyingPartyConfig,
                             oidcClient,
-                            formParameters,
+                            form,
                             vtr,
                             scopes,
                             claimsSetRequest,
                             language,
-                            prompt,
-                            rpSid,
-                            idToken,
-                            maxAge,
                             codeChallengeMethod,
                             codeVerifier,
                             loginHint,
                             channel,
                             useAlternativeDomain);
 
+            startJourneyTimer(ctx, journeyOptions);
             LOG.info("Redirecting to OP");
             ctx.redirect(authRequest.toURI().toString());
 
@@ -278,38 +211,69 @@ public class AuthorizeHandler {
         }
     }
 
+    private static void startJourneyTimer(Context ctx, JourneyTiming.Options options) {
+        ctx.cookie(
+                new Cookie(
+                        JourneyTiming.COOKIE,
+                        JourneyTiming.seal(options, Instant.now()),
+                        "/",
+                        3600,
+                        false,
+                        true));
+    }
+
+    private static void addIfPresent(List<String> values, String value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    private static ClaimsSetRequest.Entry inheritedIdentityEntry(
+            RPConfig relyingPartyConfig, AuthorizeForm form)
+            throws JsonProcessingException, JOSEException {
+        var inheritedIdentity = convertJsonToMap("{" + form.inheritedIdentityClaim() + "}");
+
+        JWTClaimsSet claims =
+                new JWTClaimsSet.Builder()
+                        .subject("urn:fdc:gov.uk:2022:-WaWGynBDXunAih77MAGjvYfJfcN9y_wzmuX4MT9MuA")
+                        .audience(Configuration.getIpvEndpoint())
+                        .issuer(Configuration.getInheritedIdentityJwtIssuer())
+                        .notBeforeTime(new Date())
+                        .claim("vot", form.vot())
+                        .claim("vtm", Configuration.getInheritedIdentityJwtVtm())
+                        .jwtID(String.format("%s:%s", "urn:uuid", UUID.randomUUID().toString()))
+                        .claim("vc", inheritedIdentity)
+                        .build();
+
+        JWSSigner signer =
+                SigningKeys.forRelyingParty(relyingPartyConfig).inheritedIdentitySigner();
+        SignedJWT signedJwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
+        signedJwt.sign(signer);
+
+        return new ClaimsSetRequest.Entry(INHERITED_IDENTITY_CLAIM)
+                .withValues(List.of(signedJwt.serialize()));
+    }
+
     private static Map<String, Object> convertJsonToMap(String json)
             throws JsonProcessingException {
         return objectMapper.readValue(json, new TypeReference<>() {});
     }
 
-    private static ECPrivateKey getSigningKey(String key)
-            throws InvalidKeySpecException, NoSuchAlgorithmException {
-        byte[] binaryKey = Base64.getDecoder().decode(key);
-        KeyFactory factory = KeyFactory.getInstance("EC");
-        EncodedKeySpec privateKeySpec = new PKCS8EncodedKeySpec(binaryKey);
-        return (ECPrivateKey) factory.generatePrivate(privateKeySpec);
-    }
-
     private AuthenticationRequest buildAuthorizeRequest(
             RPConfig relyingPartyConfig,
             Oidc oidcClient,
-            Map<String, String> formParameters,
+            AuthorizeForm form,
             List<String> vtr,
             List<String> scopes,
             ClaimsSetRequest claimsSetRequest,
             String language,
-            String prompt,
-            String rpSid,
-            String idToken,
-            String maxAge,
             CodeChallengeMethod codeChallengeMethod,
             CodeVerifier codeVerifier,
             String loginHint,
             String channel,
             boolean useAlternativeDomain)
             throws URISyntaxException {
-        if ("object".equals(formParameters.getOrDefault("request", "query"))) {
+        if (form.requestObject()) {
             LOG.info("Building authorize request with JAR");
             return oidcClient.buildJarAuthorizeRequest(
                     relyingPartyConfig.authCallbackUrl(),
@@ -317,10 +281,10 @@ public class AuthorizeHandler {
                     scopes,
                     claimsSetRequest,
                     language,
-                    prompt,
-                    rpSid,
-                    idToken,
-                    maxAge,
+                    form.prompt(),
+                    form.rpSid(),
+                    form.reauthIdToken(),
+                    form.maxAge(),
                     codeChallengeMethod,
                     codeVerifier,
                     loginHint,
@@ -334,9 +298,9 @@ public class AuthorizeHandler {
                     scopes,
                     claimsSetRequest,
                     language,
-                    prompt,
-                    rpSid,
-                    maxAge,
+                    form.prompt(),
+                    form.rpSid(),
+                    form.maxAge(),
                     codeChallengeMethod,
                     codeVerifier,
                     channel,
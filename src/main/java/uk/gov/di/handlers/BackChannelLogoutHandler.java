@@ -1,54 +1,73 @@
 package uk.gov.di.handlers;
 
 import com.nimbusds.jwt.SignedJWT;
-import com.nimbusds.openid.connect.sdk.claims.ClaimsSet;
 import io.javalin.http.Context;
-import org.apache.http.NameValuePair;
-import org.apache.http.client.utils.URLEncodedUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import uk.gov.di.config.Configuration;
-import uk.gov.di.utils.Oidc;
+import uk.gov.di.config.MissingConfigurationException;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.utils.FormDecoder;
+import uk.gov.di.utils.JourneyContext;
+import uk.gov.di.utils.LogoutEvents;
+import uk.gov.di.utils.LogoutEvents.Outcome;
+import uk.gov.di.utils.OidcClientRegistry;
+import uk.gov.di.utils.ReplayCache;
 
 import java.text.ParseException;
-
-import static java.nio.charset.Charset.defaultCharset;
-import static java.util.stream.Collectors.toMap;
+import java.time.Clock;
 
 public class BackChannelLogoutHandler {
 
-    private static final Logger LOG = LoggerFactory.getLogger(BackChannelLogoutHandler.class);
+    private final ReplayCache seenTokens =
+            new ReplayCache(
+                    Configuration.getLogoutReplayCacheSize(),
+                    Configuration.getLogoutReplayWindow(),
+                    Clock.systemUTC());
 
     public void handle(Context ctx) {
-        LOG.info("Request received in BackChannelLogoutHandler");
-        var relyingPartyConfig = Configuration.getRelyingPartyConfig(ctx.cookie("relyingParty"));
-        var oidcClient = new Oidc(relyingPartyConfig);
-        var payload =
-                URLEncodedUtils.parse(ctx.body(), defaultCharset()).stream()
-                        .collect(toMap(NameValuePair::getName, NameValuePair::getValue))
-                        .getOrDefault("logout_token", "");
-        var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
+        // The OP doesn't send browser cookies, so it should use the route with the client ID
+        var clientId =
+                ctx.pathParamMap().containsKey("clientId")
+                        ? ctx.pathParam("clientId")
+                        : ctx.cookie("relyingParty");
+        ctx.result("");
+        RPConfig relyingPartyConfig;
         try {
-            var jwt = SignedJWT.parse(payload);
-
-            oidcClient
-                    .validateLogoutToken(jwt, useAlternativeDomain)
-                    .map(ClaimsSet::toJSONString)
-                    .ifPresentOrElse(
-                            claims -> {
-                                LOG.info("Validated logout token. Claims: {}", claims);
-                                ctx.status(200);
-                            },
-                            () -> {
-                                LOG.error("Unable to validate logout token");
-                                ctx.status(400);
-                            });
+            relyingPartyConfig = Configuration.getRelyingPartyConfig(clientId);
+        } catch (MissingConfigurationException e) {
+            LogoutEvents.record(clientId, null, null, Outcome.UNKNOWN_CLIENT);
+            ctx.status(404);
+            return;
+        }
+        JourneyContext.putClientId(relyingPartyConfig.clientId());
+        var oidcClient = OidcClientRegistry.getClient(relyingPartyConfig);
+        var payload = LogoutTokenForm.from(FormDecoder.decode(ctx.bodyAsBytes())).logoutToken();
 
+        SignedJWT jwt;
+        try {
+            jwt = SignedJWT.parse(payload);
         } catch (ParseException e) {
-            LOG.info("Exception when parsing JWT", e);
-            ctx.status(500);
+            LogoutEvents.record(relyingPartyConfig.clientId(), null, null, Outcome.INVALID);
+            ctx.status(400);
+            return;
         }
 
-        ctx.result("");
+        var claims = oidcClient.validateLogoutToken(jwt);
+        if (claims.isEmpty()) {
+            LogoutEvents.record(relyingPartyConfig.clientId(), null, null, Outcome.INVALID);
+            ctx.status(400);
+            return;
+        }
+
+        var sid =
+                claims.get().getSessionID() == null ? null : claims.get().getSessionID().getValue();
+        var jti = claims.get().getJWTID().getValue();
+        JourneyContext.putSid(sid);
+        if (!seenTokens.firstUse(relyingPartyConfig.clientId() + " " + jti)) {
+            LogoutEvents.record(relyingPartyConfig.clientId(), sid, jti, Outcome.REPLAYED);
+            ctx.status(400);
+            return;
+        }
+        LogoutEvents.record(relyingPartyConfig.clientId(), sid, jti, Outcome.ACCEPTED);
+        ctx.status(200);
     }
 }
@@ -0,0 +1,45 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import uk.gov.di.config.ConfigurationChange;
+import uk.gov.di.config.RPConfig;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+public class ClientJwksHandler {
+    private final ConcurrentHashMap<String, JwkHandler> handlersByClientId =
+            new ConcurrentHashMap<>();
+
+    public ClientJwksHandler(Collection<RPConfig> relyingPartyConfigs) {
+        relyingPartyConfigs.forEach(this::install);
+    }
+
+    public void handle(Context ctx) {
+        var handler = handlersByClientId.get(ctx.pathParam("client_id"));
+        if (handler == null) {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+        handler.handle(ctx);
+    }
+
+    public void onConfigurationChange(ConfigurationChange change) {
+        // A changed client is replaced in place, so its JWKS never 404s while the OP fetches it
+        var changedClientIds =
+                change.changed().stream().map(RPConfig::clientId).collect(Collectors.toSet());
+        change.changed().forEach(this::install);
+        change.removed().stream()
+                .map(RPConfig::clientId)
+                .filter(clientId -> !changedClientIds.contains(clientId))
+                .forEach(handlersByClientId::remove);
+    }
+
+    private void install(RPConfig relyingPartyConfig) {
+        handlersByClientId.put(
+                relyingPartyConfig.clientId(),
+                new JwkHandler(relyingPartyConfig.jwksConfiguration()));
+    }
+}
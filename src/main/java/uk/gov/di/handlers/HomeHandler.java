@@ -12,6 +12,8 @@ public class HomeHandler {
 
     private static final Logger LOG = LoggerFactory.getLogger(HomeHandler.class);
 
+    private final PageCache pages = new PageCache();
+
     public void handle(Context ctx) {
         String relyingPartyString;
         if (ctx.queryParam("relyingParty") != null) {
@@ -22,17 +24,27 @@ public class HomeHandler {
         }
 
         var relyingPartyConfig = Configuration.getRelyingPartyConfig(relyingPartyString);
-        var model = new HashMap<String, Object>();
-        model.put("servicename", relyingPartyConfig.serviceName());
-        model.put("useAlternativeDomain", "true".equals(ctx.cookie("useAlternativeDomain")));
+        var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
         LOG.info(
                 "Rendering RP with serviceName: {} and clientType: {}",
                 relyingPartyConfig.serviceName(),
                 relyingPartyConfig.clientType());
-        if (relyingPartyConfig.clientType().equals("app")) {
-            ctx.render("/app-home.mustache", model);
-        } else {
-            ctx.render("/home.mustache", model);
-        }
+        var template =
+                relyingPartyConfig.clientType().equals("app")
+                        ? "/app-home.mustache"
+                        : "/home.mustache";
+        ctx.header("Cache-Control", "no-cache");
+        pages.get(
+                        Configuration.getInstance(),
+                        template,
+                        relyingPartyConfig.serviceName(),
+                        useAlternativeDomain,
+                        () -> {
+                            var model = new HashMap<String, Object>();
+                            model.put("servicename", relyingPartyConfig.serviceName());
+                            model.put("useAlternativeDomain", useAlternativeDomain);
+                            return model;
+                        })
+                .send(ctx);
     }
 }
@@ -0,0 +1,10 @@
+package uk.gov.di.handlers;
+
+import uk.gov.di.utils.FormParameters;
+
+record LogoutTokenForm(String logoutToken) {
+
+    static LogoutTokenForm from(FormParameters form) {
+        return new LogoutTokenForm(form.first("logout_token", ""));
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import uk.gov.di.config.Configuration;
+import uk.gov.di.config.MissingConfigurationException;
+import uk.gov.di.utils.Metrics;
+
+public class MetricsHandler {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String UNMATCHED_ROUTE = "unmatched";
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    public void handle(Context ctx) {
+        ctx.contentType(CONTENT_TYPE);
+        ctx.result(Metrics.scrape());
+    }
+
+    public static void recordRequest(Context ctx, Float executionTimeMs) {
+        var endpoint = ctx.endpoints().matchedHttpEndpoint();
+        var route = endpoint == null || endpoint.path == null ? UNMATCHED_ROUTE : endpoint.path;
+        Metrics.recordRequest(
+                ctx.method().name(),
+                route,
+                clientId(ctx.pathParamMap().getOrDefault("clientId", ctx.cookie("relyingParty"))),
+                "true".equals(ctx.cookie("useAlternativeDomain")),
+                (long) (executionTimeMs * 1_000_000));
+    }
+
+    // Only configured client IDs become label values, so arbitrary cookies can't grow the
+    // number of series
+    private static String clientId(String relyingParty) {
+        try {
+            return Configuration.getRelyingPartyConfig(relyingParty).clientId();
+        } catch (MissingConfigurationException e) {
+            return UNKNOWN_CLIENT;
+        }
+    }
+}
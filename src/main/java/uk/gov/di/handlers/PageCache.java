@@ -0,0 +1,61 @@
+package uk.gov.di.handlers;
+
+import com.github.mustachejava.DefaultMustacheFactory;
+import com.github.mustachejava.MustacheFactory;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.utils.PrerenderedResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Pages whose only inputs are the relying party configuration and the alternative domain flag,
+// rendered once per configuration snapshot
+class PageCache {
+    private static final int MAX_PAGES = 256;
+
+    private final MustacheFactory mustacheFactory = new DefaultMustacheFactory("templates");
+    private volatile Pages current = new Pages(null, new ConcurrentHashMap<>());
+
+    private record Pages(
+            Map<String, RPConfig> relyingParties,
+            ConcurrentHashMap<PageKey, PrerenderedResponse> rendered) {}
+
+    private record PageKey(String template, String serviceName, boolean useAlternativeDomain) {}
+
+    PrerenderedResponse get(
+            Map<String, RPConfig> relyingParties,
+            String template,
+            String serviceName,
+            boolean useAlternativeDomain,
+            Supplier<Map<String, Object>> model) {
+        var pages = current;
+        if (pages.relyingParties() != relyingParties) {
+            pages = new Pages(relyingParties, new ConcurrentHashMap<>());
+            current = pages;
+        }
+        var key = new PageKey(template, serviceName, useAlternativeDomain);
+        var page = pages.rendered().get(key);
+        if (page != null) {
+            return page;
+        }
+        if (pages.rendered().size() >= MAX_PAGES) {
+            pages.rendered().clear();
+        }
+        return pages.rendered().computeIfAbsent(key, k -> render(template, model.get()));
+    }
+
+    private PrerenderedResponse render(String template, Map<String, Object> model) {
+        var html = new ByteArrayOutputStream();
+        try (var writer = new OutputStreamWriter(html, StandardCharsets.UTF_8)) {
+            mustacheFactory.compile(template).execute(writer, model);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new PrerenderedResponse("text/html; charset=utf-8", html.toByteArray());
+    }
+}
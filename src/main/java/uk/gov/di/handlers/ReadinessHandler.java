@@ -0,0 +1,22 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import uk.gov.di.utils.WarmUp;
+
+public class ReadinessHandler {
+    private final WarmUp warmUp;
+
+    public ReadinessHandler(WarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public void handle(Context ctx) {
+        ctx.header("Cache-Control", "no-store");
+        if (warmUp.isComplete()) {
+            ctx.result("ready");
+        } else {
+            ctx.status(HttpStatus.SERVICE_UNAVAILABLE).result("warming up");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package uk.gov.di.handlers;
+
+import uk.gov.di.utils.FormParameters;
+
+record RelyingPartyForm(String relyingParty, boolean useAlternativeDomain) {
+
+    static RelyingPartyForm from(FormParameters form) {
+        return new RelyingPartyForm(
+                form.first("relying-party"), "on".equals(form.first("use-alternative-domain")));
+    }
+}
@@ -6,10 +6,23 @@ import uk.gov.di.config.Configuration;
 import java.util.HashMap;
 
 public class RelyingPartyGetHandler {
+    private final PageCache pages = new PageCache();
+
     public void handle(Context ctx) {
-        var model = new HashMap<String, Object>();
-        model.put("relyingParties", Configuration.getInstance().values().stream().toList());
-        model.put("useAlternativeDomain", "true".equals(ctx.cookie("useAlternativeDomain")));
-        ctx.render("/relying-parties.mustache", model);
+        var relyingParties = Configuration.getInstance();
+        var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
+        ctx.header("Cache-Control", "no-cache");
+        pages.get(
+                        relyingParties,
+                        "/relying-parties.mustache",
+                        null,
+                        useAlternativeDomain,
+                        () -> {
+                            var model = new HashMap<String, Object>();
+                            model.put("relyingParties", relyingParties.values().stream().toList());
+                            model.put("useAlternativeDomain", useAlternativeDomain);
+                            return model;
+                        })
+                .send(ctx);
     }
 }
@@ -4,7 +4,7 @@ import io.javalin.http.Context;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.gov.di.config.Configuration;
-import uk.gov.di.utils.Oidc;
+import uk.gov.di.utils.OidcClientRegistry;
 
 import java.util.UUID;
 
@@ -15,7 +15,7 @@ public class SignOutHandler {
     public void handle(Context ctx) throws Exception {
         LOG.info("Generating log out request");
         var relyingPartyConfig = Configuration.getRelyingPartyConfig(ctx.cookie("relyingParty"));
-        var oidcClient = new Oidc(relyingPartyConfig);
+        var oidcClient = OidcClientRegistry.getClient(relyingPartyConfig);
         var useAlternativeDomain = "true".equals(ctx.cookie("useAlternativeDomain"));
 
         var logoutUri =
@@ -0,0 +1,105 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.utils.PrerenderedResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class StaticAssetHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StaticAssetHandler.class);
+
+    private static final String MANIFEST = "/asset-manifest.properties";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final Map<String, String> CONTENT_TYPES =
+            Map.of(
+                    "css", "text/css; charset=utf-8",
+                    "js", "text/javascript; charset=utf-8",
+                    "json", "application/json",
+                    "txt", "text/plain; charset=utf-8",
+                    "svg", "image/svg+xml",
+                    "png", "image/png",
+                    "ico", "image/x-icon",
+                    "woff", "font/woff",
+                    "woff2", "font/woff2");
+
+    private record Asset(PrerenderedResponse response, String cacheControl) {}
+
+    private final Map<String, Asset> assets;
+
+    private StaticAssetHandler(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    // Reads every asset named in the manifest written by the fingerprintAssets build step
+    public static StaticAssetHandler load() {
+        var manifest = new Properties();
+        try (var in = StaticAssetHandler.class.getResourceAsStream(MANIFEST)) {
+            if (in == null) {
+                LOG.warn("No asset manifest on the classpath, static assets will not be served");
+                return new StaticAssetHandler(Map.of());
+            }
+            manifest.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        var assets = new HashMap<String, Asset>();
+        for (var original : manifest.stringPropertyNames()) {
+            var hashed = manifest.getProperty(original);
+            var response =
+                    new PrerenderedResponse(
+                            contentType(original),
+                            read("/public" + hashed),
+                            readIfPresent("/public" + hashed + ".gz"));
+            assets.put(hashed, new Asset(response, IMMUTABLE));
+            assets.put(original, new Asset(response, "no-cache"));
+        }
+        LOG.info("Loaded {} static assets", manifest.size());
+        return new StaticAssetHandler(Map.copyOf(assets));
+    }
+
+    public boolean isEmpty() {
+        return assets.isEmpty();
+    }
+
+    public void handle(Context ctx) {
+        var asset = assets.get(ctx.path());
+        if (asset == null) {
+            ctx.status(HttpStatus.NOT_FOUND);
+            return;
+        }
+        ctx.header("Cache-Control", asset.cacheControl());
+        asset.response().send(ctx);
+    }
+
+    private static String contentType(String path) {
+        var extension = path.substring(path.lastIndexOf('.') + 1);
+        return CONTENT_TYPES.getOrDefault(extension, "application/octet-stream");
+    }
+
+    private static byte[] read(String resource) {
+        var content = readIfPresent(resource);
+        if (content == null) {
+            throw new RuntimeException("Asset " + resource + " is in the manifest but missing");
+        }
+        return content;
+    }
+
+    private static byte[] readIfPresent(String resource) {
+        try (InputStream in = StaticAssetHandler.class.getResourceAsStream(resource)) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package uk.gov.di.loadtest;
+
+import com.nimbusds.oauth2.sdk.pkce.CodeChallengeMethod;
+import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
+import com.nimbusds.openid.connect.sdk.Nonce;
+import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
+import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URIBuilder;
+import uk.gov.di.config.Configuration;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.loadtest.ScenarioResults.Stage;
+import uk.gov.di.utils.AuthorizeRequestOptions;
+import uk.gov.di.utils.BackgroundExecutors;
+import uk.gov.di.utils.CallbackPipeline;
+import uk.gov.di.utils.CoreIdentityValidator;
+import uk.gov.di.utils.HttpTransport;
+import uk.gov.di.utils.JourneyStore;
+import uk.gov.di.utils.Oidc;
+import uk.gov.di.utils.OidcClientRegistry;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+
+// Runs whole journeys for one scenario the way a browser and the callback handler would, with
+// the OP expected to approve the authorize request straight away
+class JourneyDriver {
+
+    private static final ExecutorService executor =
+            BackgroundExecutors.newRequestPool("load-test-callback");
+
+    private final Scenario scenario;
+    private final Oidc oidcClient;
+    private final CallbackPipeline callback;
+    private final String callbackUrl;
+    private final ScenarioResults results;
+
+    JourneyDriver(
+            Scenario scenario,
+            Oidc oidcClient,
+            CallbackPipeline callback,
+            String callbackUrl,
+            ScenarioResults results) {
+        this.scenario = scenario;
+        this.oidcClient = oidcClient;
+        this.callback = callback;
+        this.callbackUrl = callbackUrl;
+        this.results = results;
+    }
+
+    static JourneyDriver forScenario(Scenario scenario, ScenarioResults results) {
+        var relyingPartyConfig = Configuration.getRelyingPartyConfig(scenario.clientId());
+        Oidc oidcClient;
+        if (scenario.opBaseUrl() == null) {
+            oidcClient = OidcClientRegistry.getClient(relyingPartyConfig);
+        } else {
+            relyingPartyConfig = relyingPartyConfig.withOpBaseUrl(scenario.opBaseUrl());
+            oidcClient = new Oidc(relyingPartyConfig);
+        }
+        return new JourneyDriver(
+                scenario,
+                oidcClient,
+                callbackPipeline(relyingPartyConfig, oidcClient),
+                relyingPartyConfig.authCallbackUrl(),
+                results);
+    }
+
+    static CallbackPipeline callbackPipeline(RPConfig relyingPartyConfig, Oidc oidcClient) {
+        return new CallbackPipeline(
+                executor,
+                oidcClient,
+                CoreIdentityValidator.forRelyingParty(relyingPartyConfig),
+                relyingPartyConfig.clientId());
+    }
+
+    // Journey time runs from when the journey should have started, so a slow OP that delays
+    // arrivals shows up in the latencies rather than hiding as lower throughput
+    void run(long intendedStartNanos) {
+        var stage = Stage.AUTHORIZE;
+        try {
+            var codeVerifier = scenario.pkce() ? new CodeVerifier() : null;
+            var start = System.nanoTime();
+            var callbackParameters = authorize(codeVerifier);
+            var journey =
+                    JourneyStore.getInstance()
+                            .take(callbackParameters.get("state"))
+                            .orElseThrow(
+                                    () -> new IllegalStateException("Unknown state in callback"));
+            recordSince(stage, start);
+
+            stage = Stage.TOKEN_REQUEST;
+            var result =
+                    callback.run(
+                                    callbackParameters.get("code"),
+                                    callbackUrl,
+                                    journey.codeVerifier(),
+                                    new Nonce(journey.nonce()),
+                                    scenario.useAlternativeDomain())
+                            .join();
+            result.stageNanos()
+                    .forEach(
+                            (callbackStage, nanos) ->
+                                    results.record(stageOf(callbackStage), nanos));
+            if (result.coreIdentityResult() == CoreIdentityValidator.Result.INVALID) {
+                stage = Stage.CORE_IDENTITY_VALIDATION;
+                throw new IllegalStateException("Core identity signature is invalid");
+            }
+
+            results.record(Stage.JOURNEY, System.nanoTime() - intendedStartNanos);
+            results.completed();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof CallbackPipeline.StageFailedException failed) {
+                results.failed(stageOf(failed.stage()), failed);
+            } else {
+                results.failed(stage, e.getCause() instanceof Exception cause ? cause : e);
+            }
+        } catch (Exception e) {
+            results.failed(stage, e);
+        }
+    }
+
+    private Map<String, String> authorize(CodeVerifier codeVerifier) throws Exception {
+        var response =
+                HttpTransport.getInstance()
+                        .send(
+                                HttpRequest.newBuilder(URI.create(authorizeUrl(codeVerifier))),
+                                HttpResponse.BodyHandlers.discarding());
+        var location = response.headers().firstValue("Location");
+        if (response.statusCode() / 100 != 3 || location.isEmpty()) {
+            throw new IllegalStateException(
+                    "Authorize returned HTTP %d without a redirect"
+                            .formatted(response.statusCode()));
+        }
+        var parameters =
+                new URIBuilder(location.get())
+                        .getQueryParams().stream()
+                                .collect(
+                                        Collectors.toMap(
+                                                NameValuePair::getName,
+                                                NameValuePair::getValue,
+                                                (first, second) -> first));
+        if (parameters.containsKey("error")) {
+            throw new IllegalStateException("Authorize returned " + parameters.get("error"));
+        }
+        return parameters;
+    }
+
+    private String authorizeUrl(CodeVerifier codeVerifier) throws Exception {
+        if (!scenario.requestObject()) {
+            return oidcClient.buildCachedQueryParamAuthorizeRequest(
+                    new AuthorizeRequestOptions(
+                            callbackUrl,
+                            scenario.vtr(),
+                            scenario.scopes(),
+                            scenario.claims(),
+                            "",
+                            "none",
+                            null,
+                            null,
+                            null,
+                            scenario.useAlternativeDomain()),
+                    codeVerifier);
+        }
+        var claimsSetRequest = new ClaimsSetRequest();
+        for (var claim : scenario.claims()) {
+            claimsSetRequest =
+                    claimsSetRequest.add(
+                            new ClaimsSetRequest.Entry(claim)
+                                    .withClaimRequirement(ClaimRequirement.ESSENTIAL));
+        }
+        return oidcClient
+                .buildJarAuthorizeRequest(
+                        callbackUrl,
+                        scenario.vtr(),
+                        scenario.scopes(),
+                        claimsSetRequest,
+                        "",
+                        "none",
+                        null,
+                        null,
+                        null,
+                        codeVerifier == null ? null : CodeChallengeMethod.S256,
+                        codeVerifier,
+                        null,
+                        null,
+                        scenario.useAlternativeDomain())
+                .toURI()
+                .toString();
+    }
+
+    private void recordSince(Stage stage, long startNanos) {
+        results.record(stage, System.nanoTime() - startNanos);
+    }
+
+    private static Stage stageOf(CallbackPipeline.Stage stage) {
+        return switch (stage) {
+            case TOKEN_REQUEST -> Stage.TOKEN_REQUEST;
+            case ID_TOKEN_VALIDATION -> Stage.ID_TOKEN_VALIDATION;
+            case USERINFO_REQUEST -> Stage.USERINFO_REQUEST;
+            case CORE_IDENTITY_VALIDATION -> Stage.CORE_IDENTITY_VALIDATION;
+        };
+    }
+}
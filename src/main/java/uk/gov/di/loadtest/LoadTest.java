@@ -0,0 +1,138 @@
+package uk.gov.di.loadtest;
+
+import uk.gov.di.config.Configuration;
+import uk.gov.di.utils.BackgroundExecutors;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs each scenario in a JSONL file against its OP in turn and prints latency percentiles per
+ * stage, throughput and errors. Run with {@code ./gradlew run --args="load-test
+ * scenarios.jsonl"}.
+ */
+public class LoadTest {
+
+    private final ExecutorService executor = BackgroundExecutors.newRequestPool("load-test");
+    private final int maxInFlight = Configuration.getLoadTestMaxInFlight();
+    private final Duration drainTimeout = Configuration.getLoadTestDrainTimeout();
+    private final PrintStream out;
+
+    private LoadTest(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void run(Path scenarioFile, PrintStream out) throws IOException {
+        var scenarios = Scenario.read(scenarioFile);
+        var loadTest = new LoadTest(out);
+        try {
+            for (var scenario : scenarios) {
+                loadTest.run(scenario);
+            }
+        } finally {
+            loadTest.executor.shutdownNow();
+        }
+    }
+
+    private void run(Scenario scenario) {
+        var results = new ScenarioResults();
+        var driver = JourneyDriver.forScenario(scenario, results);
+        var inFlight = new Semaphore(maxInFlight);
+        out.printf(
+                "%s: %s for %ds%n",
+                scenario.name(),
+                scenario.openLoop()
+                        ? scenario.rate() + " journeys/s"
+                        : scenario.concurrency() + " concurrent journeys",
+                scenario.durationSeconds());
+
+        var start = System.nanoTime();
+        var end = start + scenario.duration().toNanos();
+        if (scenario.openLoop()) {
+            arriveAtRate(driver, scenario.rate(), start, end, inFlight, results);
+        } else {
+            startClients(driver, scenario.concurrency(), end, inFlight);
+        }
+        if (!drain(inFlight)) {
+            out.printf(
+                    "%s: journeys still running after %ds were left behind%n",
+                    scenario.name(), drainTimeout.toSeconds());
+        }
+        out.print(results.report(scenario, Duration.ofNanos(System.nanoTime() - start)));
+        out.flush();
+    }
+
+    // Open loop: arrivals follow the schedule whatever the OP's latency, as real users would
+    private void arriveAtRate(
+            JourneyDriver driver,
+            double rate,
+            long start,
+            long end,
+            Semaphore inFlight,
+            ScenarioResults results) {
+        var intervalNanos = (long) (1_000_000_000L / rate);
+        for (long next = start; next < end; next += intervalNanos) {
+            waitUntil(next);
+            if (!inFlight.tryAcquire()) {
+                results.notStarted();
+                continue;
+            }
+            var intendedStart = next;
+            executor.execute(
+                    () -> {
+                        try {
+                            driver.run(intendedStart);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+    }
+
+    // Closed loop: each client starts its next journey as soon as the last one finishes
+    private void startClients(
+            JourneyDriver driver, int concurrency, long end, Semaphore inFlight) {
+        for (int i = 0; i < concurrency; i++) {
+            if (!inFlight.tryAcquire()) {
+                break;
+            }
+            executor.execute(
+                    () -> {
+                        try {
+                            while (System.nanoTime() < end) {
+                                driver.run(System.nanoTime());
+                            }
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+        waitUntil(end);
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private boolean drain(Semaphore inFlight) {
+        try {
+            if (inFlight.tryAcquire(maxInFlight, drainTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                inFlight.release(maxInFlight);
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
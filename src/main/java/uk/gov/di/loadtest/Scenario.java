@@ -0,0 +1,82 @@
+package uk.gov.di.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a load test file. Journeys arrive at {@code rate} per second regardless of how
+ * the OP is coping, or {@code concurrency} clients each start a new journey as soon as their last
+ * one finishes.
+ */
+record Scenario(
+        String name,
+        String clientId,
+        String opBaseUrl,
+        List<String> scopes,
+        List<String> claims,
+        List<String> vtr,
+        boolean requestObject,
+        boolean pkce,
+        boolean useAlternativeDomain,
+        Double rate,
+        Integer concurrency,
+        Integer durationSeconds) {
+
+    private static final ObjectMapper objectMapper =
+            new ObjectMapper().setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+
+    Scenario {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if ((rate == null) == (concurrency == null)) {
+            throw new IllegalArgumentException("exactly one of rate and concurrency is required");
+        }
+        if (rate != null && !(rate > 0)) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (concurrency != null && concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be positive");
+        }
+        scopes = scopes == null ? List.of("openid") : List.copyOf(scopes);
+        claims = claims == null ? List.of() : List.copyOf(claims);
+        vtr = vtr == null ? List.of("Cl.Cm") : List.copyOf(vtr);
+        durationSeconds = durationSeconds == null ? 60 : durationSeconds;
+    }
+
+    Duration duration() {
+        return Duration.ofSeconds(durationSeconds);
+    }
+
+    boolean openLoop() {
+        return rate != null;
+    }
+
+    static List<Scenario> read(Path path) throws IOException {
+        var scenarios = new ArrayList<Scenario>();
+        var lines = Files.readAllLines(path);
+        for (int i = 0; i < lines.size(); i++) {
+            var line = lines.get(i);
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                scenarios.add(objectMapper.readValue(line, Scenario.class));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(
+                        "Invalid scenario on line %d of %s: %s"
+                                .formatted(i + 1, path, e.getOriginalMessage()),
+                        e);
+            }
+        }
+        return scenarios;
+    }
+}
@@ -0,0 +1,130 @@
+package uk.gov.di.loadtest;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+class ScenarioResults {
+
+    enum Stage {
+        AUTHORIZE,
+        TOKEN_REQUEST,
+        ID_TOKEN_VALIDATION,
+        USERINFO_REQUEST,
+        CORE_IDENTITY_VALIDATION,
+        JOURNEY;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    // Error messages can carry identifiers, so past this they're counted together
+    private static final int MAX_ERROR_KINDS = 20;
+    private static final int MAX_ERROR_LENGTH = 120;
+    private static final String OTHER_ERRORS = "other";
+
+    private final Map<Stage, LatencyRecorder> latencies = new EnumMap<>(Stage.class);
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder notStarted = new LongAdder();
+
+    ScenarioResults() {
+        for (var stage : Stage.values()) {
+            latencies.put(stage, new LatencyRecorder());
+        }
+    }
+
+    void record(Stage stage, long nanos) {
+        latencies.get(stage).record(nanos);
+    }
+
+    void completed() {
+        completed.increment();
+    }
+
+    void failed(Stage stage, Exception e) {
+        failed.increment();
+        var message = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH) + "...";
+        }
+        var kind = stage.label() + ": " + message.replace('\n', ' ');
+        if (!errors.containsKey(kind) && errors.size() >= MAX_ERROR_KINDS) {
+            kind = stage.label() + ": " + OTHER_ERRORS;
+        }
+        errors.computeIfAbsent(kind, k -> new LongAdder()).increment();
+    }
+
+    // An open loop arrival that couldn't start because too many journeys were already running
+    void notStarted() {
+        notStarted.increment();
+    }
+
+    long completedCount() {
+        return completed.sum();
+    }
+
+    long failedCount() {
+        return failed.sum();
+    }
+
+    long notStartedCount() {
+        return notStarted.sum();
+    }
+
+    LatencyRecorder latency(Stage stage) {
+        return latencies.get(stage);
+    }
+
+    String report(Scenario scenario, Duration elapsed) {
+        var seconds = elapsed.toNanos() / 1e9;
+        var output = new StringBuilder();
+        output.append(
+                "%s: %d completed in %.1fs (%.1f/s), %d failed, %d not started%n"
+                        .formatted(
+                                scenario.name(),
+                                completedCount(),
+                                seconds,
+                                completedCount() / seconds,
+                                failedCount(),
+                                notStartedCount()));
+        output.append(
+                "  %-26s %9s %10s %10s %10s %10s %10s%n"
+                        .formatted("stage", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (var stage : Stage.values()) {
+            var latency = latencies.get(stage);
+            if (latency.count() == 0) {
+                continue;
+            }
+            output.append(
+                    "  %-26s %9d %10.1f %10.1f %10.1f %10.1f %10.1f%n"
+                            .formatted(
+                                    stage.label(),
+                                    latency.count(),
+                                    millis(latency.valueAtQuantile(0.5)),
+                                    millis(latency.valueAtQuantile(0.9)),
+                                    millis(latency.valueAtQuantile(0.99)),
+                                    millis(latency.valueAtQuantile(0.999)),
+                                    millis(latency.maxMicros())));
+        }
+        if (!errors.isEmpty()) {
+            output.append("  errors:%n".formatted());
+            new TreeMap<>(errors)
+                    .forEach(
+                            (kind, count) ->
+                                    output.append(
+                                            "  %9d  %s%n".formatted(count.sum(), kind)));
+        }
+        return output.toString();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
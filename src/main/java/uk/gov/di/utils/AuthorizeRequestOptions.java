@@ -0,0 +1,25 @@
+package uk.gov.di.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public record AuthorizeRequestOptions(
+        String callbackUrl,
+        List<String> vtr,
+        List<String> scopes,
+        List<String> essentialClaims,
+        String language,
+        String prompt,
+        String rpSid,
+        String maxAge,
+        String channel,
+        boolean useAlternativeDomain) {
+
+    // Copied because these are cache keys; vtr may hold a null second factor, so not List.copyOf
+    public AuthorizeRequestOptions {
+        vtr = Collections.unmodifiableList(new ArrayList<>(vtr));
+        scopes = Collections.unmodifiableList(new ArrayList<>(scopes));
+        essentialClaims = Collections.unmodifiableList(new ArrayList<>(essentialClaims));
+    }
+}
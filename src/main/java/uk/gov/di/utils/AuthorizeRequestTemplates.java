@@ -0,0 +1,42 @@
+package uk.gov.di.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+class AuthorizeRequestTemplates {
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+
+    private final int maxSize;
+    private final ConcurrentHashMap<AuthorizeRequestOptions, String> templates =
+            new ConcurrentHashMap<>();
+
+    AuthorizeRequestTemplates(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public record Stats(long hits, long misses, long evictions) {}
+
+    static Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    String get(AuthorizeRequestOptions options, Function<AuthorizeRequestOptions, String> render) {
+        var template = templates.get(options);
+        if (template != null) {
+            hits.increment();
+            return template;
+        }
+        misses.increment();
+        if (templates.size() >= maxSize) {
+            evictions.add(templates.size());
+            templates.clear();
+        }
+        template = render.apply(options);
+        var existing = templates.putIfAbsent(options, template);
+        return existing == null ? template : existing;
+    }
+}
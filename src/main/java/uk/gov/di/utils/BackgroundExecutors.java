@@ -0,0 +1,39 @@
+package uk.gov.di.utils;
+
+import io.javalin.util.ConcurrencyUtil;
+import uk.gov.di.config.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+public class BackgroundExecutors {
+    private BackgroundExecutors() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static ExecutorService newCachedPool(String threadName) {
+        return Executors.newCachedThreadPool(
+                runnable -> {
+                    var thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static ScheduledExecutorService newScheduledThread(String threadName) {
+        return Executors.newSingleThreadScheduledExecutor(
+                runnable -> {
+                    var thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public static ExecutorService newRequestPool(String threadName) {
+        if (Configuration.getExecutionMode().usesVirtualThreads()) {
+            return ConcurrencyUtil.executorService(threadName, true);
+        }
+        return newCachedPool(threadName);
+    }
+}
@@ -0,0 +1,63 @@
+package uk.gov.di.utils;
+
+import java.time.Duration;
+import java.util.Locale;
+
+public record CacheControl(
+        boolean noStore,
+        boolean noCache,
+        Duration maxAge,
+        Duration staleWhileRevalidate,
+        Duration staleIfError) {
+
+    public static final CacheControl NONE =
+            new CacheControl(false, false, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+
+    public static CacheControl parse(String header) {
+        if (header == null || header.isBlank()) {
+            return NONE;
+        }
+        var noStore = false;
+        var noCache = false;
+        var maxAge = Duration.ZERO;
+        var staleWhileRevalidate = Duration.ZERO;
+        var staleIfError = Duration.ZERO;
+
+        for (var directive : header.split(",")) {
+            var parts = directive.trim().split("=", 2);
+            var name = parts[0].trim().toLowerCase(Locale.ROOT);
+            var value = parts.length > 1 ? parts[1].trim().replace("\"", "") : null;
+            switch (name) {
+                case "no-store" -> noStore = true;
+                case "no-cache" -> noCache = true;
+                case "max-age" -> maxAge = seconds(value);
+                case "stale-while-revalidate" -> staleWhileRevalidate = seconds(value);
+                case "stale-if-error" -> staleIfError = seconds(value);
+                default -> {
+                    // Other directives don't affect a private client cache
+                }
+            }
+        }
+        return new CacheControl(noStore, noCache, maxAge, staleWhileRevalidate, staleIfError);
+    }
+
+    public Duration freshFor() {
+        return noStore || noCache ? Duration.ZERO : maxAge;
+    }
+
+    public Duration staleWhileRevalidateFor() {
+        return noStore ? Duration.ZERO : staleWhileRevalidate;
+    }
+
+    public Duration staleIfErrorFor() {
+        return noStore ? Duration.ZERO : staleIfError;
+    }
+
+    private static Duration seconds(String value) {
+        try {
+            return value == null ? Duration.ZERO : Duration.ofSeconds(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return Duration.ZERO;
+        }
+    }
+}
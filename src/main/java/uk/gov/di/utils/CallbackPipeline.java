@@ -0,0 +1,194 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.openid.connect.sdk.Nonce;
+import com.nimbusds.openid.connect.sdk.token.OIDCTokens;
+import uk.gov.di.config.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+// What the callback does once the OP has redirected back with a code. The callback handler and
+// the load test both run it, so load test latencies are those of the stub's own callback
+public class CallbackPipeline {
+
+    private static final String CORE_IDENTITY_CLAIM =
+            "https://vocab.account.gov.uk/v1/coreIdentityJWT";
+
+    public enum Stage {
+        TOKEN_REQUEST("Token request"),
+        ID_TOKEN_VALIDATION("ID token validation"),
+        USERINFO_REQUEST("Userinfo request"),
+        CORE_IDENTITY_VALIDATION("Core identity validation");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+    }
+
+    // Stage durations are how long each stage's own work took, and only stages that ran appear
+    public record Result(
+            OIDCTokens tokens,
+            UserInfoClaims userInfo,
+            CoreIdentityValidator.Result coreIdentityResult,
+            Map<Stage, Long> stageNanos) {}
+
+    public static class StageFailedException extends RuntimeException {
+        private final Stage stage;
+
+        StageFailedException(Stage stage, Throwable cause) {
+            super(cause.getMessage(), cause);
+            this.stage = stage;
+        }
+
+        public Stage stage() {
+            return stage;
+        }
+    }
+
+    private record Identity(
+            UserInfoClaims userInfo, CoreIdentityValidator.Result coreIdentityResult) {}
+
+    private final ExecutorService executor;
+    private final Oidc oidcClient;
+    private final CoreIdentityValidator validator;
+    private final Metrics.StageTimers timers;
+
+    public CallbackPipeline(
+            ExecutorService executor,
+            Oidc oidcClient,
+            CoreIdentityValidator validator,
+            String clientId) {
+        this.executor = executor;
+        this.oidcClient = oidcClient;
+        this.validator = validator;
+        this.timers = Metrics.stageTimers(clientId);
+    }
+
+    // A failure completes the result with a StageFailedException naming the first stage that
+    // failed, rather than one cancelled because of it
+    public CompletableFuture<Result> run(
+            String code,
+            String callbackUrl,
+            String codeVerifier,
+            Nonce expectedNonce,
+            boolean useAlternativeDomain) {
+        var run = new Run(new StageGroup(executor), useAlternativeDomain);
+        return run.stage(
+                        Stage.TOKEN_REQUEST,
+                        Configuration.getCallbackTokenTimeout(),
+                        () ->
+                                oidcClient.makeTokenRequest(
+                                        code, callbackUrl, codeVerifier, useAlternativeDomain))
+                .thenCompose(tokens -> run.fetchUserInfo(tokens, expectedNonce))
+                .exceptionallyCompose(run::failed);
+    }
+
+    private final class Run {
+        private final StageGroup stages;
+        private final boolean useAlternativeDomain;
+        private final Map<Stage, Long> stageNanos = new ConcurrentHashMap<>();
+        private final AtomicReference<Stage> failedStage = new AtomicReference<>();
+
+        private Run(StageGroup stages, boolean useAlternativeDomain) {
+            this.stages = stages;
+            this.useAlternativeDomain = useAlternativeDomain;
+        }
+
+        // Once the tokens are back, ID token validation, the userinfo request and the DID
+        // key fetch are independent, so they run side by side
+        private CompletableFuture<Result> fetchUserInfo(OIDCTokens tokens, Nonce expectedNonce) {
+            var didPrefetch =
+                    stages.runOptional(
+                            "DID key prefetch",
+                            Configuration.getCallbackCoreIdentityTimeout(),
+                            validator::prefetch);
+            var idTokenValidation =
+                    stage(
+                            Stage.ID_TOKEN_VALIDATION,
+                            Configuration.getCallbackIdTokenTimeout(),
+                            () -> {
+                                oidcClient.validateIdToken(
+                                        tokens.getIDToken(), expectedNonce, useAlternativeDomain);
+                                return tokens;
+                            });
+            var userInfoRequest =
+                    stage(
+                            Stage.USERINFO_REQUEST,
+                            Configuration.getCallbackUserInfoTimeout(),
+                            () ->
+                                    oidcClient.makeUserInfoRequest(
+                                            tokens.getAccessToken(), useAlternativeDomain));
+            return idTokenValidation
+                    .thenCombine(userInfoRequest, (validated, userInfo) -> userInfo)
+                    .thenCompose(userInfo -> validateCoreIdentity(didPrefetch, userInfo))
+                    .thenApply(
+                            identity ->
+                                    new Result(
+                                            tokens,
+                                            identity.userInfo(),
+                                            identity.coreIdentityResult(),
+                                            Map.copyOf(stageNanos)));
+        }
+
+        private CompletableFuture<Identity> validateCoreIdentity(
+                CompletableFuture<Void> didPrefetch, UserInfoClaims userInfo) {
+            var coreIdentityJWT = userInfo.stringClaim(CORE_IDENTITY_CLAIM);
+            if (coreIdentityJWT == null) {
+                return CompletableFuture.completedFuture(new Identity(userInfo, null));
+            }
+            var coreIdentityTimer =
+                    timers.get(Metrics.Stage.CORE_IDENTITY_VALIDATION, useAlternativeDomain);
+            return didPrefetch.thenCompose(
+                    prefetched ->
+                            stage(
+                                    Stage.CORE_IDENTITY_VALIDATION,
+                                    Configuration.getCallbackCoreIdentityTimeout(),
+                                    () ->
+                                            new Identity(
+                                                    userInfo,
+                                                    validator.isValid(
+                                                            coreIdentityJWT, coreIdentityTimer))));
+        }
+
+        private <T> CompletableFuture<T> stage(Stage stage, Duration timeout, Callable<T> task) {
+            return stages.run(
+                            stage.description,
+                            timeout,
+                            () -> {
+                                var start = System.nanoTime();
+                                var result = task.call();
+                                stageNanos.put(stage, System.nanoTime() - start);
+                                return result;
+                            })
+                    .whenComplete(
+                            (result, error) -> {
+                                if (error != null
+                                        && !(unwrap(error) instanceof CancellationException)) {
+                                    failedStage.compareAndSet(null, stage);
+                                }
+                            });
+        }
+
+        private CompletableFuture<Result> failed(Throwable error) {
+            var cause = unwrap(error);
+            var stage = failedStage.get();
+            return CompletableFuture.failedFuture(
+                    stage == null ? cause : new StageFailedException(stage, cause));
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.auth.PrivateKeyJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public class ClientAssertionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClientAssertionPool.class);
+
+    private static final int MIN_SIZE = 2;
+    private static final Duration REFILL_HORIZON = Duration.ofSeconds(10);
+    private static final Duration RATE_WINDOW = Duration.ofSeconds(1);
+    private static final Executor refillExecutor =
+            BackgroundExecutors.newCachedPool("client-assertion-refill");
+
+    private final Function<Instant, PrivateKeyJWT> signer;
+    private final int maxSize;
+    private final Duration safetyMargin;
+    private final Clock clock;
+    private final Executor executor;
+    private final ConcurrentLinkedQueue<PooledAssertion> assertions = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final LongAdder taken = new LongAdder();
+    private volatile double takenPerSecond;
+    private volatile Instant rateWindowStart;
+
+    private record PooledAssertion(PrivateKeyJWT assertion, Instant discardAfter) {}
+
+    public static ClientAssertionPool create(Function<Instant, PrivateKeyJWT> signer) {
+        return new ClientAssertionPool(
+                signer,
+                Configuration.getClientAssertionPoolSize(),
+                Configuration.getClientAssertionSafetyMargin(),
+                Clock.systemUTC(),
+                refillExecutor);
+    }
+
+    ClientAssertionPool(
+            Function<Instant, PrivateKeyJWT> signer,
+            int maxSize,
+            Duration safetyMargin,
+            Clock clock,
+            Executor executor) {
+        this.signer = signer;
+        this.maxSize = maxSize;
+        this.safetyMargin = safetyMargin;
+        this.clock = clock;
+        this.executor = executor;
+        this.rateWindowStart = Instant.now(clock);
+    }
+
+    public void prime() {
+        refillInBackground();
+    }
+
+    // Empty means the caller should sign inline; an empty pool never blocks a request
+    public Optional<PrivateKeyJWT> take() {
+        taken.increment();
+        var now = Instant.now(clock);
+        PooledAssertion pooled;
+        while ((pooled = assertions.poll()) != null) {
+            size.decrementAndGet();
+            if (now.isBefore(pooled.discardAfter())) {
+                refillInBackground();
+                return Optional.of(pooled.assertion());
+            }
+        }
+        refillInBackground();
+        return Optional.empty();
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    private void refillInBackground() {
+        if (size.get() >= target() || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(
+                () -> {
+                    try {
+                        refill();
+                    } catch (RuntimeException e) {
+                        LOG.warn("Unable to pre-sign client assertions", e);
+                    } finally {
+                        refilling.set(false);
+                    }
+                });
+    }
+
+    private void refill() {
+        updateRate(Instant.now(clock));
+        var target = target();
+        while (size.get() < target) {
+            var assertion = signer.apply(Instant.now(clock));
+            var expiry = assertion.getJWTAuthenticationClaimsSet().getExpirationTime().toInstant();
+            assertions.add(new PooledAssertion(assertion, expiry.minus(safetyMargin)));
+            size.incrementAndGet();
+        }
+    }
+
+    // Hold enough assertions to cover the recent rate of token requests for REFILL_HORIZON,
+    // smoothing the rate so one burst doesn't fill the pool with assertions that expire unused
+    private void updateRate(Instant now) {
+        var elapsed = Duration.between(rateWindowStart, now);
+        if (elapsed.compareTo(RATE_WINDOW) < 0) {
+            return;
+        }
+        var observed = taken.sumThenReset() * 1000.0 / elapsed.toMillis();
+        takenPerSecond = (takenPerSecond + observed) / 2;
+        rateWindowStart = now;
+    }
+
+    private int target() {
+        var wanted = (int) Math.ceil(takenPerSecond * REFILL_HORIZON.toSeconds());
+        return Math.min(Math.max(wanted, MIN_SIZE), maxSize);
+    }
+}
@@ -7,6 +7,8 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jwt.SignedJWT;
 import foundation.identity.did.DIDDocument;
 import foundation.identity.did.VerificationMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import uk.gov.di.config.RPConfig;
 
 import java.io.IOException;
@@ -15,20 +17,36 @@ import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.text.ParseException;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import static java.net.http.HttpClient.newHttpClient;
 import static java.net.http.HttpResponse.BodyHandlers.ofString;
 
 public class CoreIdentityValidator {
 
+    private static final Logger LOG = LoggerFactory.getLogger(CoreIdentityValidator.class);
+
+    private static final Duration UNKNOWN_KID_TTL = Duration.ofSeconds(30);
+    private static final int MAX_UNKNOWN_KIDS = 1000;
+    private static final Executor refreshExecutor =
+            BackgroundExecutors.newCachedPool("did-refresh");
+    private static final ConcurrentHashMap<String, CoreIdentityValidator> validatorsByDidUrl =
+            new ConcurrentHashMap<>();
+    private static final CoreIdentityValidator noopValidator = new NoopCoreIdentityValidator();
+
     private final URI didKeyUri;
-    private final HashMap<String, ECKeyWithExpiry> keyCache = new HashMap<>();
+    private final Histogram fetchTimer;
     private final Clock clock;
+    private final HttpTransport httpTransport;
+    private final Executor executor;
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ConcurrentHashMap<String, Instant> unknownKids = new ConcurrentHashMap<>();
+    private volatile DidSnapshot snapshot;
 
     public enum Result {
         VALID,
@@ -36,22 +54,58 @@ public class CoreIdentityValidator {
         NOT_VALIDATED
     }
 
+    public static CoreIdentityValidator forRelyingParty(RPConfig relyingPartyConfig) {
+        return Optional.ofNullable(relyingPartyConfig.identitySigningKeyUrl())
+                .map(
+                        didKeyUrl ->
+                                validatorsByDidUrl.computeIfAbsent(
+                                        didKeyUrl,
+                                        url ->
+                                                new CoreIdentityValidator(
+                                                        url,
+                                                        Clock.systemUTC(),
+                                                        HttpTransport.getInstance(),
+                                                        refreshExecutor)))
+                .orElse(noopValidator);
+    }
+
     public static CoreIdentityValidator createValidator(RPConfig relyingPartyConfig) {
         return createValidator(relyingPartyConfig, Clock.systemUTC());
     }
 
     public static CoreIdentityValidator createValidator(RPConfig relyingPartyConfig, Clock clock) {
+        return createValidator(relyingPartyConfig, clock, HttpTransport.getInstance());
+    }
+
+    static CoreIdentityValidator createValidator(
+            RPConfig relyingPartyConfig, Clock clock, HttpTransport httpTransport) {
+        return createValidator(relyingPartyConfig, clock, httpTransport, refreshExecutor);
+    }
+
+    static CoreIdentityValidator createValidator(
+            RPConfig relyingPartyConfig,
+            Clock clock,
+            HttpTransport httpTransport,
+            Executor executor) {
         return Optional.ofNullable(relyingPartyConfig.identitySigningKeyUrl())
-                .map(didKeyUrl -> new CoreIdentityValidator(didKeyUrl, clock))
+                .map(
+                        didKeyUrl ->
+                                new CoreIdentityValidator(
+                                        didKeyUrl, clock, httpTransport, executor))
                 .orElseGet(NoopCoreIdentityValidator::new);
     }
 
-    private CoreIdentityValidator(String didKeyUrl, Clock clock) {
+    private CoreIdentityValidator(
+            String didKeyUrl, Clock clock, HttpTransport httpTransport, Executor executor) {
         this.clock = clock;
+        this.httpTransport = httpTransport;
+        this.executor = executor;
         if (didKeyUrl != null) {
             this.didKeyUri = URI.create(didKeyUrl);
+            this.fetchTimer = Metrics.keyFetchTimer(didKeyUrl);
         } else {
             this.didKeyUri = null;
+            this.fetchTimer = null;
         }
     }
 
@@ -59,15 +113,21 @@ public class CoreIdentityValidator {
         try {
             var signedJWT = SignedJWT.parse(jwt);
             var kid = getKeyID(signedJWT);
-            var key = getKeyById(kid);
-            return SignedJWT.parse(jwt).verify(new ECDSAVerifier(key))
-                    ? Result.VALID
-                    : Result.INVALID;
+            return signedJWT.verify(getVerifier(kid)) ? Result.VALID : Result.INVALID;
         } catch (JOSEException | ParseException e) {
             throw new RuntimeException(e);
         }
     }
 
+    public Result isValid(String jwt, Histogram timer) {
+        var start = System.nanoTime();
+        try {
+            return isValid(jwt);
+        } finally {
+            timer.recordSince(start);
+        }
+    }
+
     private static String getKeyID(SignedJWT signedJWT) {
         var kid = signedJWT.getHeader().getKeyID();
         if (kid == null) {
@@ -76,36 +136,113 @@ public class CoreIdentityValidator {
         return kid;
     }
 
-    private ECKey getKeyById(String kid) {
-        var keyFromCache = keyCache.get(kid);
-        if (keyFromCache != null && keyFromCache.expiry.isAfter(Instant.now(clock))) {
-            return keyFromCache.key;
+    public void prefetch() {
+        currentSnapshot(Instant.now(clock));
+    }
+
+    private DidSnapshot currentSnapshot(Instant now) {
+        var current = snapshot;
+        if (current == null || !now.isBefore(current.staleUntil())) {
+            return refresh(current);
+        }
+        if (!now.isBefore(current.expiry())) {
+            refreshInBackground(current);
+        }
+        return current;
+    }
+
+    private ECDSAVerifier getVerifier(String kid) {
+        var now = Instant.now(clock);
+        var seen = snapshot;
+        var current = currentSnapshot(now);
+        var fetched = current != seen;
+
+        var verifier = verifierFor(current, kid);
+        if (verifier != null) {
+            return verifier;
         }
 
-        var refreshedKey = fetchKeyFromDid(kid);
-        keyCache.put(kid, refreshedKey);
-        return refreshedKey.key;
+        // A kid we haven't seen may mean the keys have been rotated, so look once
+        // more unless we've just fetched or recently failed to find it
+        var unknownUntil = unknownKids.get(kid);
+        if (!fetched && (unknownUntil == null || !now.isBefore(unknownUntil))) {
+            verifier = verifierFor(refresh(current), kid);
+            if (verifier != null) {
+                return verifier;
+            }
+        }
+        rememberUnknownKid(kid, now);
+        throw new RuntimeException("No key found in DID with ID " + kid);
     }
 
-    private ECKeyWithExpiry fetchKeyFromDid(String kid) {
-        var kidParts = kid.split("#");
-        var controller = kidParts[0];
-        var didResponseWithLifetime = fetchDidDocument();
-        var did = DIDDocument.fromJson(didResponseWithLifetime.did);
-        var verificationMethod = getVerificationMethod(did, kid);
-        verifyController(controller, verificationMethod);
-        var ecKey = getEcKeyFromVerificationMethod(verificationMethod);
-        return new ECKeyWithExpiry(ecKey, didResponseWithLifetime.expiry);
+    private void rememberUnknownKid(String kid, Instant now) {
+        if (unknownKids.size() >= MAX_UNKNOWN_KIDS) {
+            unknownKids.clear();
+        }
+        unknownKids.put(kid, now.plus(UNKNOWN_KID_TTL));
     }
 
-    private static VerificationMethod getVerificationMethod(DIDDocument did, String keyId) {
-        var verificationMethodMaybe =
-                did.getAssertionMethodVerificationMethodsInline().stream()
-                        .filter(key -> keyId.equals(key.getId().toString()))
-                        .findFirst();
+    private DidSnapshot refresh(DidSnapshot seen) {
+        synchronized (refreshLock) {
+            var current = snapshot;
+            if (current != seen) {
+                return current;
+            }
+            try {
+                var refreshed = fetchDidDocument();
+                snapshot = refreshed;
+                return refreshed;
+            } catch (RuntimeException e) {
+                if (seen != null && Instant.now(clock).isBefore(seen.staleIfErrorUntil())) {
+                    LOG.warn("Unable to refresh DID from {}, using stale keys", didKeyUri, e);
+                    return seen;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void refreshInBackground(DidSnapshot seen) {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(
+                () -> {
+                    try {
+                        refresh(seen);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Background refresh of DID from {} failed", didKeyUri, e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+    }
+
+    private ECDSAVerifier verifierFor(DidSnapshot didSnapshot, String kid) {
+        return didSnapshot
+                .verifiers()
+                .computeIfAbsent(kid, id -> createVerifier(didSnapshot.did(), id));
+    }
+
+    private ECDSAVerifier createVerifier(DIDDocument did, String kid) {
+        var verificationMethod = getVerificationMethod(did, kid);
+        if (verificationMethod.isEmpty()) {
+            return null;
+        }
+        var controller = kid.split("#")[0];
+        verifyController(controller, verificationMethod.get());
+        try {
+            return new ECDSAVerifier(getEcKeyFromVerificationMethod(verificationMethod.get()));
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-        return verificationMethodMaybe.orElseThrow(
-                () -> new RuntimeException("No key found in DID with ID " + keyId));
+    private static Optional<VerificationMethod> getVerificationMethod(
+            DIDDocument did, String keyId) {
+        return did.getAssertionMethodVerificationMethodsInline().stream()
+                .filter(key -> keyId.equals(key.getId().toString()))
+                .findFirst();
     }
 
     private void verifyController(String controller, VerificationMethod verificationMethod) {
@@ -136,10 +273,15 @@ public class CoreIdentityValidator {
         }
     }
 
-    private DidResponseWithExpiry fetchDidDocument() {
+    private DidSnapshot fetchDidDocument() {
         try {
-            HttpRequest request = HttpRequest.newBuilder(didKeyUri).build();
-            var response = newHttpClient().send(request, ofString());
+            var start = System.nanoTime();
+            HttpResponse<String> response;
+            try {
+                response = httpTransport.send(HttpRequest.newBuilder(didKeyUri), ofString());
+            } finally {
+                fetchTimer.recordSince(start);
+            }
             if (response.statusCode() != 200) {
                 throw new RuntimeException(
                         "DID document could not be fetched. Status code: "
@@ -147,43 +289,41 @@ public class CoreIdentityValidator {
                                 + " - "
                                 + response.body());
             }
-            var expiry = calculateExpiry(response);
-            return new DidResponseWithExpiry(response.body(), expiry);
+            var cacheControl = cacheControl(response);
+            var expiry = Instant.now(clock).plus(cacheControl.freshFor());
+            return new DidSnapshot(
+                    DIDDocument.fromJson(response.body()),
+                    expiry,
+                    expiry.plus(cacheControl.staleWhileRevalidateFor()),
+                    expiry.plus(cacheControl.staleIfErrorFor()),
+                    new ConcurrentHashMap<>());
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException(e);
         }
     }
 
-    private Instant calculateExpiry(HttpResponse<String> response) {
-        Integer responseLifetime =
-                Optional.ofNullable(response.headers())
-                        .flatMap(httpHeaders -> httpHeaders.firstValue("cache-control"))
-                        .map(CoreIdentityValidator::lifetimeFromCacheControlHeader)
-                        .orElse(0);
-        return Instant.now(clock).plus(responseLifetime, ChronoUnit.SECONDS);
+    private static CacheControl cacheControl(HttpResponse<String> response) {
+        return Optional.ofNullable(response.headers())
+                .flatMap(httpHeaders -> httpHeaders.firstValue("cache-control"))
+                .map(CacheControl::parse)
+                .orElse(CacheControl.NONE);
     }
 
-    private static Integer lifetimeFromCacheControlHeader(String header) {
-        // This is a very simplistic parser that doesn't honour freshness or other expiry
-        var matcher = Pattern.compile("max-age=(\\d+)", Pattern.CASE_INSENSITIVE).matcher(header);
-        if (matcher.find()) {
-            return Integer.parseInt(matcher.group(1));
-        }
-        return 0;
-    }
-
-    private record DidResponseWithExpiry(String did, Instant expiry) {}
-
-    private record ECKeyWithExpiry(ECKey key, Instant expiry) {}
+    private record DidSnapshot(
+            DIDDocument did,
+            Instant expiry,
+            Instant staleUntil,
+            Instant staleIfErrorUntil,
+            ConcurrentHashMap<String, ECDSAVerifier> verifiers) {}
 
     static class NoopCoreIdentityValidator extends CoreIdentityValidator {
         private NoopCoreIdentityValidator() {
-            super(null, null);
+            super(null, null, null, null);
         }
 
+        @Override
+        public void prefetch() {}
+
         @Override
         public Result isValid(String jwt) {
             return Result.NOT_VALIDATED;
@@ -0,0 +1,85 @@
+package uk.gov.di.utils;
+
+import io.javalin.http.ContentTooLargeResponse;
+import uk.gov.di.config.Configuration;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class FormDecoder {
+
+    private static final int MAX_BODY_BYTES = Configuration.getFormMaxBytes();
+
+    private FormDecoder() {}
+
+    public static FormParameters decode(byte[] body) {
+        return decode(body, MAX_BODY_BYTES);
+    }
+
+    public static FormParameters decode(byte[] body, int maxBytes) {
+        if (body.length > maxBytes) {
+            throw new ContentTooLargeResponse(
+                    "Form body of " + body.length + " bytes exceeds " + maxBytes);
+        }
+        var values = new HashMap<String, List<String>>();
+        // Decoded bytes are never longer than the encoded ones, so one buffer serves every field
+        var buffer = new byte[body.length];
+        var start = 0;
+        while (start < body.length) {
+            var end = indexOf(body, (byte) '&', start, body.length);
+            var equals = indexOf(body, (byte) '=', start, end);
+            if (end > start) {
+                var name = decode(body, start, equals, buffer);
+                var value = equals < end ? decode(body, equals + 1, end, buffer) : "";
+                values.computeIfAbsent(name, key -> new ArrayList<>(1)).add(value);
+            }
+            start = end + 1;
+        }
+        return new FormParameters(values);
+    }
+
+    private static int indexOf(byte[] body, byte target, int from, int to) {
+        for (var i = from; i < to; i++) {
+            if (body[i] == target) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static String decode(byte[] body, int from, int to, byte[] buffer) {
+        var length = 0;
+        for (var i = from; i < to; i++) {
+            var b = body[i];
+            if (b == '+') {
+                buffer[length++] = ' ';
+            } else if (b == '%' && isEscape(body, i, to)) {
+                buffer[length++] = (byte) (hex(body[i + 1]) << 4 | hex(body[i + 2]));
+                i += 2;
+            } else {
+                buffer[length++] = b;
+            }
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Malformed escapes are kept as they are rather than rejecting the whole form
+    private static boolean isEscape(byte[] body, int percent, int to) {
+        return percent + 2 < to && hex(body[percent + 1]) >= 0 && hex(body[percent + 2]) >= 0;
+    }
+
+    private static int hex(byte b) {
+        if (b >= '0' && b <= '9') {
+            return b - '0';
+        }
+        if (b >= 'a' && b <= 'f') {
+            return b - 'a' + 10;
+        }
+        if (b >= 'A' && b <= 'F') {
+            return b - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.di.utils;
+
+import java.util.List;
+import java.util.Map;
+
+public class FormParameters {
+    private final Map<String, List<String>> values;
+
+    FormParameters(Map<String, List<String>> values) {
+        this.values = values;
+    }
+
+    public String first(String name) {
+        var all = values.get(name);
+        return all == null ? null : all.get(0);
+    }
+
+    public String first(String name, String defaultValue) {
+        var value = first(name);
+        return value == null ? defaultValue : value;
+    }
+
+    public List<String> all(String name) {
+        return values.getOrDefault(name, List.of());
+    }
+
+    public boolean has(String name) {
+        return values.containsKey(name);
+    }
+}
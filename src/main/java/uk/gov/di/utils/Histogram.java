@@ -0,0 +1,87 @@
+package uk.gov.di.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+    // Upper bounds in seconds, chosen for calls that take from a few milliseconds to tens of
+    // seconds
+    static final double[] BUCKET_BOUNDS = {
+        0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+
+    // For whole journeys, which include the user's time at the OP
+    static final double[] JOURNEY_BUCKET_BOUNDS = {
+        1, 2.5, 5, 10, 20, 30, 60, 120, 300, 600, 1800, 3600
+    };
+
+    private final double[] bounds;
+    private final long[] boundsNanos;
+    private final LongAdder[] buckets;
+    private final LongAdder sumNanos = new LongAdder();
+
+    Histogram() {
+        this(BUCKET_BOUNDS);
+    }
+
+    Histogram(double[] bounds) {
+        this.bounds = bounds;
+        this.boundsNanos = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundsNanos[i] = (long) (bounds[i] * 1_000_000_000L);
+        }
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public void record(long nanos) {
+        var bucket = 0;
+        while (bucket < boundsNanos.length && nanos > boundsNanos[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        sumNanos.add(nanos);
+    }
+
+    Snapshot snapshot() {
+        var cumulativeCounts = new long[buckets.length];
+        var count = 0L;
+        for (int i = 0; i < buckets.length; i++) {
+            count += buckets[i].sum();
+            cumulativeCounts[i] = count;
+        }
+        return new Snapshot(bounds, cumulativeCounts, sumNanos.sum() / 1_000_000_000.0);
+    }
+
+    record Snapshot(double[] bounds, long[] cumulativeCounts, double sumSeconds) {
+        long count() {
+            return cumulativeCounts[cumulativeCounts.length - 1];
+        }
+
+        // Observations since an earlier snapshot of the same histogram
+        Snapshot minus(Snapshot earlier) {
+            var counts = new long[cumulativeCounts.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = cumulativeCounts[i] - earlier.cumulativeCounts[i];
+            }
+            return new Snapshot(bounds, counts, sumSeconds - earlier.sumSeconds);
+        }
+
+        // Upper bound of the bucket holding the given quantile, or infinity past the last bound
+        double quantileBound(double quantile) {
+            var rank = Math.ceil(quantile * count());
+            for (int i = 0; i < bounds.length; i++) {
+                if (cumulativeCounts[i] >= rank) {
+                    return bounds[i];
+                }
+            }
+            return Double.POSITIVE_INFINITY;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.di.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HistogramFamily {
+
+    private final String name;
+    private final String help;
+    private final double[] bounds;
+    private final List<String> labelNames;
+    private final Map<List<String>, Histogram> histograms = new ConcurrentHashMap<>();
+
+    HistogramFamily(String name, String help, String... labelNames) {
+        this(name, help, Histogram.BUCKET_BOUNDS, labelNames);
+    }
+
+    HistogramFamily(String name, String help, double[] bounds, String... labelNames) {
+        this.name = name;
+        this.help = help;
+        this.bounds = bounds;
+        this.labelNames = List.of(labelNames);
+    }
+
+    // Resolving labels allocates, so callers on the request path look histograms up once and
+    // keep them
+    public Histogram labels(String... labelValues) {
+        if (labelValues.length != labelNames.size()) {
+            throw new IllegalArgumentException(
+                    "Expected labels " + labelNames + " for metric " + name);
+        }
+        return histograms.computeIfAbsent(List.of(labelValues), values -> new Histogram(bounds));
+    }
+
+    void writeTo(StringBuilder output) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        output.append("# TYPE ").append(name).append(" histogram\n");
+        histograms.forEach(
+                (labelValues, histogram) -> {
+                    var snapshot = histogram.snapshot();
+                    var labels = formatLabels(labelValues);
+                    var counts = snapshot.cumulativeCounts();
+                    for (int i = 0; i < counts.length; i++) {
+                        var bound = i < bounds.length ? Double.toString(bounds[i]) : "+Inf";
+                        output.append(name)
+                                .append("_bucket{")
+                                .append(labels)
+                                .append(labels.isEmpty() ? "" : ",")
+                                .append("le=\"")
+                                .append(bound)
+                                .append("\"} ")
+                                .append(counts[i])
+                                .append('\n');
+                    }
+                    output.append(name)
+                            .append("_sum{")
+                            .append(labels)
+                            .append("} ")
+                            .append(snapshot.sumSeconds())
+                            .append('\n');
+                    output.append(name)
+                            .append("_count{")
+                            .append(labels)
+                            .append("} ")
+                            .append(snapshot.count())
+                            .append('\n');
+                });
+    }
+
+    private String formatLabels(List<String> labelValues) {
+        var labels = new StringBuilder();
+        for (int i = 0; i < labelNames.size(); i++) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(labelNames.get(i))
+                    .append("=\"")
+                    .append(escape(labelValues.get(i)))
+                    .append('"');
+        }
+        return labels.toString();
+    }
+
+    static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
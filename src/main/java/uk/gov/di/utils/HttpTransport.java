@@ -0,0 +1,274 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.util.Resource;
+import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.oauth2.sdk.http.HTTPRequestSender;
+import com.nimbusds.oauth2.sdk.http.HTTPResponse;
+import com.nimbusds.oauth2.sdk.http.ReadOnlyHTTPRequest;
+import com.nimbusds.oauth2.sdk.http.ReadOnlyHTTPResponse;
+import uk.gov.di.config.Configuration;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+
+public class HttpTransport implements HTTPRequestSender {
+
+    private static final Set<String> RESTRICTED_HEADERS =
+            Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    private static final HttpTransport instance = create();
+
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+    private final LongAdder newTlsConnections;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder timeToFirstByteNanos = new LongAdder();
+    private final LongAccumulator maxTimeToFirstByteNanos = new LongAccumulator(Math::max, 0);
+    private final Histogram timeToFirstByte = Metrics.timeToFirstByteTimer();
+
+    public record Stats(
+            long requests,
+            long newTlsConnections,
+            double connectionReuseRatio,
+            double meanTimeToFirstByteMillis,
+            double maxTimeToFirstByteMillis) {}
+
+    HttpTransport(HttpClient httpClient, Duration readTimeout) {
+        this(httpClient, readTimeout, new LongAdder());
+    }
+
+    private HttpTransport(
+            HttpClient httpClient, Duration readTimeout, LongAdder newTlsConnections) {
+        this.httpClient = httpClient;
+        this.readTimeout = readTimeout;
+        this.newTlsConnections = newTlsConnections;
+    }
+
+    private static HttpTransport create() {
+        var newTlsConnections = new LongAdder();
+        var httpClient =
+                HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_2)
+                        .connectTimeout(Configuration.getHttpConnectTimeout())
+                        .followRedirects(HttpClient.Redirect.NEVER)
+                        .sslContext(countingSslContext(newTlsConnections))
+                        .build();
+        return new HttpTransport(httpClient, Configuration.getHttpReadTimeout(), newTlsConnections);
+    }
+
+    public static HttpTransport getInstance() {
+        return instance;
+    }
+
+    public <T> HttpResponse<T> send(
+            HttpRequest.Builder requestBuilder, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        var request = requestBuilder.timeout(readTimeout).build();
+        return send(request, bodyHandler);
+    }
+
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        requests.increment();
+        var startNanos = System.nanoTime();
+        try {
+            return httpClient.send(
+                    request,
+                    responseInfo -> {
+                        recordTimeToFirstByte(System.nanoTime() - startNanos);
+                        return bodyHandler.apply(responseInfo);
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for " + request.uri(), e);
+        }
+    }
+
+    @Override
+    public ReadOnlyHTTPResponse send(ReadOnlyHTTPRequest httpRequest) throws IOException {
+        var requestBuilder =
+                HttpRequest.newBuilder(httpRequest.getURI())
+                        .timeout(timeoutOrDefault(httpRequest.getReadTimeout()));
+        httpRequest
+                .getHeaderMap()
+                .forEach(
+                        (name, values) -> {
+                            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                                values.forEach(value -> requestBuilder.header(name, value));
+                            }
+                        });
+        var body = httpRequest.getBody();
+        requestBuilder.method(
+                httpRequest.getMethod().name(),
+                body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+
+        var response = send(requestBuilder.build(), ofString(StandardCharsets.UTF_8));
+        var httpResponse = new HTTPResponse(response.statusCode());
+        response.headers()
+                .map()
+                .forEach(
+                        (name, values) -> {
+                            if (!name.startsWith(":")) {
+                                httpResponse.setHeader(name, values.toArray(String[]::new));
+                            }
+                        });
+        httpResponse.setBody(response.body());
+        return httpResponse;
+    }
+
+    public ResourceRetriever resourceRetriever(Duration timeout, int sizeLimit) {
+        return url -> retrieveResource(url, timeout, sizeLimit);
+    }
+
+    public Stats stats() {
+        var requestCount = requests.sum();
+        var tlsConnections = newTlsConnections.sum();
+        var responseCount = responses.sum();
+        return new Stats(
+                requestCount,
+                tlsConnections,
+                requestCount == 0 ? 0 : 1 - Math.min(1.0, (double) tlsConnections / requestCount),
+                responseCount == 0 ? 0 : timeToFirstByteNanos.sum() / 1_000_000.0 / responseCount,
+                maxTimeToFirstByteNanos.get() / 1_000_000.0);
+    }
+
+    private Resource retrieveResource(URL url, Duration timeout, int sizeLimit) throws IOException {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(url.toURI()).timeout(timeout).GET().build();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+        var response = send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() > 299 || response.statusCode() < 200) {
+            throw new IOException(
+                    "HTTP " + response.statusCode() + ": Unexpected response from " + url);
+        }
+        if (response.body().length > sizeLimit) {
+            throw new IOException("Exceeded configured input limit of " + sizeLimit + " bytes");
+        }
+        return new Resource(
+                new String(response.body(), StandardCharsets.UTF_8),
+                response.headers().firstValue("content-type").orElse(null));
+    }
+
+    private Duration timeoutOrDefault(int timeoutMillis) {
+        return timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : readTimeout;
+    }
+
+    // Only requests that got as far as response headers have a time to first byte, so the mean
+    // is over those rather than every request sent
+    private void recordTimeToFirstByte(long nanos) {
+        responses.increment();
+        timeToFirstByteNanos.add(nanos);
+        maxTimeToFirstByteNanos.accumulate(nanos);
+        timeToFirstByte.record(nanos);
+    }
+
+    private static SSLContext countingSslContext(LongAdder newTlsConnections) {
+        try {
+            var delegate = SSLContext.getInstance("TLS");
+            delegate.init(null, null, null);
+            return new CountingSslContext(delegate, newTlsConnections);
+        } catch (NoSuchAlgorithmException | KeyManagementException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static final class CountingSslContext extends SSLContext {
+        private CountingSslContext(SSLContext delegate, LongAdder newTlsConnections) {
+            super(
+                    new CountingSslContextSpi(delegate, newTlsConnections),
+                    delegate.getProvider(),
+                    "TLS");
+        }
+    }
+
+    // The client asks for a new engine for every TLS connection it opens, and
+    // reuses pooled connections without one, so this counts fresh handshakes.
+    private static final class CountingSslContextSpi extends SSLContextSpi {
+        private final SSLContext delegate;
+        private final LongAdder newTlsConnections;
+
+        private CountingSslContextSpi(SSLContext delegate, LongAdder newTlsConnections) {
+            this.delegate = delegate;
+            this.newTlsConnections = newTlsConnections;
+        }
+
+        @Override
+        protected void engineInit(
+                KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom secureRandom)
+                throws KeyManagementException {
+            delegate.init(keyManagers, trustManagers, secureRandom);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            newTlsConnections.increment();
+            return delegate.createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            newTlsConnections.increment();
+            return delegate.createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+}
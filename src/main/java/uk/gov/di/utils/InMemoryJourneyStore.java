@@ -0,0 +1,162 @@
+package uk.gov.di.utils;
+
+import uk.gov.di.config.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Every journey lives for the same TTL, so arrival order is also expiry order and the oldest
+// entry is always the next to go. Only journeys still waiting for their callback count against
+// the budgets. Taken journeys stay queued until they reach the head, or until there are as many
+// of them as the budgets allow and one pass clears them all out.
+public class InMemoryJourneyStore implements JourneyStore {
+
+    static final InMemoryJourneyStore INSTANCE =
+            new InMemoryJourneyStore(
+                    Configuration.getJourneyStoreMaxEntries(),
+                    Configuration.getJourneyStoreMaxBytes(),
+                    Configuration.getJourneyTtl(),
+                    Clock.systemUTC());
+
+    // Rough cost of the map node, queue node, entry, journey and instants around the strings
+    private static final int ENTRY_OVERHEAD_BYTES = 200;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private record Entry(Journey journey, Instant expiresAt, int bytes) {}
+
+    private final ConcurrentHashMap<String, Entry> journeys = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> arrivals = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private final ReentrantLock trimming = new ReentrantLock();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Duration ttl;
+    private final Clock clock;
+
+    public InMemoryJourneyStore(int maxEntries, long maxBytes, Duration ttl, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.clock = clock;
+    }
+
+    @Override
+    public void put(Journey journey) {
+        var now = Instant.now(clock);
+        var entry = new Entry(journey, now.plus(ttl), sizeOf(journey));
+        var replaced = journeys.put(journey.state(), entry);
+        if (replaced != null) {
+            released(replaced);
+        }
+        live.incrementAndGet();
+        liveBytes.addAndGet(entry.bytes());
+        arrivals.add(entry);
+        queued.incrementAndGet();
+        queuedBytes.addAndGet(entry.bytes());
+        tryTrim(now);
+    }
+
+    @Override
+    public Optional<Journey> take(String state) {
+        if (state == null) {
+            return Optional.empty();
+        }
+        var entry = journeys.remove(state);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        released(entry);
+        if (!Instant.now(clock).isBefore(entry.expiresAt())) {
+            expired.increment();
+            return Optional.empty();
+        }
+        return Optional.of(entry.journey());
+    }
+
+    @Override
+    public Stats stats() {
+        tryTrim(Instant.now(clock));
+        return new Stats(live.get(), liveBytes.get(), expired.sum(), evicted.sum());
+    }
+
+    // A put that finds another thread trimming leaves the work to it rather than waiting
+    private void tryTrim(Instant now) {
+        if (!trimming.tryLock()) {
+            return;
+        }
+        try {
+            trim(now);
+        } finally {
+            trimming.unlock();
+        }
+    }
+
+    private void trim(Instant now) {
+        Entry head;
+        while ((head = arrivals.peek()) != null && mustRemove(head, now)) {
+            arrivals.poll();
+            dequeued(head);
+            if (journeys.remove(head.journey().state(), head)) {
+                released(head);
+                if (now.isBefore(head.expiresAt())) {
+                    evicted.increment();
+                } else {
+                    expired.increment();
+                }
+            }
+        }
+        if (queued.get() - live.get() > maxEntries
+                || queuedBytes.get() - liveBytes.get() > maxBytes) {
+            arrivals.removeIf(
+                    entry -> {
+                        var taken = journeys.get(entry.journey().state()) != entry;
+                        if (taken) {
+                            dequeued(entry);
+                        }
+                        return taken;
+                    });
+        }
+    }
+
+    private boolean mustRemove(Entry head, Instant now) {
+        return live.get() > maxEntries
+                || liveBytes.get() > maxBytes
+                || !now.isBefore(head.expiresAt())
+                || journeys.get(head.journey().state()) != head;
+    }
+
+    private void released(Entry entry) {
+        live.decrementAndGet();
+        liveBytes.addAndGet(-entry.bytes());
+    }
+
+    private void dequeued(Entry entry) {
+        queued.decrementAndGet();
+        queuedBytes.addAndGet(-entry.bytes());
+    }
+
+    static int sizeOf(Journey journey) {
+        return ENTRY_OVERHEAD_BYTES
+                + sizeOf(journey.state())
+                + sizeOf(journey.nonce())
+                + sizeOf(journey.codeVerifier())
+                + sizeOf(journey.clientId());
+    }
+
+    private static int sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + value.length();
+    }
+}
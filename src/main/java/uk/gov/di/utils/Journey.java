@@ -0,0 +1,27 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.id.State;
+import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
+import com.nimbusds.openid.connect.sdk.Nonce;
+
+import java.time.Instant;
+
+public record Journey(
+        String state,
+        String nonce,
+        String codeVerifier,
+        String clientId,
+        boolean useAlternativeDomain,
+        Instant startedAt) {
+
+    public static Journey start(
+            String clientId, CodeVerifier codeVerifier, boolean useAlternativeDomain, Instant now) {
+        return new Journey(
+                new State().getValue(),
+                new Nonce().getValue(),
+                codeVerifier == null ? null : codeVerifier.getValue(),
+                clientId,
+                useAlternativeDomain,
+                now);
+    }
+}
@@ -0,0 +1,66 @@
+package uk.gov.di.utils;
+
+import io.javalin.http.Context;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+public class JourneyContext {
+    public static final String CLIENT_ID = "client_id";
+    public static final String STATE = "state";
+    public static final String SID = "sid";
+
+    private JourneyContext() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static void enter(Context ctx) {
+        MDC.clear();
+        putIfPresent(CLIENT_ID, ctx.cookie("relyingParty"));
+        putIfPresent(STATE, ctx.queryParam("state"));
+    }
+
+    public static void exit(Context ctx) {
+        MDC.clear();
+    }
+
+    public static void putClientId(String clientId) {
+        putIfPresent(CLIENT_ID, clientId);
+    }
+
+    public static void putState(String state) {
+        putIfPresent(STATE, state);
+    }
+
+    public static void putSid(String sid) {
+        putIfPresent(SID, sid);
+    }
+
+    // Carries the caller's journey into work that runs on another thread
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        var journey = MDC.getCopyOfContextMap();
+        if (journey == null || journey.isEmpty()) {
+            return task;
+        }
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            MDC.setContextMap(journey);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previous);
+                }
+            }
+        };
+    }
+
+    private static void putIfPresent(String key, String value) {
+        if (value != null && !value.isEmpty()) {
+            MDC.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package uk.gov.di.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
+import uk.gov.di.utils.JourneyTiming.Options;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Time from the redirect to the OP until the callback has rendered, per set of journey options
+public class JourneyLatency {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JourneyLatency.class);
+
+    // Past this, new VTR and claim combinations are counted together so the labels stay bounded
+    private static final int MAX_OPTION_SETS = 500;
+
+    private static final HistogramFamily journeyDurations =
+            new HistogramFamily(
+                    "rp_stub_journey_duration_seconds",
+                    "Time from the redirect to the OP until the callback completes, by options",
+                    Histogram.JOURNEY_BUCKET_BOUNDS,
+                    "client_id",
+                    "vtr",
+                    "claims",
+                    "request",
+                    "pkce",
+                    "use_alternative_domain");
+    private static final ConcurrentHashMap<Options, Histogram> histograms =
+            new ConcurrentHashMap<>();
+    private static final Map<Options, Histogram.Snapshot> lastSummarised = new HashMap<>();
+
+    static {
+        var interval = Configuration.getJourneySummaryInterval();
+        BackgroundExecutors.newScheduledThread("journey-latency")
+                .scheduleWithFixedDelay(
+                        () -> {
+                            try {
+                                var summary = summarise();
+                                if (!summary.isEmpty()) {
+                                    LOG.info(
+                                            "Journeys completed in the last {}s: {}",
+                                            interval.toSeconds(),
+                                            summary);
+                                }
+                            } catch (RuntimeException e) {
+                                LOG.warn("Unable to summarise journey latency", e);
+                            }
+                        },
+                        interval.toMillis(),
+                        interval.toMillis(),
+                        TimeUnit.MILLISECONDS);
+    }
+
+    private JourneyLatency() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static void record(Options options, Duration elapsed) {
+        if (elapsed.isNegative()) {
+            return;
+        }
+        histogram(options).record(elapsed.toNanos());
+    }
+
+    static void writeTo(StringBuilder output) {
+        journeyDurations.writeTo(output);
+    }
+
+    // One entry per option set with journeys since the last call
+    static synchronized String summarise() {
+        var summary = new StringJoiner("; ");
+        histograms.forEach(
+                (options, histogram) -> {
+                    var snapshot = histogram.snapshot();
+                    var previous = lastSummarised.put(options, snapshot);
+                    var interval = previous == null ? snapshot : snapshot.minus(previous);
+                    if (interval.count() > 0) {
+                        summary.add(
+                                "%s n=%d %s %s"
+                                        .formatted(
+                                                options,
+                                                interval.count(),
+                                                formatQuantile("p50", interval, 0.5),
+                                                formatQuantile("p95", interval, 0.95)));
+                    }
+                });
+        return summary.toString();
+    }
+
+    private static Histogram histogram(Options options) {
+        var histogram = histograms.get(options);
+        if (histogram != null) {
+            return histogram;
+        }
+        var key = histograms.size() < MAX_OPTION_SETS ? options : options.withoutVtrAndClaims();
+        return histograms.computeIfAbsent(key, o -> journeyDurations.labels(o.labels()));
+    }
+
+    private static String formatQuantile(
+            String name, Histogram.Snapshot snapshot, double quantile) {
+        var bound = snapshot.quantileBound(quantile);
+        if (Double.isInfinite(bound)) {
+            var bounds = snapshot.bounds();
+            return name + ">" + formatSeconds(bounds[bounds.length - 1]);
+        }
+        return name + "<=" + formatSeconds(bound);
+    }
+
+    private static String formatSeconds(double seconds) {
+        return seconds == Math.rint(seconds) ? (long) seconds + "s" : seconds + "s";
+    }
+}
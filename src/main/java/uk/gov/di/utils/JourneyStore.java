@@ -0,0 +1,20 @@
+package uk.gov.di.utils;
+
+import java.util.Optional;
+
+// Journeys started by this stub, keyed by the state sent to the OP
+public interface JourneyStore {
+
+    record Stats(long entries, long bytes, long expired, long evicted) {}
+
+    static JourneyStore getInstance() {
+        return InMemoryJourneyStore.INSTANCE;
+    }
+
+    void put(Journey journey);
+
+    // A journey can only be taken once, so a replayed callback finds nothing
+    Optional<Journey> take(String state);
+
+    Stats stats();
+}
@@ -0,0 +1,181 @@
+package uk.gov.di.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+// Carries when a journey left for the OP and what it asked for through the user's browser,
+// signed so the callback can trust it on any task
+public class JourneyTiming {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JourneyTiming.class);
+
+    public static final String COOKIE = "journeyTiming";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int FIELDS = 7;
+    private static final SecretKeySpec KEY = key();
+    private static final ThreadLocal<Mac> MACS = ThreadLocal.withInitial(JourneyTiming::newMac);
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public record Options(
+            String clientId,
+            String vtr,
+            String claims,
+            String request,
+            boolean pkce,
+            boolean useAlternativeDomain) {
+
+        public static Options of(
+                String clientId,
+                List<String> vtr,
+                List<String> claims,
+                String request,
+                boolean pkce,
+                boolean useAlternativeDomain) {
+            return new Options(
+                    clientId,
+                    vtr.isEmpty() ? "none" : String.join(" ", vtr),
+                    claims.isEmpty()
+                            ? "none"
+                            : claims.stream()
+                                    .map(claim -> claim.substring(claim.lastIndexOf('/') + 1))
+                                    .sorted()
+                                    .collect(Collectors.joining(" ")),
+                    request,
+                    pkce,
+                    useAlternativeDomain);
+        }
+
+        Options withoutVtrAndClaims() {
+            return new Options(clientId, "other", "other", request, pkce, useAlternativeDomain);
+        }
+
+        String[] labels() {
+            return new String[] {
+                clientId,
+                vtr,
+                claims,
+                request,
+                Boolean.toString(pkce),
+                Boolean.toString(useAlternativeDomain)
+            };
+        }
+
+        @Override
+        public String toString() {
+            return "%s vtr=[%s] claims=[%s] %s%s%s"
+                    .formatted(
+                            clientId,
+                            vtr,
+                            claims,
+                            request,
+                            pkce ? " pkce" : "",
+                            useAlternativeDomain ? " alternative_domain" : "");
+        }
+    }
+
+    public record Started(Options options, Instant startedAt) {}
+
+    private JourneyTiming() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static String seal(Options options, Instant startedAt) {
+        var payload =
+                String.join(
+                        "\n",
+                        Long.toString(startedAt.toEpochMilli()),
+                        options.clientId(),
+                        options.vtr(),
+                        options.claims(),
+                        options.request(),
+                        Boolean.toString(options.pkce()),
+                        Boolean.toString(options.useAlternativeDomain()));
+        var encoded = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return encoded + "." + ENCODER.encodeToString(sign(encoded));
+    }
+
+    // Empty if the value is missing, malformed or wasn't signed with this key
+    public static Optional<Started> open(String sealed) {
+        if (sealed == null) {
+            return Optional.empty();
+        }
+        var dot = sealed.lastIndexOf('.');
+        if (dot < 0) {
+            return Optional.empty();
+        }
+        var encoded = sealed.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(encoded), DECODER.decode(sealed.substring(dot + 1)))) {
+                return Optional.empty();
+            }
+            var fields =
+                    new String(DECODER.decode(encoded), StandardCharsets.UTF_8).split("\n", -1);
+            if (fields.length != FIELDS) {
+                return Optional.empty();
+            }
+            return Optional.of(
+                    new Started(
+                            new Options(
+                                    fields[1],
+                                    fields[2],
+                                    fields[3],
+                                    fields[4],
+                                    Boolean.parseBoolean(fields[5]),
+                                    Boolean.parseBoolean(fields[6])),
+                            Instant.ofEpochMilli(Long.parseLong(fields[0]))));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static byte[] sign(String encoded) {
+        return MACS.get().doFinal(encoded.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Loading the class loads the key, so a deployed task without one fails as it starts rather
+    // than on its first authorize request
+    public static void loadKey() {}
+
+    private static SecretKeySpec key() {
+        var configured = Configuration.getJourneyTimingKey();
+        if (configured.isPresent()) {
+            return new SecretKeySpec(configured.get().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        }
+        // Deployed tasks sit behind a load balancer, so a key per task would quietly leave
+        // journeys that finish on another task out of the histograms
+        if (!Configuration.isLocalConfiguration()) {
+            throw new RuntimeException(
+                    "JOURNEY_TIMING_KEY must be set when configuration comes from Secrets Manager");
+        }
+        LOG.warn("JOURNEY_TIMING_KEY not set, journeys that finish on another task won't be timed");
+        var random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return new SecretKeySpec(random, ALGORITHM);
+    }
+
+    private static Mac newMac() {
+        try {
+            var mac = Mac.getInstance(ALGORITHM);
+            mac.init(KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.ResourceRetriever;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
+
+import java.io.IOException;
+import java.net.URL;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class JwksCache implements JWKSource<SecurityContext> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JwksCache.class);
+    private static final int JWKS_SIZE_LIMIT = 512 * 1024;
+    private static final ConcurrentHashMap<String, JwksCache> caches = new ConcurrentHashMap<>();
+    private static final Executor refreshExecutor =
+            BackgroundExecutors.newCachedPool("jwks-refresh");
+
+    private final URL jwksUrl;
+    private final ResourceRetriever fetchRetriever;
+    private final ResourceRetriever refreshRetriever;
+    private final Clock clock;
+    private final Settings settings;
+    private final Executor executor;
+    private final Histogram fetchTimer;
+    private final Object fetchLock = new Object();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder forcedRefreshes = new LongAdder();
+    private final LongAdder rateLimitedRefreshes = new LongAdder();
+    private volatile CachedJwks current;
+    private volatile Instant lastForcedRefresh = Instant.MIN;
+
+    public record Settings(
+            Duration lifetime,
+            Duration refreshAhead,
+            Duration refreshJitter,
+            Duration forcedRefreshInterval,
+            Duration fetchTimeout,
+            Duration refreshTimeout) {
+
+        static Settings fromConfiguration() {
+            return new Settings(
+                    Configuration.getJwksCacheLifetime(),
+                    Configuration.getJwksRefreshAhead(),
+                    Configuration.getJwksRefreshJitter(),
+                    Configuration.getJwksForcedRefreshInterval(),
+                    Configuration.getJwksFetchTimeout(),
+                    Configuration.getJwksRefreshTimeout());
+        }
+    }
+
+    public record Stats(
+            long hits, long misses, long refreshes, long forcedRefreshes, long rateLimited) {}
+
+    private record CachedJwks(JWKSet jwkSet, Instant refreshAt, Instant expiresAt) {}
+
+    JwksCache(
+            URL jwksUrl,
+            ResourceRetriever fetchRetriever,
+            ResourceRetriever refreshRetriever,
+            Clock clock,
+            Settings settings,
+            Executor executor) {
+        this.jwksUrl = jwksUrl;
+        this.fetchRetriever = fetchRetriever;
+        this.refreshRetriever = refreshRetriever;
+        this.clock = clock;
+        this.settings = settings;
+        this.executor = executor;
+        this.fetchTimer = Metrics.keyFetchTimer(jwksUrl.toString());
+    }
+
+    public static JwksCache forUrl(URL jwksUrl) {
+        return caches.computeIfAbsent(
+                jwksUrl.toString(), url -> create(jwksUrl, Settings.fromConfiguration()));
+    }
+
+    private static JwksCache create(URL jwksUrl, Settings settings) {
+        return new JwksCache(
+                jwksUrl,
+                retrieverWithTimeout(settings.fetchTimeout()),
+                retrieverWithTimeout(settings.refreshTimeout()),
+                Clock.systemUTC(),
+                settings,
+                refreshExecutor);
+    }
+
+    private static ResourceRetriever retrieverWithTimeout(Duration timeout) {
+        return HttpTransport.getInstance().resourceRetriever(timeout, JWKS_SIZE_LIMIT);
+    }
+
+    @Override
+    public List<JWK> get(JWKSelector jwkSelector, SecurityContext context)
+            throws KeySourceException {
+        var cached = current;
+        var now = clock.instant();
+        if (cached == null || !now.isBefore(cached.expiresAt())) {
+            misses.increment();
+            cached = fetchIfNotRefreshedSince(cached);
+        } else {
+            hits.increment();
+            if (!now.isBefore(cached.refreshAt())) {
+                refreshInBackground();
+            }
+        }
+
+        var keys = jwkSelector.select(cached.jwkSet());
+        if (!keys.isEmpty()) {
+            return keys;
+        }
+        return forceRefresh(cached).map(jwkSelector::select).orElse(keys);
+    }
+
+    public void prefetch() throws KeySourceException {
+        if (current == null) {
+            fetchIfNotRefreshedSince(null);
+        }
+    }
+
+    public static Map<String, Stats> statsByUrl() {
+        var stats = new TreeMap<String, Stats>();
+        caches.forEach((url, cache) -> stats.put(url, cache.stats()));
+        return stats;
+    }
+
+    public Stats stats() {
+        return new Stats(
+                hits.sum(),
+                misses.sum(),
+                refreshes.sum(),
+                forcedRefreshes.sum(),
+                rateLimitedRefreshes.sum());
+    }
+
+    private Optional<JWKSet> forceRefresh(CachedJwks seen) throws KeySourceException {
+        synchronized (fetchLock) {
+            if (current != seen) {
+                return Optional.of(current.jwkSet());
+            }
+            var now = clock.instant();
+            if (now.isBefore(lastForcedRefresh.plus(settings.forcedRefreshInterval()))) {
+                rateLimitedRefreshes.increment();
+                LOG.warn("No matching key in cached JWKS from {}, refresh rate limited", jwksUrl);
+                return Optional.empty();
+            }
+            lastForcedRefresh = now;
+            forcedRefreshes.increment();
+            LOG.info("No matching key in cached JWKS from {}, forcing refresh", jwksUrl);
+            return Optional.of(fetch(fetchRetriever).jwkSet());
+        }
+    }
+
+    private CachedJwks fetchIfNotRefreshedSince(CachedJwks seen) throws KeySourceException {
+        synchronized (fetchLock) {
+            var latest = current;
+            if (latest != seen && latest != null) {
+                return latest;
+            }
+            try {
+                return fetch(fetchRetriever);
+            } catch (KeySourceException e) {
+                if (seen == null) {
+                    throw e;
+                }
+                LOG.warn("Unable to refresh expired JWKS from {}, using stale keys", jwksUrl, e);
+                var retryAt = clock.instant().plus(settings.forcedRefreshInterval());
+                current = new CachedJwks(seen.jwkSet(), retryAt, retryAt);
+                return current;
+            }
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(
+                () -> {
+                    try {
+                        fetch(refreshRetriever);
+                        refreshes.increment();
+                    } catch (KeySourceException e) {
+                        LOG.warn("Background refresh of JWKS from {} failed", jwksUrl, e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+    }
+
+    private CachedJwks fetch(ResourceRetriever retriever) throws KeySourceException {
+        try {
+            var start = System.nanoTime();
+            String content;
+            try {
+                content = retriever.retrieveResource(jwksUrl).getContent();
+            } finally {
+                fetchTimer.recordSince(start);
+            }
+            var jwkSet = JWKSet.parse(content);
+            var fetchedAt = clock.instant();
+            var expiresAt = fetchedAt.plus(settings.lifetime());
+            var fetched = new CachedJwks(jwkSet, refreshAt(expiresAt), expiresAt);
+            current = fetched;
+            return fetched;
+        } catch (IOException | ParseException e) {
+            throw new KeySourceException("Unable to fetch JWKS from " + jwksUrl, e);
+        }
+    }
+
+    private Instant refreshAt(Instant expiresAt) {
+        var jitterMillis = settings.refreshJitter().toMillis();
+        var jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0;
+        return expiresAt.minus(settings.refreshAhead()).minusMillis(jitter);
+    }
+}
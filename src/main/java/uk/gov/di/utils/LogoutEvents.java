@@ -0,0 +1,115 @@
+package uk.gov.di.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Back-channel logouts arrive in bursts of thousands a second, so requests only queue an event
+// and a background thread writes them out in batches
+public class LogoutEvents {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogoutEvents.class);
+
+    private static final int CAPACITY = 10_000;
+    private static final int MAX_BATCH = 500;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final LogoutEvents instance = start();
+
+    public enum Outcome {
+        ACCEPTED,
+        REPLAYED,
+        INVALID,
+        UNKNOWN_CLIENT;
+
+        String label() {
+            return name().toLowerCase();
+        }
+    }
+
+    public record Event(String clientId, String sid, String jti, Outcome outcome) {
+        @Override
+        public String toString() {
+            return "%s %s sid=%s jti=%s".formatted(outcome.label(), clientId, sid, jti);
+        }
+    }
+
+    public record Stats(
+            long accepted, long replayed, long invalid, long unknownClient, long dropped) {}
+
+    private final BlockingQueue<Event> queue;
+    private final int maxBatch;
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final LongAdder dropped = new LongAdder();
+
+    LogoutEvents(int capacity, int maxBatch) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    private static LogoutEvents start() {
+        var events = new LogoutEvents(CAPACITY, MAX_BATCH);
+        BackgroundExecutors.newScheduledThread("logout-events")
+                .scheduleWithFixedDelay(
+                        () -> {
+                            try {
+                                events.flush();
+                            } catch (RuntimeException e) {
+                                LOG.warn("Unable to write logout events", e);
+                            }
+                        },
+                        FLUSH_INTERVAL_MILLIS,
+                        FLUSH_INTERVAL_MILLIS,
+                        TimeUnit.MILLISECONDS);
+        return events;
+    }
+
+    public static void record(String clientId, String sid, String jti, Outcome outcome) {
+        instance.add(new Event(clientId, sid, jti, outcome));
+    }
+
+    public static Stats stats() {
+        return instance.counts();
+    }
+
+    void add(Event event) {
+        outcomes[event.outcome().ordinal()].increment();
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    // Writes what was queued when it was called, so a steady flood can't keep it running
+    int flush() {
+        var pending = queue.size();
+        var written = 0;
+        var batch = new ArrayList<Event>(maxBatch);
+        while (written < pending && queue.drainTo(batch, maxBatch) > 0) {
+            LOG.info(
+                    "{} back-channel logouts: {}",
+                    batch.size(),
+                    batch.stream().map(Event::toString).collect(Collectors.joining(", ")));
+            written += batch.size();
+            batch.clear();
+        }
+        return written;
+    }
+
+    Stats counts() {
+        return new Stats(
+                outcomes[Outcome.ACCEPTED.ordinal()].sum(),
+                outcomes[Outcome.REPLAYED.ordinal()].sum(),
+                outcomes[Outcome.INVALID.ordinal()].sum(),
+                outcomes[Outcome.UNKNOWN_CLIENT.ordinal()].sum(),
+                dropped.sum());
+    }
+}
@@ -0,0 +1,311 @@
+package uk.gov.di.utils;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class Metrics {
+
+    public enum Stage {
+        DISCOVERY,
+        TOKEN_REQUEST,
+        USERINFO_REQUEST,
+        ID_TOKEN_VALIDATION,
+        LOGOUT_TOKEN_VALIDATION,
+        REQUEST_SIGNING,
+        CORE_IDENTITY_VALIDATION;
+
+        private String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private static final HistogramFamily stageDurations =
+            new HistogramFamily(
+                    "rp_stub_stage_duration_seconds",
+                    "Time spent in each stage of a journey",
+                    "stage",
+                    "client_id",
+                    "use_alternative_domain");
+    private static final HistogramFamily requestDurations =
+            new HistogramFamily(
+                    "rp_stub_request_duration_seconds",
+                    "Time taken to handle a request, by route",
+                    "method",
+                    "route",
+                    "client_id",
+                    "use_alternative_domain");
+    private static final HistogramFamily keyFetchDurations =
+            new HistogramFamily(
+                    "rp_stub_key_fetch_duration_seconds",
+                    "Time taken to fetch a JWK set or DID document",
+                    "uri");
+    private static final HistogramFamily timeToFirstByteDurations =
+            new HistogramFamily(
+                    "rp_stub_outbound_time_to_first_byte_seconds",
+                    "Time from sending an outbound request to receiving its response headers");
+
+    private static final ConcurrentHashMap<String, StageTimers> stageTimersByClient =
+            new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, RouteTimers>>
+            routeTimersByMethod = new ConcurrentHashMap<>();
+
+    private Metrics() {
+        throw new IllegalStateException("Utility Class");
+    }
+
+    public static StageTimers stageTimers(String clientId) {
+        return stageTimersByClient.computeIfAbsent(
+                clientId == null ? UNKNOWN_CLIENT : clientId, StageTimers::new);
+    }
+
+    public static Histogram keyFetchTimer(String uri) {
+        return keyFetchDurations.labels(uri);
+    }
+
+    public static Histogram timeToFirstByteTimer() {
+        return timeToFirstByteDurations.labels();
+    }
+
+    // Called once per request, so the common case is a few map reads and no allocation
+    public static void recordRequest(
+            String method,
+            String route,
+            String clientId,
+            boolean useAlternativeDomain,
+            long nanos) {
+        var timersByRoute = routeTimersByMethod.get(method);
+        if (timersByRoute == null) {
+            timersByRoute =
+                    routeTimersByMethod.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        var routeTimers = timersByRoute.get(route);
+        if (routeTimers == null) {
+            routeTimers =
+                    timersByRoute.computeIfAbsent(route, key -> new RouteTimers(method, route));
+        }
+        routeTimers
+                .get(clientId == null ? UNKNOWN_CLIENT : clientId, useAlternativeDomain)
+                .record(nanos);
+    }
+
+    public static String scrape() {
+        var output = new StringBuilder();
+        stageDurations.writeTo(output);
+        requestDurations.writeTo(output);
+        keyFetchDurations.writeTo(output);
+        timeToFirstByteDurations.writeTo(output);
+        JourneyLatency.writeTo(output);
+        writeAuthorizeTemplateCounters(output);
+        writeLogoutCounters(output);
+        writeJourneyStoreStats(output);
+        writeOutboundHttpStats(output);
+        writeJwksCacheStats(output);
+        return output.toString();
+    }
+
+    private static void writeJwksCacheStats(StringBuilder output) {
+        var statsByUrl = JwksCache.statsByUrl();
+        output.append("# HELP rp_stub_jwks_cache_lookups_total ")
+                .append("JWK set lookups, by JWKS URL and result\n")
+                .append("# TYPE rp_stub_jwks_cache_lookups_total counter\n");
+        statsByUrl.forEach(
+                (uri, stats) -> {
+                    writeJwksSample(
+                            output,
+                            "rp_stub_jwks_cache_lookups_total",
+                            uri,
+                            "result=\"hit\"",
+                            stats.hits());
+                    writeJwksSample(
+                            output,
+                            "rp_stub_jwks_cache_lookups_total",
+                            uri,
+                            "result=\"miss\"",
+                            stats.misses());
+                });
+        output.append("# HELP rp_stub_jwks_refreshes_total ")
+                .append("JWK set refreshes, by JWKS URL and trigger\n")
+                .append("# TYPE rp_stub_jwks_refreshes_total counter\n");
+        statsByUrl.forEach(
+                (uri, stats) -> {
+                    writeJwksSample(
+                            output,
+                            "rp_stub_jwks_refreshes_total",
+                            uri,
+                            "trigger=\"background\"",
+                            stats.refreshes());
+                    writeJwksSample(
+                            output,
+                            "rp_stub_jwks_refreshes_total",
+                            uri,
+                            "trigger=\"unknown_kid\"",
+                            stats.forcedRefreshes());
+                });
+        output.append("# HELP rp_stub_jwks_refreshes_rate_limited_total ")
+                .append("Refreshes for an unknown kid skipped because one ran recently\n")
+                .append("# TYPE rp_stub_jwks_refreshes_rate_limited_total counter\n");
+        statsByUrl.forEach(
+                (uri, stats) ->
+                        writeJwksSample(
+                                output,
+                                "rp_stub_jwks_refreshes_rate_limited_total",
+                                uri,
+                                null,
+                                stats.rateLimited()));
+    }
+
+    private static void writeJwksSample(
+            StringBuilder output, String name, String uri, String extraLabel, long value) {
+        output.append(name).append("{uri=\"").append(HistogramFamily.escape(uri)).append('"');
+        if (extraLabel != null) {
+            output.append(',').append(extraLabel);
+        }
+        output.append("} ").append(value).append('\n');
+    }
+
+    private static void writeOutboundHttpStats(StringBuilder output) {
+        var stats = HttpTransport.getInstance().stats();
+        output.append("# HELP rp_stub_outbound_requests_total ")
+                .append("Requests sent to the OP and key endpoints\n")
+                .append("# TYPE rp_stub_outbound_requests_total counter\n")
+                .append("rp_stub_outbound_requests_total ")
+                .append(stats.requests())
+                .append('\n')
+                .append("# HELP rp_stub_outbound_tls_connections_total ")
+                .append("TLS connections opened for outbound requests\n")
+                .append("# TYPE rp_stub_outbound_tls_connections_total counter\n")
+                .append("rp_stub_outbound_tls_connections_total ")
+                .append(stats.newTlsConnections())
+                .append('\n')
+                .append("# HELP rp_stub_outbound_connection_reuse_ratio ")
+                .append("Share of outbound requests that reused an open connection\n")
+                .append("# TYPE rp_stub_outbound_connection_reuse_ratio gauge\n")
+                .append("rp_stub_outbound_connection_reuse_ratio ")
+                .append(stats.connectionReuseRatio())
+                .append('\n')
+                .append("# HELP rp_stub_outbound_time_to_first_byte_max_seconds ")
+                .append("Longest time to first byte of any outbound request\n")
+                .append("# TYPE rp_stub_outbound_time_to_first_byte_max_seconds gauge\n")
+                .append("rp_stub_outbound_time_to_first_byte_max_seconds ")
+                .append(stats.maxTimeToFirstByteMillis() / 1000)
+                .append('\n');
+    }
+
+    private static void writeJourneyStoreStats(StringBuilder output) {
+        var stats = JourneyStore.getInstance().stats();
+        output.append("# HELP rp_stub_journey_store_entries Journeys waiting for a callback\n")
+                .append("# TYPE rp_stub_journey_store_entries gauge\n")
+                .append("rp_stub_journey_store_entries ")
+                .append(stats.entries())
+                .append('\n')
+                .append("# HELP rp_stub_journey_store_bytes ")
+                .append("Estimated memory held by the journey store\n")
+                .append("# TYPE rp_stub_journey_store_bytes gauge\n")
+                .append("rp_stub_journey_store_bytes ")
+                .append(stats.bytes())
+                .append('\n')
+                .append("# HELP rp_stub_journey_store_evictions_total ")
+                .append("Journeys removed before their callback, by reason\n")
+                .append("# TYPE rp_stub_journey_store_evictions_total counter\n")
+                .append("rp_stub_journey_store_evictions_total{reason=\"expired\"} ")
+                .append(stats.expired())
+                .append('\n')
+                .append("rp_stub_journey_store_evictions_total{reason=\"capacity\"} ")
+                .append(stats.evicted())
+                .append('\n');
+    }
+
+    private static void writeLogoutCounters(StringBuilder output) {
+        var stats = LogoutEvents.stats();
+        output.append("# HELP rp_stub_backchannel_logouts_total ")
+                .append("Back-channel logout tokens received, by result\n")
+                .append("# TYPE rp_stub_backchannel_logouts_total counter\n")
+                .append("rp_stub_backchannel_logouts_total{result=\"accepted\"} ")
+                .append(stats.accepted())
+                .append('\n')
+                .append("rp_stub_backchannel_logouts_total{result=\"replayed\"} ")
+                .append(stats.replayed())
+                .append('\n')
+                .append("rp_stub_backchannel_logouts_total{result=\"invalid\"} ")
+                .append(stats.invalid())
+                .append('\n')
+                .append("rp_stub_backchannel_logouts_total{result=\"unknown_client\"} ")
+                .append(stats.unknownClient())
+                .append('\n')
+                .append("# HELP rp_stub_logout_events_dropped_total ")
+                .append("Logout events not written because the queue was full\n")
+                .append("# TYPE rp_stub_logout_events_dropped_total counter\n")
+                .append("rp_stub_logout_events_dropped_total ")
+                .append(stats.dropped())
+                .append('\n');
+    }
+
+    private static void writeAuthorizeTemplateCounters(StringBuilder output) {
+        var stats = AuthorizeRequestTemplates.stats();
+        output.append("# HELP rp_stub_authorize_template_lookups_total ")
+                .append("Authorize request template cache lookups, by result\n")
+                .append("# TYPE rp_stub_authorize_template_lookups_total counter\n")
+                .append("rp_stub_authorize_template_lookups_total{result=\"hit\"} ")
+                .append(stats.hits())
+                .append('\n')
+                .append("rp_stub_authorize_template_lookups_total{result=\"miss\"} ")
+                .append(stats.misses())
+                .append('\n')
+                .append("# HELP rp_stub_authorize_template_evictions_total ")
+                .append("Authorize request templates dropped to keep the cache bounded\n")
+                .append("# TYPE rp_stub_authorize_template_evictions_total counter\n")
+                .append("rp_stub_authorize_template_evictions_total ")
+                .append(stats.evictions())
+                .append('\n');
+    }
+
+    public static class StageTimers {
+        private final Histogram[] histograms = new Histogram[Stage.values().length * 2];
+
+        private StageTimers(String clientId) {
+            for (var stage : Stage.values()) {
+                histograms[index(stage, false)] =
+                        stageDurations.labels(stage.label(), clientId, "false");
+                histograms[index(stage, true)] =
+                        stageDurations.labels(stage.label(), clientId, "true");
+            }
+        }
+
+        public Histogram get(Stage stage, boolean useAlternativeDomain) {
+            return histograms[index(stage, useAlternativeDomain)];
+        }
+
+        private static int index(Stage stage, boolean useAlternativeDomain) {
+            return stage.ordinal() * 2 + (useAlternativeDomain ? 1 : 0);
+        }
+    }
+
+    private static class RouteTimers {
+        private final String method;
+        private final String route;
+        private final ConcurrentHashMap<String, Histogram[]> histogramsByClient =
+                new ConcurrentHashMap<>();
+
+        private RouteTimers(String method, String route) {
+            this.method = method;
+            this.route = route;
+        }
+
+        private Histogram get(String clientId, boolean useAlternativeDomain) {
+            var histograms = histogramsByClient.get(clientId);
+            if (histograms == null) {
+                histograms =
+                        histogramsByClient.computeIfAbsent(
+                                clientId,
+                                key ->
+                                        new Histogram[] {
+                                            requestDurations.labels(method, route, key, "false"),
+                                            requestDurations.labels(method, route, key, "true")
+                                        });
+            }
+            return histograms[useAlternativeDomain ? 1 : 0];
+        }
+    }
+}
@@ -3,10 +3,10 @@ package uk.gov.di.utils;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.KeySourceException;
 import com.nimbusds.jose.proc.BadJOSEException;
-import com.nimbusds.jose.util.DefaultResourceRetriever;
-import com.nimbusds.jose.util.ResourceRetriever;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
 import com.nimbusds.jwt.JWT;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
@@ -33,7 +33,6 @@ import com.nimbusds.oauth2.sdk.pkce.CodeChallenge;
 import com.nimbusds.oauth2.sdk.pkce.CodeChallengeMethod;
 import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
 import com.nimbusds.oauth2.sdk.token.AccessToken;
-import com.nimbusds.oauth2.sdk.token.BearerAccessToken;
 import com.nimbusds.oauth2.sdk.token.Tokens;
 import com.nimbusds.openid.connect.sdk.AuthenticationRequest;
 import com.nimbusds.openid.connect.sdk.Nonce;
@@ -41,11 +40,9 @@ import com.nimbusds.openid.connect.sdk.OIDCClaimsRequest;
 import com.nimbusds.openid.connect.sdk.OIDCScopeValue;
 import com.nimbusds.openid.connect.sdk.OIDCTokenResponseParser;
 import com.nimbusds.openid.connect.sdk.Prompt;
-import com.nimbusds.openid.connect.sdk.UserInfoRequest;
-import com.nimbusds.openid.connect.sdk.UserInfoResponse;
+import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
 import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
 import com.nimbusds.openid.connect.sdk.claims.LogoutTokenClaimsSet;
-import com.nimbusds.openid.connect.sdk.claims.UserInfo;
 import com.nimbusds.openid.connect.sdk.op.OIDCProviderMetadata;
 import com.nimbusds.openid.connect.sdk.token.OIDCTokens;
 import com.nimbusds.openid.connect.sdk.validators.IDTokenValidator;
@@ -54,6 +51,7 @@ import net.minidev.json.JSONArray;
 import org.apache.http.client.utils.URIBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
 import uk.gov.di.config.RPConfig;
 
 import java.io.IOException;
@@ -61,38 +59,97 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
 
 public class Oidc {
 
     private static final Logger LOG = LoggerFactory.getLogger(Oidc.class);
+    private static final Duration CLIENT_ASSERTION_LIFETIME = Duration.ofMinutes(5);
     private final RPConfig relyingPartyConfig;
 
-    private final OIDCProviderMetadata providerMetadata;
-    private final Optional<OIDCProviderMetadata> alternativeProviderMetadata;
     private final ClientID clientId;
-    private final PrivateKeyReader privateKeyReader;
+    private final SigningKeys signingKeys;
+    private final Metrics.StageTimers timers;
+    private volatile Provider provider;
+
+    // The OP's metadata and everything built from it, replaced as a whole only when a refresh
+    // finds the metadata has changed
+    private final class Provider {
+        private final OIDCProviderMetadata metadata;
+        private final Optional<OIDCProviderMetadata> alternativeMetadata;
+        private final AuthorizeRequestTemplates authorizeRequestTemplates =
+                new AuthorizeRequestTemplates(Configuration.getAuthorizeTemplateCacheSize());
+        private final LogoutTokenValidator[] logoutTokenValidators = new LogoutTokenValidator[2];
+        private final ClientAssertionPool clientAssertions;
+
+        private Provider(
+                OIDCProviderMetadata metadata, Optional<OIDCProviderMetadata> alternativeMetadata) {
+            this.metadata = metadata;
+            this.alternativeMetadata = alternativeMetadata;
+            this.clientAssertions =
+                    ClientAssertionPool.create(
+                            issuedAt ->
+                                    privateKeyJwt(issuedAt, metadata.getTokenEndpointURI(), false));
+        }
+
+        private boolean hasSameMetadata(
+                OIDCProviderMetadata otherMetadata,
+                Optional<OIDCProviderMetadata> otherAlternativeMetadata) {
+            return metadata.toJSONObject().equals(otherMetadata.toJSONObject())
+                    && alternativeMetadata
+                            .map(OIDCProviderMetadata::toJSONObject)
+                            .equals(
+                                    otherAlternativeMetadata.map(
+                                            OIDCProviderMetadata::toJSONObject));
+        }
+    }
 
     public Oidc(RPConfig relyingPartyConfig) {
         this.relyingPartyConfig = relyingPartyConfig;
         this.clientId = new ClientID(relyingPartyConfig.clientId());
-        this.providerMetadata = loadProviderMetadata(relyingPartyConfig.opBaseUrl());
-        this.alternativeProviderMetadata =
-                Optional.ofNullable(relyingPartyConfig.alternativeBaseUrl())
-                        .map(
-                                (altDomain) ->
-                                        this.loadAlternativeProviderMetadata(
-                                                relyingPartyConfig.opBaseUrl(), altDomain));
-        this.privateKeyReader = new PrivateKeyReader(relyingPartyConfig.clientPrivateKey());
+        this.timers = Metrics.stageTimers(relyingPartyConfig.clientId());
+        this.provider =
+                new Provider(
+                        loadProviderMetadata(relyingPartyConfig.opBaseUrl()),
+                        loadAlternativeProviderMetadata());
+        this.signingKeys = SigningKeys.forRelyingParty(relyingPartyConfig);
+    }
+
+    // Keeps the authorize templates, pooled client assertions and logout validators built from
+    // the current metadata unless the OP has actually changed it
+    public void refreshProviderMetadata() {
+        var metadata = loadProviderMetadata(relyingPartyConfig.opBaseUrl());
+        var alternativeMetadata = loadAlternativeProviderMetadata();
+        if (provider.hasSameMetadata(metadata, alternativeMetadata)) {
+            return;
+        }
+        LOG.info("Provider metadata changed for {}", clientId.getValue());
+        var refreshed = new Provider(metadata, alternativeMetadata);
+        provider = refreshed;
+        if (relyingPartyConfig.tokenClientSecret() == null) {
+            refreshed.clientAssertions.prime();
+        }
+    }
+
+    private Optional<OIDCProviderMetadata> loadAlternativeProviderMetadata() {
+        return Optional.ofNullable(relyingPartyConfig.alternativeBaseUrl())
+                .map(
+                        (altDomain) ->
+                                this.loadAlternativeProviderMetadata(
+                                        relyingPartyConfig.opBaseUrl(), altDomain));
     }
 
     private OIDCProviderMetadata loadAlternativeProviderMetadata(
             String expectedIssuer, String baseurl) {
+        var start = System.nanoTime();
         try {
             var metadata =
                     OIDCProviderMetadata.resolve(new Issuer(expectedIssuer), new URL(baseurl));
@@ -120,39 +177,56 @@ public class Oidc {
         } catch (Exception e) {
             LOG.error("Unexpected exception thrown when loading provider metadata", e);
             throw new RuntimeException(e);
+        } finally {
+            timers.get(Metrics.Stage.DISCOVERY, true).recordSince(start);
         }
     }
 
     private OIDCProviderMetadata loadProviderMetadata(String baseUrl) {
+        var start = System.nanoTime();
         try {
             return OIDCProviderMetadata.resolve(new Issuer(baseUrl));
         } catch (Exception e) {
             LOG.error("Unexpected exception thrown when loading provider metadata", e);
             throw new RuntimeException(e);
+        } finally {
+            timers.get(Metrics.Stage.DISCOVERY, false).recordSince(start);
         }
     }
 
-    public UserInfo makeUserInfoRequest(AccessToken accessToken, boolean useAlternativeDomain)
+    public UserInfoClaims makeUserInfoRequest(AccessToken accessToken, boolean useAlternativeDomain)
             throws IOException, ParseException {
         LOG.info("Making userinfo request");
         var userInfoEndpointURI =
                 getProviderMetadata(useAlternativeDomain).getUserInfoEndpointURI();
-        var httpResponse =
-                new UserInfoRequest(
-                                userInfoEndpointURI, new BearerAccessToken(accessToken.toString()))
-                        .toHTTPRequest()
-                        .send();
-
-        var userInfoResponse = UserInfoResponse.parse(httpResponse);
+        var start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response =
+                    HttpTransport.getInstance()
+                            .send(
+                                    HttpRequest.newBuilder(userInfoEndpointURI)
+                                            .header(
+                                                    "Authorization",
+                                                    "Bearer " + accessToken.getValue())
+                                            .header("Accept", "application/json"),
+                                    HttpResponse.BodyHandlers.ofByteArray());
+        } finally {
+            timers.get(Metrics.Stage.USERINFO_REQUEST, useAlternativeDomain).recordSince(start);
+        }
 
-        if (!userInfoResponse.indicatesSuccess()) {
+        if (response.statusCode() != 200) {
             LOG.error("Userinfo request was unsuccessful");
-            throw new RuntimeException(userInfoResponse.toErrorResponse().toString());
+            throw new RuntimeException(
+                    "Userinfo request returned HTTP %d %s"
+                            .formatted(
+                                    response.statusCode(),
+                                    response.headers().firstValue("WWW-Authenticate").orElse("")));
         }
 
         LOG.info("Userinfo request was successful");
 
-        return userInfoResponse.toSuccessResponse().getUserInfo();
+        return UserInfoClaims.read(response.body());
     }
 
     public OIDCTokens makeTokenRequest(
@@ -174,17 +248,21 @@ public class Oidc {
             var clientAuthentication =
                     Optional.ofNullable(relyingPartyConfig.tokenClientSecret())
                             .map(this::clientSecretPost)
-                            // Supply the real value inside the JWT
-                            .orElseGet(
-                                    () ->
-                                            privateKeyJwt(
-                                                    this.providerMetadata.getTokenEndpointURI()));
+                            .orElseGet(() -> privateKeyJwt(useAlternativeDomain));
 
             var request =
                     new TokenRequest(
                             tokenEndpointURI, clientAuthentication, codeGrant, null, null, null);
 
-            var tokenResponse = OIDCTokenResponseParser.parse(request.toHTTPRequest().send());
+            var start = System.nanoTime();
+            TokenResponse tokenResponse;
+            try {
+                tokenResponse =
+                        OIDCTokenResponseParser.parse(
+                                request.toHTTPRequest().send(HttpTransport.getInstance()));
+            } finally {
+                timers.get(Metrics.Stage.TOKEN_REQUEST, useAlternativeDomain).recordSince(start);
+            }
 
             if (!tokenResponse.indicatesSuccess()) {
                 LOG.error("TokenRequest was unsuccessful");
@@ -215,20 +293,33 @@ public class Oidc {
         return new ClientSecretPost(new ClientID(this.clientId), new Secret(secret));
     }
 
-    private ClientAuthentication privateKeyJwt(URI tokenEndpointURI) {
-        var localDateTime = LocalDateTime.now().plusMinutes(5);
-        var expiryDate = Date.from(localDateTime.atZone(ZoneId.of("UTC")).toInstant());
+    private ClientAuthentication privateKeyJwt(boolean useAlternativeDomain) {
+        var current = provider;
+        return current.clientAssertions
+                .take()
+                .orElseGet(
+                        () ->
+                                privateKeyJwt(
+                                        Instant.now(),
+                                        current.metadata.getTokenEndpointURI(),
+                                        useAlternativeDomain));
+    }
 
+    private PrivateKeyJWT privateKeyJwt(
+            Instant issuedAt, URI tokenEndpointURI, boolean useAlternativeDomain) {
         var claims =
                 new JWTClaimsSet.Builder()
                         .subject(this.clientId.getValue())
                         .issuer(this.clientId.getValue())
+                        // Supply the real value inside the JWT
                         .audience(tokenEndpointURI.toString())
-                        .expirationTime(expiryDate)
+                        .issueTime(Date.from(issuedAt))
+                        .expirationTime(Date.from(issuedAt.plus(CLIENT_ASSERTION_LIFETIME)))
+                        .jwtID(UUID.randomUUID().toString())
                         .claim("client_id", this.clientId)
                         .build();
 
-        return new PrivateKeyJWT(signJwtWithClaims(claims));
+        return new PrivateKeyJWT(signJwtWithClaims(claims, useAlternativeDomain));
     }
 
     public AuthenticationRequest buildJarAuthorizeRequest(
@@ -258,16 +349,17 @@ public class Oidc {
 
         var userInfoClaimsRequest =
                 new OIDCClaimsRequest().withUserInfoClaimsRequest(claimsSetRequest);
+        var journey = startJourney(codeVerifier, useAlternativeDomain);
         var requestObject =
                 new JWTClaimsSet.Builder()
                         // Hard code to the real value
-                        .audience(this.providerMetadata.getAuthorizationEndpointURI().toString())
+                        .audience(this.provider.metadata.getAuthorizationEndpointURI().toString())
                         .claim("redirect_uri", callbackUrl)
                         .claim("response_type", ResponseType.CODE.toString())
                         .claim("scope", Scope.parse(scopes).toString())
-                        .claim("nonce", new Nonce().getValue())
+                        .claim("nonce", journey.nonce())
                         .claim("client_id", this.clientId.getValue())
-                        .claim("state", new State().getValue())
+                        .claim("state", journey.state())
                         .claim("vtr", vtr)
                         .claim("claims", userInfoClaimsRequest.toJSONString())
                         .claim("prompt", authRequestPrompt.toString())
@@ -314,7 +406,7 @@ public class Oidc {
         return new AuthenticationRequest.Builder(
                         ResponseType.CODE, Scope.parse(scopes), this.clientId, null)
                 .endpointURI(endpointURI)
-                .requestObject(signJwtWithClaims(requestObject.build()))
+                .requestObject(signJwtWithClaims(requestObject.build(), useAlternativeDomain))
                 .build();
     }
 
@@ -333,6 +425,104 @@ public class Oidc {
             boolean useAlternativeDomain)
             throws URISyntaxException, RuntimeException {
         LOG.info("Building Authorize Request");
+        var journey = startJourney(codeVerifier, useAlternativeDomain);
+        var authorizationRequestBuilder =
+                queryParamAuthorizeRequestBuilder(
+                                callbackUrl,
+                                vtr,
+                                scopes,
+                                claimsSetRequest,
+                                language,
+                                prompt,
+                                rpSid,
+                                maxAge,
+                                channel,
+                                useAlternativeDomain)
+                        .state(new State(journey.state()))
+                        .nonce(new Nonce(journey.nonce()));
+
+        if (Objects.nonNull(codeVerifier)) {
+            validateCodeChallengeMethodNotNull(codeChallengeMethod);
+
+            authorizationRequestBuilder.codeChallenge(codeVerifier, codeChallengeMethod);
+        }
+
+        return authorizationRequestBuilder.build();
+    }
+
+    private Journey startJourney(CodeVerifier codeVerifier, boolean useAlternativeDomain) {
+        var journey =
+                Journey.start(
+                        clientId.getValue(), codeVerifier, useAlternativeDomain, Instant.now());
+        JourneyStore.getInstance().put(journey);
+        JourneyContext.putState(journey.state());
+        return journey;
+    }
+
+    // Same request as buildQueryParamAuthorizeRequest with S256 PKCE, but everything other than
+    // the state, nonce and code challenge comes from a template rendered once per option set
+    public String buildCachedQueryParamAuthorizeRequest(
+            AuthorizeRequestOptions options, CodeVerifier codeVerifier) {
+        var journey = startJourney(codeVerifier, options.useAlternativeDomain());
+        var uri =
+                new StringBuilder(
+                                provider.authorizeRequestTemplates.get(
+                                        options, this::renderTemplate))
+                        .append("&state=")
+                        .append(journey.state())
+                        .append("&nonce=")
+                        .append(journey.nonce());
+        if (Objects.nonNull(codeVerifier)) {
+            uri.append("&code_challenge=")
+                    .append(
+                            CodeChallenge.compute(CodeChallengeMethod.S256, codeVerifier)
+                                    .getValue())
+                    .append("&code_challenge_method=")
+                    .append(CodeChallengeMethod.S256.getValue());
+        }
+        return uri.toString();
+    }
+
+    private String renderTemplate(AuthorizeRequestOptions options) {
+        var claimsSetRequest = new ClaimsSetRequest();
+        for (var claim : options.essentialClaims()) {
+            claimsSetRequest =
+                    claimsSetRequest.add(
+                            new ClaimsSetRequest.Entry(claim)
+                                    .withClaimRequirement(ClaimRequirement.ESSENTIAL));
+        }
+        try {
+            return queryParamAuthorizeRequestBuilder(
+                            options.callbackUrl(),
+                            options.vtr(),
+                            options.scopes(),
+                            claimsSetRequest,
+                            options.language(),
+                            options.prompt(),
+                            options.rpSid(),
+                            options.maxAge(),
+                            options.channel(),
+                            options.useAlternativeDomain())
+                    .build()
+                    .toURI()
+                    .toString();
+        } catch (URISyntaxException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private AuthenticationRequest.Builder queryParamAuthorizeRequestBuilder(
+            String callbackUrl,
+            List<String> vtr,
+            List<String> scopes,
+            ClaimsSetRequest claimsSetRequest,
+            String language,
+            String prompt,
+            String rpSid,
+            String maxAge,
+            String channel,
+            boolean useAlternativeDomain)
+            throws URISyntaxException {
         Prompt authRequestPrompt;
         try {
             authRequestPrompt = Prompt.parse(prompt);
@@ -346,18 +536,10 @@ public class Oidc {
                                 Scope.parse(scopes),
                                 this.clientId,
                                 new URI(callbackUrl))
-                        .state(new State())
-                        .nonce(new Nonce())
                         .prompt(authRequestPrompt)
                         .endpointURI(endpointURI)
                         .customParameter("vtr", JSONArray.toJSONString(vtr));
 
-        if (Objects.nonNull(codeVerifier)) {
-            validateCodeChallengeMethodNotNull(codeChallengeMethod);
-
-            authorizationRequestBuilder.codeChallenge(codeVerifier, codeChallengeMethod);
-        }
-
         if (claimsSetRequest.getEntries().size() > 0) {
             LOG.info("Adding claims to Authorize Request");
             authorizationRequestBuilder.claims(
@@ -385,7 +567,7 @@ public class Oidc {
             authorizationRequestBuilder.customParameter("channel", channel);
         }
 
-        return authorizationRequestBuilder.build();
+        return authorizationRequestBuilder;
     }
 
     public String buildDocAppAuthorizeRequest(
@@ -394,7 +576,9 @@ public class Oidc {
         var authRequestBuilder =
                 new AuthorizationRequest.Builder(
                                 new ResponseType(ResponseType.Value.CODE), this.clientId)
-                        .requestObject(generateSignedJWT(scopes, callbackUrl, language))
+                        .requestObject(
+                                generateSignedJWT(
+                                        scopes, callbackUrl, language, useAlternativeDomain))
                         .scope(new Scope(OIDCScopeValue.OPENID))
                         .endpointURI(
                                 getProviderMetadata(useAlternativeDomain)
@@ -421,46 +605,101 @@ public class Oidc {
 
     public void validateIdToken(JWT idToken, boolean useAlternativeDomain)
             throws MalformedURLException {
+        validateIdToken(idToken, null, useAlternativeDomain);
+    }
+
+    // The nonce is only checked when one is given
+    public void validateIdToken(JWT idToken, Nonce expectedNonce, boolean useAlternativeDomain)
+            throws MalformedURLException {
         LOG.info("Validating ID token");
-        ResourceRetriever resourceRetriever = new DefaultResourceRetriever(30000, 30000);
-        var potentiallyAltProviderMetadata = getProviderMetadata(useAlternativeDomain);
         var idTokenValidator =
                 new IDTokenValidator(
                         // Hardcode this to use the real issuer value
-                        this.providerMetadata.getIssuer(),
+                        this.provider.metadata.getIssuer(),
                         this.clientId,
-                        JWSAlgorithm.parse(this.relyingPartyConfig.idTokenSigningAlgorithm()),
-                        potentiallyAltProviderMetadata.getJWKSetURI().toURL(),
-                        resourceRetriever);
+                        jwsKeySelector(useAlternativeDomain),
+                        null);
 
+        var start = System.nanoTime();
         try {
-            idTokenValidator.validate(idToken, null);
+            idTokenValidator.validate(idToken, expectedNonce);
         } catch (BadJOSEException | JOSEException e) {
             LOG.error("Unexpected exception thrown when validating ID token", e);
             throw new RuntimeException(e);
+        } finally {
+            timers.get(Metrics.Stage.ID_TOKEN_VALIDATION, useAlternativeDomain).recordSince(start);
         }
     }
 
-    public Optional<LogoutTokenClaimsSet> validateLogoutToken(
-            JWT logoutToken, boolean useAlternativeDomain) {
-        try {
-            var potentiallyAltProviderMetadata = getProviderMetadata(useAlternativeDomain);
-            var validator =
+    // Both domains issue logout tokens with the same issuer and the OP sends no cookie to say
+    // which one it is, so the token is checked against each domain's keys in turn
+    public Optional<LogoutTokenClaimsSet> validateLogoutToken(JWT logoutToken) {
+        var domains =
+                provider.alternativeMetadata.isPresent() ? List.of(false, true) : List.of(false);
+        Exception failure = null;
+        for (var useAlternativeDomain : domains) {
+            var start = System.nanoTime();
+            try {
+                return Optional.of(
+                        logoutTokenValidator(useAlternativeDomain).validate(logoutToken));
+            } catch (BadJOSEException | JOSEException | MalformedURLException e) {
+                failure = e;
+            } finally {
+                timers.get(Metrics.Stage.LOGOUT_TOKEN_VALIDATION, useAlternativeDomain)
+                        .recordSince(start);
+            }
+        }
+        LOG.error("Unexpected exception thrown when validating logout token", failure);
+        return Optional.empty();
+    }
+
+    // The validator holds no per-token state, so one per domain serves every logout
+    private LogoutTokenValidator logoutTokenValidator(boolean useAlternativeDomain)
+            throws MalformedURLException {
+        var current = provider;
+        var index = useAlternativeDomain ? 1 : 0;
+        var validator = current.logoutTokenValidators[index];
+        if (validator == null) {
+            validator =
                     new LogoutTokenValidator(
                             // Hardcode this to use the real issuer value
-                            this.providerMetadata.getIssuer(),
+                            current.metadata.getIssuer(),
                             this.clientId,
-                            JWSAlgorithm.parse(relyingPartyConfig.idTokenSigningAlgorithm()),
-                            potentiallyAltProviderMetadata.getJWKSetURI().toURL(),
-                            new DefaultResourceRetriever(30000, 30000));
+                            false,
+                            jwsKeySelector(useAlternativeDomain),
+                            null);
+            current.logoutTokenValidators[index] = validator;
+        }
+        return validator;
+    }
 
-            return Optional.of(validator.validate(logoutToken));
-        } catch (BadJOSEException | JOSEException | MalformedURLException e) {
-            LOG.error("Unexpected exception thrown when validating logout token", e);
-            return Optional.empty();
+    public void prefetchKeys() {
+        try {
+            var current = provider;
+            JwksCache.forUrl(current.metadata.getJWKSetURI().toURL()).prefetch();
+            if (current.alternativeMetadata.isPresent()) {
+                JwksCache.forUrl(current.alternativeMetadata.get().getJWKSetURI().toURL())
+                        .prefetch();
+            }
+        } catch (MalformedURLException | KeySourceException e) {
+            throw new RuntimeException(e);
         }
     }
 
+    public void primeClientAssertions() {
+        if (relyingPartyConfig.tokenClientSecret() == null) {
+            provider.clientAssertions.prime();
+        }
+    }
+
+    private JWSVerificationKeySelector<SecurityContext> jwsKeySelector(boolean useAlternativeDomain)
+            throws MalformedURLException {
+        var jwksUrl = getProviderMetadata(useAlternativeDomain).getJWKSetURI().toURL();
+        return new JWSVerificationKeySelector<>(
+                JWSAlgorithm.parse(relyingPartyConfig.idTokenSigningAlgorithm()),
+                JwksCache.forUrl(jwksUrl));
+    }
+
     private void validateCodeChallengeMethodNotNull(CodeChallengeMethod codeChallengeMethod)
             throws RuntimeException {
         if (Objects.isNull(codeChallengeMethod)) {
@@ -469,51 +708,53 @@ public class Oidc {
         }
     }
 
-    private SignedJWT generateSignedJWT(Scope scopes, String callbackURL, String language) {
+    private SignedJWT generateSignedJWT(
+            Scope scopes, String callbackURL, String language, boolean useAlternativeDomain) {
+        var journey = startJourney(null, useAlternativeDomain);
         var jwtClaimsSet =
                 new JWTClaimsSet.Builder()
-                        .audience(this.providerMetadata.getAuthorizationEndpointURI().toString())
+                        .audience(this.provider.metadata.getAuthorizationEndpointURI().toString())
                         .subject(new Subject().getValue())
                         .claim("redirect_uri", callbackURL)
                         .claim("response_type", ResponseType.CODE.toString())
                         .claim("scope", scopes.toString())
-                        .claim("nonce", new Nonce().getValue())
+                        .claim("nonce", journey.nonce())
                         .claim("client_id", this.clientId.getValue())
-                        .claim("state", new State().getValue())
+                        .claim("state", journey.state())
                         .claim("ui_locales", language)
                         .issuer(this.clientId.getValue())
                         .build();
-        return signJwtWithClaims(jwtClaimsSet);
+        return signJwtWithClaims(jwtClaimsSet, useAlternativeDomain);
     }
 
-    private SignedJWT signJwtWithClaims(JWTClaimsSet jwtClaimsSet) {
+    private SignedJWT signJwtWithClaims(JWTClaimsSet jwtClaimsSet, boolean useAlternativeDomain) {
         JWSHeader header =
-                new JWSHeader.Builder(JWSAlgorithm.RS512)
-                        .keyID(
-                                relyingPartyConfig
-                                        .jwksConfiguration()
-                                        .get("public_key_id")
-                                        .toString())
+                new JWSHeader.Builder(signingKeys.requestSigningAlgorithm())
+                        .keyID(signingKeys.requestSigningKeyId())
                         .build();
 
         var signedJWT = new SignedJWT(header, jwtClaimsSet);
 
+        var start = System.nanoTime();
         try {
-            signedJWT.sign(new RSASSASigner(this.privateKeyReader.get()));
+            signedJWT.sign(this.signingKeys.requestSigner());
         } catch (JOSEException e) {
             LOG.error("Unable to sign secure request object", e);
             throw new RuntimeException("Unable to sign secure request object", e);
+        } finally {
+            timers.get(Metrics.Stage.REQUEST_SIGNING, useAlternativeDomain).recordSince(start);
         }
 
         return signedJWT;
     }
 
     private OIDCProviderMetadata getProviderMetadata(boolean useAlternativeDomain) {
-        if (useAlternativeDomain && this.alternativeProviderMetadata.isPresent()) {
+        var current = provider;
+        if (useAlternativeDomain && current.alternativeMetadata.isPresent()) {
             LOG.info("Using alternative domain");
-            return this.alternativeProviderMetadata.get();
+            return current.alternativeMetadata.get();
         } else {
-            return this.providerMetadata;
+            return current.metadata;
         }
     }
 }
@@ -0,0 +1,172 @@
+package uk.gov.di.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.Configuration;
+import uk.gov.di.config.ConfigurationChange;
+import uk.gov.di.config.RPConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+public class OidcClientRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OidcClientRegistry.class);
+
+    private static final OidcClientRegistry instance =
+            new OidcClientRegistry(
+                    Oidc::new,
+                    Clock.systemUTC(),
+                    Configuration.getProviderMetadataTtl(),
+                    Configuration.getProviderMetadataRetryInterval(),
+                    BackgroundExecutors.newCachedPool("oidc-metadata-refresh"));
+
+    private final ConcurrentHashMap<String, Entry> clients = new ConcurrentHashMap<>();
+    private final Function<RPConfig, Oidc> loader;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration retryInterval;
+    private final Executor refreshExecutor;
+
+    OidcClientRegistry(
+            Function<RPConfig, Oidc> loader,
+            Clock clock,
+            Duration ttl,
+            Duration retryInterval,
+            Executor refreshExecutor) {
+        this.loader = loader;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.retryInterval = retryInterval;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public static Oidc getClient(RPConfig relyingPartyConfig) {
+        return instance.get(relyingPartyConfig);
+    }
+
+    public static void onConfigurationChange(ConfigurationChange change) {
+        instance.apply(change);
+    }
+
+    // Drops clients for relying parties that have gone and builds the new ones up front, so
+    // the first request after a change doesn't pay for discovery
+    void apply(ConfigurationChange change) {
+        change.removed()
+                .forEach(
+                        removed ->
+                                clients.computeIfPresent(
+                                        removed.clientId(),
+                                        (clientId, entry) ->
+                                                entry.config.equals(removed) ? null : entry));
+        change.changed()
+                .forEach(
+                        changed -> {
+                            try {
+                                get(changed);
+                            } catch (RuntimeException e) {
+                                LOG.warn("Unable to load client for {}", changed.clientId(), e);
+                            }
+                        });
+    }
+
+    Oidc get(RPConfig relyingPartyConfig) {
+        var entry = clients.get(relyingPartyConfig.clientId());
+        if (entry == null || !entry.config.equals(relyingPartyConfig)) {
+            entry = install(relyingPartyConfig);
+        }
+        return entry.get();
+    }
+
+    private Entry install(RPConfig relyingPartyConfig) {
+        var candidate = new Entry(relyingPartyConfig);
+        var installed =
+                clients.compute(
+                        relyingPartyConfig.clientId(),
+                        (clientId, existing) ->
+                                existing != null && existing.config.equals(relyingPartyConfig)
+                                        ? existing
+                                        : candidate);
+        if (installed == candidate) {
+            candidate.loadInitial();
+        }
+        return installed;
+    }
+
+    private record LoadedClient(Oidc client, Instant refreshAt) {}
+
+    private final class Entry {
+        private final RPConfig config;
+        private final CompletableFuture<LoadedClient> initialLoad = new CompletableFuture<>();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile LoadedClient current;
+
+        private Entry(RPConfig config) {
+            this.config = config;
+        }
+
+        private Oidc get() {
+            var loaded = current;
+            if (loaded == null) {
+                return awaitInitialLoad();
+            }
+            if (!clock.instant().isBefore(loaded.refreshAt())) {
+                refreshInBackground(loaded);
+            }
+            return loaded.client();
+        }
+
+        private void loadInitial() {
+            try {
+                current = new LoadedClient(loader.apply(config), clock.instant().plus(ttl));
+                initialLoad.complete(current);
+            } catch (RuntimeException e) {
+                clients.remove(config.clientId(), this);
+                initialLoad.completeExceptionally(e);
+            }
+        }
+
+        private Oidc awaitInitialLoad() {
+            try {
+                return initialLoad.join().client();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        private void refreshInBackground(LoadedClient stale) {
+            if (!refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            refreshExecutor.execute(
+                    () -> {
+                        try {
+                            // Refresh in place so the caches hanging off the client survive
+                            stale.client().refreshProviderMetadata();
+                            current = new LoadedClient(stale.client(), clock.instant().plus(ttl));
+                            LOG.info("Refreshed provider metadata for {}", config.clientId());
+                        } catch (RuntimeException e) {
+                            LOG.warn(
+                                    "Metadata refresh failed for {}, serving stale copy",
+                                    config.clientId(),
+                                    e);
+                            current =
+                                    new LoadedClient(
+                                            stale.client(), clock.instant().plus(retryInterval));
+                        } finally {
+                            refreshing.set(false);
+                        }
+                    });
+        }
+    }
+}
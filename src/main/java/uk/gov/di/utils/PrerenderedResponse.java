@@ -0,0 +1,98 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.util.Base64URL;
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
+
+public class PrerenderedResponse {
+    private final String contentType;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final String etag;
+    private final String gzipEtag;
+
+    public PrerenderedResponse(String contentType, byte[] body) {
+        this(contentType, body, gzip(body));
+    }
+
+    // gzippedBody may be null for formats that don't compress
+    public PrerenderedResponse(String contentType, byte[] body, byte[] gzippedBody) {
+        this.contentType = contentType;
+        this.body = body;
+        this.gzippedBody = gzippedBody;
+        var digest = Base64URL.encode(sha256(body)).toString();
+        this.etag = "\"" + digest + "\"";
+        this.gzipEtag = "\"" + digest + "-gzip\"";
+    }
+
+    public void send(Context ctx) {
+        var gzip = gzippedBody != null && acceptsGzip(ctx.header("Accept-Encoding"));
+        ctx.header("Vary", "Accept-Encoding");
+        ctx.header("ETag", gzip ? gzipEtag : etag);
+        if (isNotModified(ctx.header("If-None-Match"))) {
+            ctx.status(HttpStatus.NOT_MODIFIED);
+            return;
+        }
+        ctx.contentType(contentType);
+        if (gzip) {
+            ctx.header("Content-Encoding", "gzip");
+            ctx.result(gzippedBody);
+        } else {
+            ctx.result(body);
+        }
+    }
+
+    private boolean isNotModified(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (var candidate : ifNoneMatch.split(",")) {
+            var tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (var coding : acceptEncoding.split(",")) {
+            var parts = coding.split(";");
+            var name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] content) {
+        var compressed = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
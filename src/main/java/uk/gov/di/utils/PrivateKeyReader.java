@@ -1,11 +1,19 @@
 package uk.gov.di.utils;
 
+import org.bouncycastle.asn1.ASN1ObjectIdentifier;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+
 import java.io.IOException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.RSAPrivateCrtKey;
-import java.security.interfaces.RSAPrivateKey;
-import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.RSAPublicKeySpec;
@@ -17,30 +25,38 @@ public class PrivateKeyReader {
     private KeyFactory kf;
 
     public PrivateKeyReader(String privateKey) {
+        this(privateKey, "RSA");
+    }
+
+    public PrivateKeyReader(String privateKey, String keyAlgorithm) {
         try {
             this.privateKey = privateKey;
-            this.kf = KeyFactory.getInstance("RSA");
+            this.kf = KeyFactory.getInstance(keyAlgorithm);
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public RSAPrivateKey get() {
+    public PrivateKey get() {
         try {
-            return (RSAPrivateKey)
-                    kf.generatePrivate(new PKCS8EncodedKeySpec(format(this.privateKey)));
+            return kf.generatePrivate(new PKCS8EncodedKeySpec(format(this.privateKey)));
         } catch (InvalidKeySpecException | IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public RSAPublicKey getPublicKey() {
+    public PublicKey getPublicKey() {
         try {
-            var privateKey = (RSAPrivateCrtKey) get();
+            var key = get();
+            if (key instanceof ECPrivateKey ecPrivateKey) {
+                return kf.generatePublic(
+                        new ECPublicKeySpec(publicPoint(ecPrivateKey), ecPrivateKey.getParams()));
+            }
+            var privateKey = (RSAPrivateCrtKey) key;
             RSAPublicKeySpec publicKeySpec =
                     new RSAPublicKeySpec(privateKey.getModulus(), privateKey.getPublicExponent());
-            return (RSAPublicKey) kf.generatePublic(publicKeySpec);
-        } catch (InvalidKeySpecException e) {
+            return kf.generatePublic(publicKeySpec);
+        } catch (InvalidKeySpecException | IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -51,4 +67,35 @@ public class PrivateKeyReader {
 
         return Base64.getMimeDecoder().decode(encoded);
     }
+
+    // The JDK can't derive an EC public key from the private one, so multiply the curve's
+    // generator by the private scalar, and refuse a key whose stored public key doesn't match
+    private ECPoint publicPoint(ECPrivateKey privateKey) throws IOException {
+        var info = PrivateKeyInfo.getInstance(format(this.privateKey));
+        if (!(info.getPrivateKeyAlgorithm().getParameters()
+                instanceof ASN1ObjectIdentifier curveId)) {
+            throw new RuntimeException("EC private key must use a named curve");
+        }
+        var curve = ECNamedCurveTable.getByOID(curveId);
+        if (curve == null) {
+            throw new RuntimeException("Unsupported EC curve " + curveId);
+        }
+        var point =
+                new FixedPointCombMultiplier()
+                        .multiply(curve.getG(), privateKey.getS())
+                        .normalize();
+
+        var storedPublicKey = info.getPublicKeyData();
+        if (storedPublicKey == null) {
+            storedPublicKey =
+                    org.bouncycastle.asn1.sec.ECPrivateKey.getInstance(info.parsePrivateKey())
+                            .getPublicKey();
+        }
+        if (storedPublicKey != null
+                && !curve.getCurve().decodePoint(storedPublicKey.getOctets()).equals(point)) {
+            throw new RuntimeException("EC private key doesn't match its stored public key");
+        }
+        return new ECPoint(
+                point.getAffineXCoord().toBigInteger(), point.getAffineYCoord().toBigInteger());
+    }
 }
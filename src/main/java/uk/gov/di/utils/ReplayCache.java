@@ -0,0 +1,64 @@
+package uk.gov.di.utils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+// Remembers identifiers for a fixed window so a second use inside it can be refused. Every
+// identifier is kept for the same window, so first-use order is also expiry order and only the
+// head of the queue ever needs looking at.
+public class ReplayCache {
+    private record Use(String id, Instant until) {}
+
+    private final ConcurrentHashMap<String, Instant> seenUntil = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Use> uses = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final Duration window;
+    private final Clock clock;
+    private final LongAdder evictions = new LongAdder();
+
+    public ReplayCache(int maxEntries, Duration window, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.window = window;
+        this.clock = clock;
+    }
+
+    public boolean firstUse(String id) {
+        var now = Instant.now(clock);
+        var until = now.plus(window);
+        var previous = seenUntil.putIfAbsent(id, until);
+        if (previous != null
+                && (now.isBefore(previous) || !seenUntil.replace(id, previous, until))) {
+            return false;
+        }
+        uses.add(new Use(id, until));
+        trim(now);
+        return true;
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    int size() {
+        return seenUntil.size();
+    }
+
+    // Drops expired identifiers, then the oldest live ones while over the bound, so the most
+    // recently used identifiers are the last to be forgotten
+    private void trim(Instant now) {
+        Use oldest;
+        while ((oldest = uses.peek()) != null) {
+            var expired = !now.isBefore(oldest.until());
+            if (!expired && seenUntil.size() <= maxEntries) {
+                return;
+            }
+            if (uses.remove(oldest) && seenUntil.remove(oldest.id(), oldest.until()) && !expired) {
+                evictions.increment();
+            }
+        }
+    }
+}
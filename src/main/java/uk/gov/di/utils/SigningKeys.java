@@ -0,0 +1,173 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import uk.gov.di.config.RPConfig;
+
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SigningKeys {
+
+    private static final ConcurrentHashMap<RPConfig, SigningKeys> keysByRelyingParty =
+            new ConcurrentHashMap<>();
+
+    private static final JWSAlgorithm DEFAULT_REQUEST_SIGNING_ALGORITHM = JWSAlgorithm.RS512;
+    private static final Set<JWSAlgorithm> EC_REQUEST_SIGNING_ALGORITHMS =
+            Set.of(JWSAlgorithm.ES256, JWSAlgorithm.ES384, JWSAlgorithm.ES512);
+
+    private final JWSAlgorithm requestSigningAlgorithm;
+    private final PrivateKey requestSigningKey;
+    private final PublicKey requestSigningPublicKey;
+    private final String requestSigningKeyId;
+    private final JWSSigner requestSigner;
+    private final Optional<JWSSigner> inheritedIdentitySigner;
+
+    private SigningKeys(RPConfig relyingPartyConfig) {
+        this.requestSigningAlgorithm = requestSigningAlgorithm(relyingPartyConfig);
+        var ec = EC_REQUEST_SIGNING_ALGORITHMS.contains(requestSigningAlgorithm);
+        var privateKeyReader =
+                new PrivateKeyReader(relyingPartyConfig.clientPrivateKey(), ec ? "EC" : "RSA");
+        this.requestSigningKey = privateKeyReader.get();
+        this.requestSigningPublicKey = privateKeyReader.getPublicKey();
+        this.requestSigningKeyId = thumbprint(requestSigningPublicKey);
+        this.requestSigner =
+                ec
+                        ? ecdsaSigner((ECPrivateKey) requestSigningKey, requestSigningAlgorithm)
+                        : new RSASSASigner(requestSigningKey);
+        this.inheritedIdentitySigner =
+                Optional.ofNullable(relyingPartyConfig.inheritedIdentityJwtSigningKey())
+                        .map(SigningKeys::decodeEcPrivateKey)
+                        .map(SigningKeys::ecdsaSigner);
+    }
+
+    public static SigningKeys forRelyingParty(RPConfig relyingPartyConfig) {
+        return keysByRelyingParty.computeIfAbsent(relyingPartyConfig, SigningKeys::load);
+    }
+
+    public static void preload(Collection<RPConfig> relyingPartyConfigs) {
+        relyingPartyConfigs.forEach(SigningKeys::forRelyingParty);
+    }
+
+    public static void evict(Collection<RPConfig> relyingPartyConfigs) {
+        relyingPartyConfigs.forEach(keysByRelyingParty::remove);
+    }
+
+    public JWSAlgorithm requestSigningAlgorithm() {
+        return requestSigningAlgorithm;
+    }
+
+    public PrivateKey requestSigningKey() {
+        return requestSigningKey;
+    }
+
+    public PublicKey requestSigningPublicKey() {
+        return requestSigningPublicKey;
+    }
+
+    public String requestSigningKeyId() {
+        return requestSigningKeyId;
+    }
+
+    public JWSSigner requestSigner() {
+        return requestSigner;
+    }
+
+    public JWSSigner inheritedIdentitySigner() {
+        return inheritedIdentitySigner.orElseThrow(
+                () -> new RuntimeException("No inherited identity signing key configured"));
+    }
+
+    private static SigningKeys load(RPConfig relyingPartyConfig) {
+        try {
+            return new SigningKeys(relyingPartyConfig);
+        } catch (RuntimeException e) {
+            throw new RuntimeException(
+                    "Invalid signing key configured for " + relyingPartyConfig.clientId(), e);
+        }
+    }
+
+    public static JWK publicJwk(PublicKey key, String keyId, JWSAlgorithm algorithm) {
+        if (key instanceof ECPublicKey ecPublicKey) {
+            return new ECKey.Builder(Curve.forECParameterSpec(ecPublicKey.getParams()), ecPublicKey)
+                    .keyID(keyId)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(algorithm)
+                    .build();
+        }
+        return new RSAKey.Builder((RSAPublicKey) key)
+                .keyID(keyId)
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(algorithm)
+                .build();
+    }
+
+    private static JWSAlgorithm requestSigningAlgorithm(RPConfig relyingPartyConfig) {
+        var name = relyingPartyConfig.requestSigningAlgorithm();
+        if (name == null) {
+            return DEFAULT_REQUEST_SIGNING_ALGORITHM;
+        }
+        var algorithm = JWSAlgorithm.parse(name);
+        if (!JWSAlgorithm.Family.RSA.contains(algorithm)
+                && !EC_REQUEST_SIGNING_ALGORITHMS.contains(algorithm)) {
+            throw new RuntimeException("Unsupported request signing algorithm " + name);
+        }
+        return algorithm;
+    }
+
+    // The RFC 7638 thumbprint is the same on every task, so the OP's JWKS cache keeps hitting
+    private static String thumbprint(PublicKey key) {
+        try {
+            return publicJwk(key, null, null).computeThumbprint().toString();
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static JWSSigner ecdsaSigner(ECPrivateKey key, JWSAlgorithm algorithm) {
+        var curve = Curve.forECParameterSpec(key.getParams());
+        if (!Curve.forJWSAlgorithm(algorithm).contains(curve)) {
+            throw new RuntimeException(
+                    "Request signing key on curve " + curve + " can't be used for " + algorithm);
+        }
+        return ecdsaSigner(key);
+    }
+
+    private static ECPrivateKey decodeEcPrivateKey(String key) {
+        try {
+            var binaryKey = Base64.getDecoder().decode(key);
+            var factory = KeyFactory.getInstance("EC");
+            return (ECPrivateKey) factory.generatePrivate(new PKCS8EncodedKeySpec(binaryKey));
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static JWSSigner ecdsaSigner(ECPrivateKey key) {
+        try {
+            return new ECDSASigner(key);
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.gov.di.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class StageGroup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StageGroup.class);
+
+    private final ExecutorService executor;
+    private final Queue<CompletableFuture<?>> stages = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public StageGroup(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    public <T> CompletableFuture<T> run(String name, Duration timeout, Callable<T> task) {
+        var stage = start(name, timeout, task);
+        stage.whenComplete(
+                (result, error) -> {
+                    if (error != null) {
+                        cancel();
+                    }
+                });
+        return stage;
+    }
+
+    public CompletableFuture<Void> runOptional(String name, Duration timeout, Runnable task) {
+        return this.<Void>start(
+                        name,
+                        timeout,
+                        () -> {
+                            task.run();
+                            return null;
+                        })
+                .exceptionally(
+                        error -> {
+                            LOG.warn("Optional stage {} did not complete", name, error);
+                            return null;
+                        });
+    }
+
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            stages.forEach(stage -> stage.cancel(true));
+        }
+    }
+
+    private <T> CompletableFuture<T> start(String name, Duration timeout, Callable<T> task) {
+        var stage = new CompletableFuture<T>();
+        stages.add(stage);
+        if (cancelled.get()) {
+            stage.cancel(true);
+            return stage;
+        }
+
+        var call = JourneyContext.propagate(task);
+        var running =
+                executor.submit(
+                        () -> {
+                            try {
+                                stage.complete(call.call());
+                            } catch (Exception e) {
+                                stage.completeExceptionally(e);
+                            }
+                        });
+        CompletableFuture.delayedExecutor(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(
+                        () ->
+                                stage.completeExceptionally(
+                                        new TimeoutException(
+                                                name
+                                                        + " timed out after "
+                                                        + timeout.toMillis()
+                                                        + "ms")));
+        // Interrupting the worker aborts any blocking HTTP call it is making
+        stage.whenComplete(
+                (result, error) -> {
+                    if (error != null) {
+                        running.cancel(true);
+                    }
+                });
+        return stage;
+    }
+}
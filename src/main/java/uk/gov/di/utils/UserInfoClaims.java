@@ -0,0 +1,107 @@
+package uk.gov.di.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.oauth2.sdk.ParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A userinfo response read in one pass. Top level strings are decoded as they're read, but
+// objects and arrays such as the passport and address claims are only located, and decoded if
+// something asks for them. The raw response is kept for display.
+public class UserInfoClaims {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper objectMapper = new ObjectMapper(jsonFactory);
+
+    private record Span(int start, int end) {}
+
+    private final byte[] json;
+    private final Map<String, String> scalars;
+    private final Map<String, Span> structured;
+
+    private UserInfoClaims(byte[] json, Map<String, String> scalars, Map<String, Span> structured) {
+        this.json = json;
+        this.scalars = scalars;
+        this.structured = structured;
+    }
+
+    public static UserInfoClaims read(byte[] json) throws ParseException {
+        var scalars = new HashMap<String, String>();
+        var structured = new HashMap<String, Span>();
+        try (var parser = jsonFactory.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ParseException("Userinfo response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                var name = parser.currentName();
+                var value = parser.nextToken();
+                scalars.remove(name);
+                structured.remove(name);
+                if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                    var start = offset(parser.currentTokenLocation().getByteOffset());
+                    parser.skipChildren();
+                    structured.put(
+                            name,
+                            new Span(start, offset(parser.currentLocation().getByteOffset())));
+                } else if (value != JsonToken.VALUE_NULL) {
+                    scalars.put(name, parser.getText());
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT || parser.nextToken() != null) {
+                throw new ParseException("Userinfo response is not a single JSON object");
+            }
+        } catch (IOException e) {
+            throw new ParseException("Invalid userinfo response: " + e.getMessage(), e);
+        }
+        return new UserInfoClaims(json, scalars, structured);
+    }
+
+    public boolean has(String name) {
+        return scalars.containsKey(name) || structured.containsKey(name);
+    }
+
+    // Null if the claim is missing or isn't a string, number or boolean
+    public String stringClaim(String name) {
+        return scalars.get(name);
+    }
+
+    // A scalar claim's value, or the JSON text of an object or array claim
+    public String claimAsText(String name) {
+        var span = structured.get(name);
+        if (span == null) {
+            return scalars.get(name);
+        }
+        return new String(json, span.start(), span.end() - span.start(), StandardCharsets.UTF_8);
+    }
+
+    public List<String> stringListClaim(String name) throws ParseException {
+        var span = structured.get(name);
+        if (span == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(
+                    json, span.start(), span.end() - span.start(), new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new ParseException("Claim " + name + " is not a list of strings", e);
+        }
+    }
+
+    public String json() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private static int offset(long byteOffset) throws ParseException {
+        if (byteOffset < 0) {
+            throw new ParseException("Unable to locate claim in userinfo response");
+        }
+        return (int) byteOffset;
+    }
+}
@@ -0,0 +1,147 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.gov.di.config.RPConfig;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class WarmUp {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmUp.class);
+
+    private final List<RPConfig> relyingParties;
+    private final int signingIterations;
+    private final Duration timeout;
+    private final ExecutorService executor = BackgroundExecutors.newCachedPool("warm-up");
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    public WarmUp(Collection<RPConfig> relyingParties, int signingIterations, Duration timeout) {
+        this.relyingParties = List.copyOf(relyingParties);
+        this.signingIterations = signingIterations;
+        this.timeout = timeout;
+    }
+
+    public void start() {
+        var startNanos = System.nanoTime();
+        var tasks = new ArrayList<CompletableFuture<Void>>();
+        for (var relyingParty : relyingParties) {
+            tasks.add(
+                    run(
+                            "provider metadata and JWKS for " + relyingParty.clientId(),
+                            () -> {
+                                var client = OidcClientRegistry.getClient(relyingParty);
+                                client.prefetchKeys();
+                                client.primeClientAssertions();
+                            }));
+            tasks.add(
+                    run(
+                            "DID document for " + relyingParty.clientId(),
+                            () -> CoreIdentityValidator.forRelyingParty(relyingParty).prefetch()));
+        }
+        tasks.add(run("signing", this::warmSigning));
+
+        CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete(
+                        (result, error) -> {
+                            if (error != null) {
+                                LOG.warn("Warm-up did not finish within {}", timeout);
+                            }
+                            LOG.info(
+                                    "Warm-up finished in {}ms",
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+                            completion.complete(null);
+                            executor.shutdown();
+                        });
+    }
+
+    public boolean isComplete() {
+        return completion.isDone();
+    }
+
+    // A task that fails is logged and counts as done, so one unreachable OP can't keep the
+    // task out of service
+    private CompletableFuture<Void> run(String name, Runnable task) {
+        return CompletableFuture.runAsync(task, executor)
+                .exceptionally(
+                        error -> {
+                            LOG.warn("Unable to warm up {}", name, error);
+                            return null;
+                        });
+    }
+
+    // The JIT compiles the signing and parsing code on the request path only after it has run
+    // many times, so exercise it before taking traffic
+    private void warmSigning() {
+        try {
+            var ecKey = new ECKeyGenerator(Curve.P_256).generate();
+            var ecSigner = new ECDSASigner(ecKey);
+            var ecVerifier = new ECDSAVerifier(ecKey.toPublicJWK());
+            var requestKeys = relyingParties.stream().findFirst().map(SigningKeys::forRelyingParty);
+            var requestVerifier = requestKeys.map(WarmUp::requestVerifier);
+            for (int i = 0; i < signingIterations; i++) {
+                var claims =
+                        new JWTClaimsSet.Builder()
+                                .subject(UUID.randomUUID().toString())
+                                .issueTime(new Date())
+                                .claim("nonce", i)
+                                .build();
+                signAndVerify(JWSAlgorithm.ES256, claims, ecSigner, ecVerifier);
+                if (requestKeys.isPresent()) {
+                    signAndVerify(
+                            requestKeys.get().requestSigningAlgorithm(),
+                            claims,
+                            requestKeys.get().requestSigner(),
+                            requestVerifier.get());
+                }
+            }
+        } catch (JOSEException | ParseException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static JWSVerifier requestVerifier(SigningKeys keys) {
+        try {
+            return new DefaultJWSVerifierFactory()
+                    .createJWSVerifier(
+                            new JWSHeader(keys.requestSigningAlgorithm()),
+                            keys.requestSigningPublicKey());
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void signAndVerify(
+            JWSAlgorithm algorithm, JWTClaimsSet claims, JWSSigner signer, JWSVerifier verifier)
+            throws JOSEException, ParseException {
+        var jwt = new SignedJWT(new JWSHeader(algorithm), claims);
+        jwt.sign(signer);
+        var parsed = SignedJWT.parse(jwt.serialize());
+        if (!parsed.verify(verifier)) {
+            throw new IllegalStateException("Warm-up signature did not verify");
+        }
+        parsed.getJWTClaimsSet();
+    }
+}
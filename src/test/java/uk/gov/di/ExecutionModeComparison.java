@@ -0,0 +1,163 @@
+package uk.gov.di;
+
+import io.javalin.Javalin;
+import io.javalin.util.ConcurrencyUtil;
+import uk.gov.di.config.ExecutionMode;
+import uk.gov.di.fakeop.FakeOp;
+import uk.gov.di.fakeop.FakeOpSettings;
+import uk.gov.di.fakeop.FakeOpSettings.Endpoint;
+import uk.gov.di.fakeop.FakeOpSettings.Faults;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.net.http.HttpResponse.BodyHandlers.discarding;
+import static java.net.http.HttpResponse.BodyHandlers.ofString;
+
+/**
+ * Drives a fixed number of concurrent clients at a Javalin server whose handler blocks on a call
+ * to the fake OP, with the OP's JWKS endpoint slowed by the OP delay, once per execution mode, and
+ * prints throughput and latency for each.
+ *
+ * <p>Run with {@code ./gradlew compareExecutionModes}. Arguments are concurrency, OP delay in
+ * milliseconds and measurement time in seconds.
+ */
+public class ExecutionModeComparison {
+
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+
+    private final int concurrency;
+    private final Duration opDelay;
+    private final Duration measurement;
+
+    private ExecutionModeComparison(int concurrency, Duration opDelay, Duration measurement) {
+        this.concurrency = concurrency;
+        this.opDelay = opDelay;
+        this.measurement = measurement;
+    }
+
+    public static void main(String[] args) throws Exception {
+        var concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        var opDelay = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 200);
+        var measurement = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+        var comparison = new ExecutionModeComparison(concurrency, opDelay, measurement);
+
+        System.out.printf(
+                "Java %s, %d concurrent clients, OP delay %dms, %ds per mode%n",
+                Runtime.version(), concurrency, opDelay.toMillis(), measurement.toSeconds());
+        System.out.printf(
+                "%-10s %10s %12s %10s %10s %10s%n",
+                "mode", "requests", "requests/s", "p50 ms", "p99 ms", "errors");
+        for (var mode : ExecutionMode.values()) {
+            if (mode.usesVirtualThreads() && !ConcurrencyUtil.isLoomAvailable()) {
+                System.out.printf("%-10s virtual threads need Java 21 or later%n", "virtual");
+                continue;
+            }
+            comparison.run(mode).print(mode);
+        }
+    }
+
+    private Result run(ExecutionMode mode) throws Exception {
+        var op =
+                FakeOp.start(
+                        FakeOpSettings.defaults()
+                                .withFaults(Endpoint.JWKS, new Faults(opDelay, Duration.ZERO, 0)));
+        var opUri = URI.create(op.issuer() + "/.well-known/jwks.json");
+        var opClient = HttpClient.newHttpClient();
+        var opRequest = HttpRequest.newBuilder(opUri).build();
+        var app =
+                Javalin.create(
+                                config -> {
+                                    config.concurrency.useVirtualThreads =
+                                            mode.usesVirtualThreads();
+                                    config.jetty.port = 0;
+                                    config.routes.get(
+                                            "/callback",
+                                            ctx ->
+                                                    ctx.result(
+                                                            opClient.send(opRequest, ofString())
+                                                                    .body()));
+                                })
+                        .start();
+        try {
+            var appUri = URI.create("http://localhost:" + app.port() + "/callback");
+            drive(appUri, WARM_UP);
+            return drive(appUri, measurement);
+        } finally {
+            app.stop();
+            op.close();
+        }
+    }
+
+    private Result drive(URI uri, Duration duration) throws InterruptedException {
+        var client = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+        var deadline = System.nanoTime() + duration.toNanos();
+        var errors = new AtomicLong();
+        var latencies = new long[concurrency][];
+        var finished = new CountDownLatch(concurrency);
+        var workers = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            var worker = i;
+            workers.execute(
+                    () -> {
+                        var samples = new ArrayList<Long>();
+                        try {
+                            var request = HttpRequest.newBuilder(uri).build();
+                            while (System.nanoTime() < deadline) {
+                                var start = System.nanoTime();
+                                try {
+                                    var response = client.send(request, discarding());
+                                    if (response.statusCode() == 200) {
+                                        samples.add(System.nanoTime() - start);
+                                    } else {
+                                        errors.incrementAndGet();
+                                    }
+                                } catch (IOException e) {
+                                    errors.incrementAndGet();
+                                }
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            latencies[worker] =
+                                    samples.stream().mapToLong(Long::longValue).toArray();
+                            finished.countDown();
+                        }
+                    });
+        }
+        finished.await();
+        workers.shutdown();
+
+        var all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Result(all, duration, errors.get());
+    }
+
+    private record Result(long[] sortedLatencies, Duration duration, long errors) {
+        void print(ExecutionMode mode) {
+            System.out.printf(
+                    "%-10s %10d %12.1f %10.1f %10.1f %10d%n",
+                    mode.name().toLowerCase(),
+                    sortedLatencies.length,
+                    sortedLatencies.length / (duration.toMillis() / 1000.0),
+                    percentileMillis(0.50),
+                    percentileMillis(0.99),
+                    errors);
+        }
+
+        private double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            var index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
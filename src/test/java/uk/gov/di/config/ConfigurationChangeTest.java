@@ -0,0 +1,56 @@
+package uk.gov.di.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigurationChangeTest {
+
+    @Test
+    void shouldReportAddedChangedAndRemovedRelyingParties() {
+        var unchanged = rpConfig("client-1", "https://oidc.example.com/");
+        var before = rpConfig("client-2", "https://oidc.example.com/");
+        var after = rpConfig("client-2", "https://oidc.other.example.com/");
+        var removed = rpConfig("client-3", "https://oidc.example.com/");
+        var added = rpConfig("client-4", "https://oidc.example.com/");
+
+        var change =
+                ConfigurationChange.between(
+                        Map.of("one", unchanged, "two", before, "three", removed),
+                        Map.of("one", unchanged, "two", after, "four", added));
+
+        assertEquals(2, change.changed().size());
+        assertTrue(change.changed().containsAll(List.of(after, added)));
+        assertEquals(2, change.removed().size());
+        assertTrue(change.removed().containsAll(List.of(before, removed)));
+    }
+
+    @Test
+    void shouldBeEmptyWhenNothingChanged() {
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+
+        assertTrue(
+                ConfigurationChange.between(Map.of("one", config), Map.of("one", config))
+                        .isEmpty());
+    }
+
+    private static RPConfig rpConfig(String clientId, String opBaseUrl) {
+        return new RPConfig(
+                "private-key",
+                null,
+                "https://home.example.com",
+                clientId,
+                "web",
+                "ES256",
+                "Test Service",
+                opBaseUrl,
+                null,
+                null,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,55 @@
+package uk.gov.di.config;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+import software.amazon.awssdk.services.secretsmanager.model.SecretsManagerException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class ConfigurationTest {
+
+    @Test
+    void shouldTakeTheVersionFromTheSecretValue() {
+        var client = mock(SecretsManagerClient.class);
+        when(client.getSecretValue(any(GetSecretValueRequest.class)))
+                .thenReturn(
+                        GetSecretValueResponse.builder()
+                                .secretString("{}")
+                                .versionId("version-2")
+                                .build());
+
+        var source = Configuration.fetchConfigFromSecretsManager(client, "/stubs/rp/CONFIGURATION");
+
+        assertEquals("version-2", source.version());
+        assertEquals("{}", source.config());
+        verify(client).getSecretValue(any(GetSecretValueRequest.class));
+        verifyNoMoreInteractions(client);
+    }
+
+    @Test
+    void shouldFailTheReloadWhenTheVersionLookupThrows() {
+        Configuration.reloadIfChanged(() -> new Configuration.Source("{}", "version-1"));
+        var loaded = Configuration.getInstance();
+        var client = mock(SecretsManagerClient.class);
+        when(client.getSecretValue(any(GetSecretValueRequest.class)))
+                .thenThrow(SecretsManagerException.builder().message("Access denied").build());
+
+        assertThrows(
+                SecretsManagerException.class,
+                () ->
+                        Configuration.reloadIfChanged(
+                                () ->
+                                        Configuration.fetchConfigFromSecretsManager(
+                                                client, "/stubs/rp/CONFIGURATION")));
+        assertSame(loaded, Configuration.getInstance());
+    }
+}
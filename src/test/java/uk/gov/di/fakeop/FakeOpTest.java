@@ -0,0 +1,267 @@
+package uk.gov.di.fakeop;
+
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
+import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
+import com.nimbusds.openid.connect.sdk.token.OIDCTokens;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.fakeop.FakeOpSettings.Endpoint;
+import uk.gov.di.fakeop.FakeOpSettings.Faults;
+import uk.gov.di.utils.CoreIdentityValidator;
+import uk.gov.di.utils.Oidc;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FakeOpTest {
+    private static final String CLIENT_ID = "fake-op-test-client";
+    private static final String CALLBACK_URL = "http://localhost/oidc/authorization-code/callback";
+    private static final String CORE_IDENTITY_CLAIM =
+            "https://vocab.account.gov.uk/v1/coreIdentityJWT";
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static String clientPrivateKey;
+
+    private FakeOp fakeOp;
+
+    @BeforeAll
+    static void generateClientKey() throws Exception {
+        var keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        clientPrivateKey =
+                Base64.getMimeEncoder()
+                        .encodeToString(
+                                keyPairGenerator.generateKeyPair().getPrivate().getEncoded());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeOp.close();
+    }
+
+    @Test
+    void shouldCompleteJourneyWithSignedTokensAndCoreIdentity() throws Exception {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var relyingPartyConfig = relyingPartyConfig();
+        var oidc = new Oidc(relyingPartyConfig);
+
+        var tokens = authenticate(oidc);
+        oidc.validateIdToken(tokens.getIDToken(), false);
+        var userInfo = oidc.makeUserInfoRequest(tokens.getAccessToken(), false);
+
+        assertEquals(
+                tokens.getIDToken().getJWTClaimsSet().getSubject(), userInfo.stringClaim("sub"));
+        assertEquals("fake.user@example.com", userInfo.stringClaim("email"));
+        assertEquals(
+                CoreIdentityValidator.Result.VALID,
+                CoreIdentityValidator.createValidator(relyingPartyConfig)
+                        .isValid(userInfo.stringClaim(CORE_IDENTITY_CLAIM)));
+    }
+
+    @Test
+    void shouldInjectConfiguredErrors() throws Exception {
+        fakeOp =
+                FakeOp.start(
+                        FakeOpSettings.defaults()
+                                .withFaults(
+                                        Endpoint.TOKEN,
+                                        new Faults(Duration.ZERO, Duration.ZERO, 1.0)));
+        var oidc = new Oidc(relyingPartyConfig());
+        var code = authorize(oidc);
+
+        var exception =
+                assertThrows(
+                        RuntimeException.class,
+                        () -> oidc.makeTokenRequest(code, CALLBACK_URL, null, false));
+        assertTrue(exception.getMessage().contains("server_error"));
+    }
+
+    @Test
+    void shouldDelayResponsesByConfiguredLatency() throws Exception {
+        fakeOp =
+                FakeOp.start(
+                        FakeOpSettings.defaults()
+                                .withFaults(
+                                        Endpoint.JWKS,
+                                        new Faults(Duration.ofMillis(200), Duration.ZERO, 0)));
+
+        var start = System.nanoTime();
+        var response = get(fakeOp.issuer() + "/.well-known/jwks.json");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(200).toNanos());
+    }
+
+    @Test
+    void shouldSendValidLogoutTokenToRelyingParty() throws Exception {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var oidc = new Oidc(relyingPartyConfig());
+
+        var claims = oidc.validateLogoutToken(SignedJWT.parse(logoutTokenFrom(fakeOp)));
+
+        assertTrue(claims.isPresent());
+        assertEquals("test-subject", claims.get().getSubject().getValue());
+    }
+
+    @Test
+    void shouldValidateLogoutTokensFromEitherDomain() throws Exception {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var defaults = FakeOpSettings.defaults();
+        int alternativePort;
+        try (var socket = new ServerSocket(0)) {
+            alternativePort = socket.getLocalPort();
+        }
+        try (var alternativeOp =
+                FakeOp.start(
+                        new FakeOpSettings(
+                                alternativePort,
+                                fakeOp.issuer(),
+                                defaults.userInfoClaims(),
+                                defaults.coreIdentityClaims(),
+                                defaults.faults()))) {
+            var primaryOnly = new Oidc(relyingPartyConfig());
+            var bothDomains = new Oidc(relyingPartyConfig("http://localhost:" + alternativePort));
+            var primaryToken = SignedJWT.parse(logoutTokenFrom(fakeOp));
+            var alternativeToken = SignedJWT.parse(logoutTokenFrom(alternativeOp));
+
+            assertTrue(bothDomains.validateLogoutToken(primaryToken).isPresent());
+            assertTrue(bothDomains.validateLogoutToken(alternativeToken).isPresent());
+            assertTrue(primaryOnly.validateLogoutToken(alternativeToken).isEmpty());
+        }
+    }
+
+    private String logoutTokenFrom(FakeOp op) throws Exception {
+        var logoutToken = new CompletableFuture<String>();
+        var relyingParty = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        relyingParty.createContext(
+                "/backchannel-logout",
+                exchange -> {
+                    var body =
+                            new String(
+                                    exchange.getRequestBody().readAllBytes(),
+                                    StandardCharsets.UTF_8);
+                    logoutToken.complete(
+                            URLEncodedUtils.parse(body, StandardCharsets.UTF_8).get(0).getValue());
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+        relyingParty.start();
+        try {
+            var response =
+                    httpClient.send(
+                            HttpRequest.newBuilder(
+                                            URI.create(
+                                                    "http://localhost:"
+                                                            + op.port()
+                                                            + "/backchannel-logout"))
+                                    .header("Content-Type", "application/x-www-form-urlencoded")
+                                    .POST(
+                                            HttpRequest.BodyPublishers.ofString(
+                                                    "backchannel_logout_uri=http://localhost:"
+                                                            + relyingParty.getAddress().getPort()
+                                                            + "/backchannel-logout&client_id="
+                                                            + CLIENT_ID
+                                                            + "&sub=test-subject"))
+                                    .build(),
+                            HttpResponse.BodyHandlers.ofString());
+
+            assertEquals("{\"status\":200}", response.body());
+            return logoutToken.get(5, TimeUnit.SECONDS);
+        } finally {
+            relyingParty.stop(0);
+        }
+    }
+
+    private OIDCTokens authenticate(Oidc oidc) throws Exception {
+        return oidc.makeTokenRequest(authorize(oidc), CALLBACK_URL, null, false);
+    }
+
+    private String authorize(Oidc oidc) throws Exception {
+        var claims =
+                new ClaimsSetRequest()
+                        .add(
+                                new ClaimsSetRequest.Entry(CORE_IDENTITY_CLAIM)
+                                        .withClaimRequirement(ClaimRequirement.ESSENTIAL));
+        var authorizeRequest =
+                oidc.buildJarAuthorizeRequest(
+                        CALLBACK_URL,
+                        List.of("P2.Cl.Cm"),
+                        List.of("openid", "email"),
+                        claims,
+                        "en",
+                        "login",
+                        "",
+                        "",
+                        "",
+                        null,
+                        null,
+                        null,
+                        "web",
+                        false);
+        var state = authorizeRequest.getRequestObject().getJWTClaimsSet().getStringClaim("state");
+
+        var response = get(authorizeRequest.toURI().toString());
+
+        assertEquals(302, response.statusCode());
+        var location = URI.create(response.headers().firstValue("Location").orElseThrow());
+        assertTrue(location.toString().startsWith(CALLBACK_URL));
+        var parameters = URLEncodedUtils.parse(location, StandardCharsets.UTF_8);
+        var code =
+                parameters.stream()
+                        .filter(p -> p.getName().equals("code"))
+                        .findFirst()
+                        .orElseThrow();
+        assertTrue(
+                parameters.stream()
+                        .anyMatch(p -> p.getName().equals("state") && p.getValue().equals(state)));
+        assertNotNull(code.getValue());
+        return code.getValue();
+    }
+
+    private static HttpResponse<String> get(String uri) throws Exception {
+        return httpClient.send(
+                HttpRequest.newBuilder(URI.create(uri)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private RPConfig relyingPartyConfig() {
+        return relyingPartyConfig(null);
+    }
+
+    private RPConfig relyingPartyConfig(String alternativeBaseUrl) {
+        return new RPConfig(
+                clientPrivateKey,
+                fakeOp.issuer() + "/.well-known/did.json",
+                null,
+                CLIENT_ID,
+                "web",
+                "ES256",
+                "Fake OP test",
+                fakeOp.issuer(),
+                null,
+                null,
+                alternativeBaseUrl,
+                null);
+    }
+}
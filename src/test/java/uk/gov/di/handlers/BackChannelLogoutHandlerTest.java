@@ -0,0 +1,44 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import uk.gov.di.config.Configuration;
+import uk.gov.di.config.MissingConfigurationException;
+import uk.gov.di.utils.LogoutEvents;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackChannelLogoutHandlerTest {
+    private static final BackChannelLogoutHandler backChannelLogoutHandler =
+            new BackChannelLogoutHandler();
+
+    @Test
+    void shouldReturnNotFoundForAnUnknownClient() {
+        try (MockedStatic<Configuration> configurationMockedStatic =
+                mockStatic(Configuration.class)) {
+            configurationMockedStatic
+                    .when(() -> Configuration.getRelyingPartyConfig("unknown-client"))
+                    .thenThrow(
+                            new MissingConfigurationException(
+                                    "Requested RP not present in configuration"));
+            var mockCtx = mock(Context.class);
+            when(mockCtx.pathParamMap()).thenReturn(Map.of("clientId", "unknown-client"));
+            when(mockCtx.pathParam("clientId")).thenReturn("unknown-client");
+            var unknownBefore = LogoutEvents.stats().unknownClient();
+
+            backChannelLogoutHandler.handle(mockCtx);
+
+            verify(mockCtx).status(404);
+            verify(mockCtx, never()).bodyAsBytes();
+            assertEquals(unknownBefore + 1, LogoutEvents.stats().unknownClient());
+        }
+    }
+}
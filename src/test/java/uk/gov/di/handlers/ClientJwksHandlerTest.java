@@ -0,0 +1,79 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.ConfigurationChange;
+import uk.gov.di.config.RPConfig;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static uk.gov.di.helpers.keyHelper.generateRsaKeyPair;
+
+class ClientJwksHandlerTest {
+
+    @Test
+    void shouldKeepServingAChangedClientWhileItsKeysAreReplaced() {
+        var before = rpConfig("client-1", "key-1");
+        var after = rpConfig("client-1", "key-2");
+        var handler = new ClientJwksHandler(List.of(before));
+        when(after.jwksConfiguration())
+                .thenAnswer(
+                        invocation -> {
+                            var ctx = requestFor("client-1");
+                            handler.handle(ctx);
+                            verify(ctx, never()).status(HttpStatus.NOT_FOUND);
+                            return jwksConfiguration("client-1", "key-2");
+                        });
+
+        handler.onConfigurationChange(new ConfigurationChange(List.of(after), List.of(before)));
+
+        var ctx = requestFor("client-1");
+        handler.handle(ctx);
+        verify(ctx, never()).status(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void shouldStopServingARemovedClient() {
+        var removed = rpConfig("client-1", "key-1");
+        var handler = new ClientJwksHandler(List.of(removed, rpConfig("client-2", "key-2")));
+
+        handler.onConfigurationChange(new ConfigurationChange(List.of(), List.of(removed)));
+
+        var removedCtx = requestFor("client-1");
+        handler.handle(removedCtx);
+        verify(removedCtx).status(HttpStatus.NOT_FOUND);
+        var keptCtx = requestFor("client-2");
+        handler.handle(keptCtx);
+        verify(keptCtx, never()).status(HttpStatus.NOT_FOUND);
+    }
+
+    private static RPConfig rpConfig(String clientId, String keyId) {
+        var config = mock(RPConfig.class);
+        when(config.clientId()).thenReturn(clientId);
+        when(config.jwksConfiguration()).thenReturn(jwksConfiguration(clientId, keyId));
+        return config;
+    }
+
+    private static Map<String, Serializable> jwksConfiguration(String clientId, String keyId) {
+        return Map.of(
+                "client_id",
+                clientId,
+                "public_key",
+                generateRsaKeyPair().getPublic(),
+                "public_key_id",
+                keyId);
+    }
+
+    private static Context requestFor(String clientId) {
+        var ctx = mock(Context.class);
+        when(ctx.pathParam("client_id")).thenReturn(clientId);
+        return ctx;
+    }
+}
@@ -2,17 +2,24 @@ package uk.gov.di.handlers;
 
 import io.javalin.http.Context;
 import io.javalin.http.Cookie;
+import io.javalin.http.HttpStatus;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.MockedStatic;
 import uk.gov.di.config.Configuration;
 import uk.gov.di.config.RPConfig;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,7 +41,43 @@ class HomeHandlerTest {
 
             homeHandler.handle(mockCtx);
 
-            verify(mockCtx).render(eq("/home.mustache"), any());
+            verify(mockCtx).contentType("text/html; charset=utf-8");
+            var html = resultOf(mockCtx);
+            assertTrue(html.contains("Test Service"));
+            assertFalse(html.contains("alternative"));
+        }
+    }
+
+    @Test
+    void shouldGiveEachVariantItsOwnEtagAndAnswerConditionalRequests() {
+        try (MockedStatic<Configuration> configurationMockedStatic =
+                mockStatic(Configuration.class)) {
+            var relyingPartyConfigMock = mock(RPConfig.class);
+            configurationMockedStatic
+                    .when(() -> Configuration.getRelyingPartyConfig(null))
+                    .thenReturn(relyingPartyConfigMock);
+            when(relyingPartyConfigMock.serviceName()).thenReturn("Test Service");
+            when(relyingPartyConfigMock.clientType()).thenReturn("web");
+            var handler = new HomeHandler();
+
+            var firstCtx = mock(Context.class);
+            handler.handle(firstCtx);
+            var secondCtx = mock(Context.class);
+            handler.handle(secondCtx);
+            var alternativeCtx = mock(Context.class);
+            when(alternativeCtx.cookie("useAlternativeDomain")).thenReturn("true");
+            handler.handle(alternativeCtx);
+
+            var etag = etagOf(firstCtx);
+            assertEquals(etag, etagOf(secondCtx));
+            assertNotEquals(etag, etagOf(alternativeCtx));
+
+            var conditionalCtx = mock(Context.class);
+            when(conditionalCtx.header("If-None-Match")).thenReturn(etag);
+            handler.handle(conditionalCtx);
+
+            verify(conditionalCtx).status(HttpStatus.NOT_MODIFIED);
+            verify(conditionalCtx, never()).result(any(byte[].class));
         }
     }
 
@@ -64,4 +107,16 @@ class HomeHandlerTest {
             assertEquals(true, cookie.isHttpOnly());
         }
     }
+
+    private static String resultOf(Context ctx) {
+        var captor = ArgumentCaptor.forClass(byte[].class);
+        verify(ctx).result(captor.capture());
+        return new String(captor.getValue(), StandardCharsets.UTF_8);
+    }
+
+    private static String etagOf(Context ctx) {
+        var captor = ArgumentCaptor.forClass(String.class);
+        verify(ctx).header(eq("ETag"), captor.capture());
+        return captor.getValue();
+    }
 }
@@ -4,21 +4,33 @@ import com.nimbusds.jose.jwk.JWK;
 import com.nimbusds.jose.jwk.JWKSet;
 import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.JSONObjectUtils;
 import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.security.interfaces.RSAPublicKey;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static uk.gov.di.helpers.keyHelper.generateRsaKeyPair;
 
 public class JwkHandlerTest {
@@ -48,7 +60,68 @@ public class JwkHandlerTest {
 
         verify(mockCtx).header(eq("Cache-Control"), eq("max-age=86400"));
         verify(mockCtx).contentType("application/json");
-        verify(mockCtx).json(eq(expectedJWK()));
+        assertEquals(expectedJWK(), parse(resultOf(mockCtx)));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenETagMatches() {
+        var firstCtx = mock(Context.class);
+        jwkHandler.handle(firstCtx);
+        var etag = etagOf(firstCtx);
+
+        var conditionalCtx = mock(Context.class);
+        when(conditionalCtx.header("If-None-Match")).thenReturn(etag);
+        jwkHandler.handle(conditionalCtx);
+
+        verify(conditionalCtx).status(HttpStatus.NOT_MODIFIED);
+        verify(conditionalCtx, never()).result(any(byte[].class));
+    }
+
+    @Test
+    void shouldReturnPrecompressedBodyWhenGzipAccepted() throws Exception {
+        var plainCtx = mock(Context.class);
+        jwkHandler.handle(plainCtx);
+
+        var gzipCtx = mock(Context.class);
+        when(gzipCtx.header("Accept-Encoding")).thenReturn("br, gzip;q=0.8");
+        jwkHandler.handle(gzipCtx);
+
+        verify(gzipCtx).header("Content-Encoding", "gzip");
+        assertEquals(parse(resultOf(plainCtx)), parse(gunzip(resultOf(gzipCtx))));
+        assertNotEquals(etagOf(plainCtx), etagOf(gzipCtx));
+    }
+
+    @Test
+    void shouldGiveSameETagForSameKey() {
+        var firstCtx = mock(Context.class);
+        var secondCtx = mock(Context.class);
+
+        jwkHandler.handle(firstCtx);
+        new JwkHandler(JWKS_CONFIG).handle(secondCtx);
+
+        assertEquals(etagOf(firstCtx), etagOf(secondCtx));
+    }
+
+    private static byte[] resultOf(Context ctx) {
+        var body = ArgumentCaptor.forClass(byte[].class);
+        verify(ctx).result(body.capture());
+        return body.getValue();
+    }
+
+    private static String etagOf(Context ctx) {
+        var etag = ArgumentCaptor.forClass(String.class);
+        verify(ctx).header(eq("ETag"), etag.capture());
+        return etag.getValue();
+    }
+
+    private static Map<String, Object> parse(byte[] body) throws ParseException {
+        return JSONObjectUtils.parse(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return gzip.readAllBytes();
+        }
     }
 
     private Map<String, Object> expectedJWK() throws ParseException {
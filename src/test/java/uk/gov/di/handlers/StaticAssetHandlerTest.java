@@ -0,0 +1,113 @@
+package uk.gov.di.handlers;
+
+import io.javalin.http.Context;
+import io.javalin.http.HttpStatus;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StaticAssetHandlerTest {
+    private static final String STYLESHEET = "/gds/govuk-frontend-4.7.0.min.css";
+
+    private static StaticAssetHandler handler;
+    private static String hashedStylesheet;
+
+    @BeforeAll
+    static void loadAssets() throws IOException {
+        handler = StaticAssetHandler.load();
+        var manifest = new Properties();
+        try (InputStream in =
+                StaticAssetHandlerTest.class.getResourceAsStream("/asset-manifest.properties")) {
+            manifest.load(in);
+        }
+        hashedStylesheet = manifest.getProperty(STYLESHEET);
+    }
+
+    @Test
+    void shouldServeHashedAssetsAsImmutable() throws IOException {
+        var ctx = request(hashedStylesheet);
+
+        handler.handle(ctx);
+
+        assertNotEquals(STYLESHEET, hashedStylesheet);
+        verify(ctx).header("Cache-Control", "public, max-age=31536000, immutable");
+        verify(ctx).contentType("text/css; charset=utf-8");
+        assertArrayEquals(original(STYLESHEET), resultOf(ctx));
+    }
+
+    @Test
+    void shouldServePrecompressedVariantWhenAccepted() throws IOException {
+        var ctx = request(hashedStylesheet);
+        when(ctx.header("Accept-Encoding")).thenReturn("gzip, deflate, br");
+
+        handler.handle(ctx);
+
+        verify(ctx).header("Content-Encoding", "gzip");
+        try (var gzip = new GZIPInputStream(new ByteArrayInputStream(resultOf(ctx)))) {
+            assertArrayEquals(original(STYLESHEET), gzip.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldServeOriginalPathsForRevalidation() throws IOException {
+        var ctx = request(STYLESHEET);
+
+        handler.handle(ctx);
+
+        verify(ctx).header("Cache-Control", "no-cache");
+        assertArrayEquals(original(STYLESHEET), resultOf(ctx));
+    }
+
+    @Test
+    void shouldNotServeFontsCompressed() {
+        var ctx = request("/gds/assets/fonts/bold-b542beb274-v2.woff2");
+        when(ctx.header("Accept-Encoding")).thenReturn("gzip");
+
+        handler.handle(ctx);
+
+        verify(ctx, never()).header("Content-Encoding", "gzip");
+        verify(ctx).contentType("font/woff2");
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownPaths() {
+        var ctx = request("/gds/missing.css");
+
+        handler.handle(ctx);
+
+        verify(ctx).status(HttpStatus.NOT_FOUND);
+        verify(ctx, never()).result(any(byte[].class));
+    }
+
+    private static Context request(String path) {
+        var ctx = mock(Context.class);
+        when(ctx.path()).thenReturn(path);
+        return ctx;
+    }
+
+    private static byte[] original(String path) throws IOException {
+        try (var in = StaticAssetHandlerTest.class.getResourceAsStream("/public" + path)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] resultOf(Context ctx) {
+        var captor = ArgumentCaptor.forClass(byte[].class);
+        verify(ctx).result(captor.capture());
+        return captor.getValue();
+    }
+}
@@ -1,8 +1,16 @@
 package uk.gov.di.helpers;
 
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.jwk.ECKey;
+import org.bouncycastle.asn1.DERBitString;
+import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
+import org.bouncycastle.asn1.x9.ECNamedCurveTable;
+
+import java.io.IOException;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 
 public class keyHelper {
     public static KeyPair generateRsaKeyPair() {
@@ -15,4 +23,33 @@ public class keyHelper {
         kpg.initialize(2048);
         return kpg.generateKeyPair();
     }
+
+    // The JDK leaves the public key out of an EC PKCS#8 encoding, so add it as OpenSSL does
+    public static String encodeEcPrivateKey(ECKey key) {
+        return encodeEcPrivateKey(key, key);
+    }
+
+    public static String encodeEcPrivateKey(ECKey key, ECKey storedPublicKey) {
+        try {
+            var privateKey = key.toECPrivateKey();
+            var publicPoint =
+                    ECNamedCurveTable.getByName(key.getCurve().getStdName())
+                            .getCurve()
+                            .createPoint(
+                                    storedPublicKey.getX().decodeToBigInteger(),
+                                    storedPublicKey.getY().decodeToBigInteger());
+            var info =
+                    new PrivateKeyInfo(
+                            PrivateKeyInfo.getInstance(privateKey.getEncoded())
+                                    .getPrivateKeyAlgorithm(),
+                            new org.bouncycastle.asn1.sec.ECPrivateKey(
+                                    privateKey.getParams().getOrder().bitLength(),
+                                    privateKey.getS(),
+                                    new DERBitString(publicPoint.getEncoded(false)),
+                                    null));
+            return Base64.getEncoder().encodeToString(info.getEncoded());
+        } catch (JOSEException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,145 @@
+package uk.gov.di.loadtest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.fakeop.FakeOp;
+import uk.gov.di.fakeop.FakeOpSettings;
+import uk.gov.di.fakeop.FakeOpSettings.Endpoint;
+import uk.gov.di.fakeop.FakeOpSettings.Faults;
+import uk.gov.di.loadtest.ScenarioResults.Stage;
+import uk.gov.di.utils.Oidc;
+
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JourneyDriverTest {
+    private static final String CALLBACK_URL = "http://localhost/oidc/authorization-code/callback";
+
+    private static String clientPrivateKey;
+
+    private FakeOp fakeOp;
+
+    @BeforeAll
+    static void generateClientKey() throws Exception {
+        var keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        clientPrivateKey =
+                Base64.getMimeEncoder()
+                        .encodeToString(
+                                keyPairGenerator.generateKeyPair().getPrivate().getEncoded());
+    }
+
+    @AfterEach
+    void tearDown() {
+        fakeOp.close();
+    }
+
+    @Test
+    void shouldCompleteQueryJourneys() {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var results = new ScenarioResults();
+        var driver = driver(scenario(false, List.of()), results);
+
+        for (int i = 0; i < 3; i++) {
+            driver.run(System.nanoTime());
+        }
+
+        assertEquals(3, results.completedCount());
+        assertEquals(0, results.failedCount());
+        assertEquals(3, results.latency(Stage.TOKEN_REQUEST).count());
+        assertEquals(3, results.latency(Stage.ID_TOKEN_VALIDATION).count());
+        assertEquals(3, results.latency(Stage.USERINFO_REQUEST).count());
+        assertEquals(3, results.latency(Stage.JOURNEY).count());
+        assertEquals(0, results.latency(Stage.CORE_IDENTITY_VALIDATION).count());
+    }
+
+    @Test
+    void shouldCompleteJarJourneysWithCoreIdentity() {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var results = new ScenarioResults();
+        var driver =
+                driver(
+                        scenario(true, List.of("https://vocab.account.gov.uk/v1/coreIdentityJWT")),
+                        results);
+
+        driver.run(System.nanoTime());
+
+        assertEquals(1, results.completedCount());
+        assertEquals(1, results.latency(Stage.CORE_IDENTITY_VALIDATION).count());
+    }
+
+    @Test
+    void shouldCountFailuresByStage() {
+        fakeOp = FakeOp.start(FakeOpSettings.defaults());
+        var results = new ScenarioResults();
+        var oidc = new Oidc(relyingPartyConfig());
+        var driver =
+                new JourneyDriver(
+                        scenario(false, List.of()),
+                        oidc,
+                        JourneyDriver.callbackPipeline(relyingPartyConfig(), oidc),
+                        "not a uri",
+                        results);
+
+        driver.run(System.nanoTime());
+
+        assertEquals(1, results.failedCount());
+        assertEquals(0, results.latency(Stage.JOURNEY).count());
+    }
+
+    @Test
+    void shouldCountCallbackFailuresAgainstTheStageThatFailed() {
+        fakeOp =
+                FakeOp.start(
+                        FakeOpSettings.defaults()
+                                .withFaults(
+                                        Endpoint.USERINFO,
+                                        new Faults(Duration.ZERO, Duration.ZERO, 1.0)));
+        var scenario = scenario(false, List.of());
+        var results = new ScenarioResults();
+
+        driver(scenario, results).run(System.nanoTime());
+
+        assertEquals(1, results.failedCount());
+        assertTrue(results.report(scenario, Duration.ofSeconds(1)).contains("userinfo_request: "));
+    }
+
+    private JourneyDriver driver(Scenario scenario, ScenarioResults results) {
+        var relyingPartyConfig = relyingPartyConfig();
+        var oidc = new Oidc(relyingPartyConfig);
+        return new JourneyDriver(
+                scenario,
+                oidc,
+                JourneyDriver.callbackPipeline(relyingPartyConfig, oidc),
+                CALLBACK_URL,
+                results);
+    }
+
+    private static Scenario scenario(boolean requestObject, List<String> claims) {
+        return new Scenario(
+                "test", null, null, null, claims, null, requestObject, true, false, 1.0, null, 1);
+    }
+
+    private RPConfig relyingPartyConfig() {
+        return new RPConfig(
+                clientPrivateKey,
+                fakeOp.issuer() + "/.well-known/did.json",
+                null,
+                "journey-driver-test-client",
+                "web",
+                "ES256",
+                "Journey driver test",
+                fakeOp.issuer(),
+                null,
+                null,
+                null,
+                null);
+    }
+}
@@ -0,0 +1,49 @@
+package uk.gov.di.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyRecorderTest {
+
+    @Test
+    void shouldKeepSmallValuesExactly() {
+        for (long micros = 0; micros < 200; micros++) {
+            var index = LatencyRecorder.indexOf(micros);
+            assertTrue(LatencyRecorder.highestEquivalentValue(index) >= micros);
+            assertTrue(LatencyRecorder.highestEquivalentValue(index) - micros <= 1);
+        }
+        assertEquals(63, LatencyRecorder.highestEquivalentValue(LatencyRecorder.indexOf(63)));
+    }
+
+    @Test
+    void shouldKeepLargeValuesWithinTwoPercent() {
+        for (long micros = 1_000; micros < Duration.ofHours(2).toNanos() / 1000; micros *= 3) {
+            var reported = LatencyRecorder.highestEquivalentValue(LatencyRecorder.indexOf(micros));
+            assertTrue(reported >= micros);
+            assertTrue(reported - micros <= micros / 50, "Reported " + reported + " for " + micros);
+        }
+    }
+
+    @Test
+    void shouldReportQuantilesAndMax() {
+        var recorder = new LatencyRecorder();
+        for (int millis = 1; millis <= 1000; millis++) {
+            recorder.record(Duration.ofMillis(millis).toNanos());
+        }
+
+        assertEquals(1000, recorder.count());
+        assertEquals(500_000, recorder.valueAtQuantile(0.5), 500_000 / 50.0);
+        assertEquals(990_000, recorder.valueAtQuantile(0.99), 990_000 / 50.0);
+        assertEquals(1_000_000, recorder.valueAtQuantile(1.0));
+        assertEquals(1_000_000, recorder.maxMicros());
+    }
+
+    @Test
+    void shouldReportZeroWhenEmpty() {
+        assertEquals(0, new LatencyRecorder().valueAtQuantile(0.99));
+    }
+}
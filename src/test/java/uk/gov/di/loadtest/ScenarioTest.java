@@ -0,0 +1,69 @@
+package uk.gov.di.loadtest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScenarioTest {
+
+    @TempDir Path directory;
+
+    @Test
+    void shouldReadScenariosWithDefaults() throws IOException {
+        var file =
+                write(
+                        "{\"name\":\"query\",\"rate\":20}",
+                        "",
+                        "{\"name\":\"identity\",\"client_id\":\"rp\",\"vtr\":[\"P2.Cl.Cm\"],"
+                                + "\"claims\":[\"https://vocab.account.gov.uk/v1/coreIdentityJWT\"],"
+                                + "\"request_object\":true,\"pkce\":true,\"concurrency\":5,"
+                                + "\"duration_seconds\":10}");
+
+        var scenarios = Scenario.read(file);
+
+        assertEquals(2, scenarios.size());
+        var query = scenarios.get(0);
+        assertTrue(query.openLoop());
+        assertNull(query.clientId());
+        assertEquals(List.of("openid"), query.scopes());
+        assertEquals(List.of("Cl.Cm"), query.vtr());
+        assertEquals(60, query.duration().toSeconds());
+        var identity = scenarios.get(1);
+        assertFalse(identity.openLoop());
+        assertTrue(identity.requestObject());
+        assertTrue(identity.pkce());
+        assertEquals(List.of("P2.Cl.Cm"), identity.vtr());
+        assertEquals(10, identity.duration().toSeconds());
+    }
+
+    @Test
+    void shouldRejectScenarioWithoutLoad() throws IOException {
+        var file = write("{\"name\":\"ok\",\"rate\":1}", "{\"name\":\"no load\"}");
+
+        var exception = assertThrows(IllegalArgumentException.class, () -> Scenario.read(file));
+
+        assertTrue(exception.getMessage().contains("line 2"));
+        assertTrue(exception.getMessage().contains("exactly one of rate and concurrency"));
+    }
+
+    @Test
+    void shouldRejectUnknownFields() throws IOException {
+        var file = write("{\"name\":\"typo\",\"rate\":1,\"pcke\":true}");
+
+        assertThrows(IllegalArgumentException.class, () -> Scenario.read(file));
+    }
+
+    private Path write(String... lines) throws IOException {
+        return Files.write(directory.resolve("scenarios.jsonl"), List.of(lines));
+    }
+}
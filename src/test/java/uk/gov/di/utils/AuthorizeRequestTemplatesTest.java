@@ -0,0 +1,59 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AuthorizeRequestTemplatesTest {
+
+    @Test
+    void shouldRenderEachOptionSetOnce() {
+        var templates = new AuthorizeRequestTemplates(10);
+        var renders = new AtomicInteger();
+
+        var vtr = new ArrayList<String>();
+        vtr.add("Cl.Cm");
+        var first = templates.get(options(vtr, "en"), o -> "rendered-" + renders.incrementAndGet());
+        vtr.add("P2.Cl.Cm");
+        var second =
+                templates.get(
+                        options(List.of("Cl.Cm"), "en"),
+                        o -> "rendered-" + renders.incrementAndGet());
+
+        assertEquals("rendered-1", first);
+        assertEquals("rendered-1", second);
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void shouldStayWithinMaximumSize() {
+        var templates = new AuthorizeRequestTemplates(2);
+        var evictionsBefore = AuthorizeRequestTemplates.stats().evictions();
+        var renders = new AtomicInteger();
+
+        for (var language : List.of("en", "cy", "en", "fr", "en")) {
+            templates.get(options(List.of("Cl.Cm"), language), o -> "" + renders.incrementAndGet());
+        }
+
+        assertEquals(4, renders.get());
+        assertEquals(evictionsBefore + 2, AuthorizeRequestTemplates.stats().evictions());
+    }
+
+    private static AuthorizeRequestOptions options(List<String> vtr, String language) {
+        return new AuthorizeRequestOptions(
+                "https://example.com/callback",
+                vtr,
+                List.of("openid"),
+                List.of(),
+                language,
+                "none",
+                null,
+                null,
+                null,
+                false);
+    }
+}
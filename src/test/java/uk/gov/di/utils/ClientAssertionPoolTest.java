@@ -0,0 +1,122 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.oauth2.sdk.auth.PrivateKeyJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.helpers.TestClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientAssertionPoolTest {
+    private static final Duration LIFETIME = Duration.ofMinutes(5);
+    private static final Duration SAFETY_MARGIN = Duration.ofSeconds(60);
+
+    private final TestClock clock = new TestClock(Instant.now(), ZoneId.of("UTC"));
+    private final AtomicInteger signed = new AtomicInteger();
+    private ECKey key;
+
+    @BeforeEach
+    void setUp() throws JOSEException {
+        key = new ECKeyGenerator(Curve.P_256).generate();
+    }
+
+    @Test
+    void shouldHandOutPreSignedAssertionsWithUniqueIds() {
+        var pool = pool(8);
+        pool.prime();
+        var primed = signed.get();
+
+        var ids = new HashSet<String>();
+        for (int i = 0; i < primed; i++) {
+            ids.add(
+                    pool.take()
+                            .orElseThrow()
+                            .getJWTAuthenticationClaimsSet()
+                            .getJWTID()
+                            .getValue());
+        }
+
+        assertEquals(primed, ids.size());
+        assertTrue(primed > 0);
+    }
+
+    @Test
+    void shouldDiscardAssertionsCloseToExpiry() {
+        var pool = pool(8);
+        pool.prime();
+        var primed = pool.size();
+
+        clock.setInstant(clock.instant().plus(LIFETIME).minus(SAFETY_MARGIN));
+
+        assertTrue(pool.take().isEmpty());
+        assertEquals(primed * 2, signed.get());
+        assertEquals(primed, pool.size());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenDisabled() {
+        var pool = pool(0);
+        pool.prime();
+
+        assertTrue(pool.take().isEmpty());
+        assertEquals(0, signed.get());
+    }
+
+    @Test
+    void shouldGrowWithConsumptionRateUpToMaximum() {
+        var pool = pool(16);
+        pool.prime();
+        var initialSize = pool.size();
+
+        for (int i = 0; i < 50; i++) {
+            pool.take();
+        }
+        clock.setInstant(clock.instant().plusSeconds(2));
+        pool.take();
+
+        assertTrue(pool.size() > initialSize);
+        assertTrue(pool.size() <= 16);
+    }
+
+    private ClientAssertionPool pool(int maxSize) {
+        return new ClientAssertionPool(this::sign, maxSize, SAFETY_MARGIN, clock, Runnable::run);
+    }
+
+    private PrivateKeyJWT sign(Instant issuedAt) {
+        signed.incrementAndGet();
+        var claims =
+                new JWTClaimsSet.Builder()
+                        .subject("client")
+                        .issuer("client")
+                        .audience("https://oidc.example.com/token")
+                        .issueTime(Date.from(issuedAt))
+                        .expirationTime(Date.from(issuedAt.plus(LIFETIME)))
+                        .jwtID(UUID.randomUUID().toString())
+                        .build();
+        try {
+            var jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.ES256), claims);
+            jwt.sign(new ECDSASigner(key));
+            return new PrivateKeyJWT(jwt);
+        } catch (JOSEException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
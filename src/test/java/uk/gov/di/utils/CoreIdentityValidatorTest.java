@@ -11,11 +11,8 @@ import com.nimbusds.jose.jwk.KeyUse;
 import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import org.junit.jupiter.api.AfterAll;
-import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.MockedStatic;
 import uk.gov.di.config.RPConfig;
 import uk.gov.di.helpers.TestClock;
 
@@ -23,16 +20,20 @@ import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -46,13 +47,8 @@ class CoreIdentityValidatorTest {
             "https://identity.test.account.gov.uk/.well-known/did.json";
     private static CoreIdentityValidator underTest;
     private static final HttpClient httpClient = mock(HttpClient.class);
-    private static MockedStatic<HttpClient> httpClientMockedStatic;
-
-    @BeforeAll
-    static void beforeAll() {
-        httpClientMockedStatic = mockStatic(HttpClient.class);
-        httpClientMockedStatic.when(HttpClient::newHttpClient).thenReturn(httpClient);
-    }
+    private static final HttpTransport httpTransport =
+            new HttpTransport(httpClient, Duration.ofSeconds(5));
 
     @BeforeEach
     void setUp() throws JOSEException {
@@ -64,15 +60,11 @@ class CoreIdentityValidatorTest {
 
         var rpConfig = mock(RPConfig.class);
         when(rpConfig.identitySigningKeyUrl()).thenReturn(DID_URL);
-        underTest = CoreIdentityValidator.createValidator(rpConfig);
+        underTest =
+                CoreIdentityValidator.createValidator(rpConfig, Clock.systemUTC(), httpTransport);
         reset(httpClient);
     }
 
-    @AfterAll
-    static void tearDown() {
-        httpClientMockedStatic.close();
-    }
-
     @Test
     void createValidatorReturnsNoopValidatorWhenDidUrlIsNull() {
         // given
@@ -148,7 +140,7 @@ class CoreIdentityValidatorTest {
         var rpConfig = mock(RPConfig.class);
         when(rpConfig.identitySigningKeyUrl()).thenReturn(DID_URL);
         configureDidDocumentResponse(SIGNING_KEY, CONTROLLER, CONTROLLER, 60);
-        var validator = CoreIdentityValidator.createValidator(rpConfig, testClock);
+        var validator = CoreIdentityValidator.createValidator(rpConfig, testClock, httpTransport);
 
         var resultOne = validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
         assertEquals(CoreIdentityValidator.Result.VALID, resultOne);
@@ -243,10 +235,125 @@ class CoreIdentityValidatorTest {
                 thrownException.getMessage());
     }
 
+    @Test
+    void forRelyingPartyReusesValidatorForDidUrl() {
+        var rpConfig = mock(RPConfig.class);
+        when(rpConfig.identitySigningKeyUrl()).thenReturn(DID_URL);
+
+        var first = CoreIdentityValidator.forRelyingParty(rpConfig);
+        var second = CoreIdentityValidator.forRelyingParty(rpConfig);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void fetchesKeyEachTimeIfNoStore() throws IOException, InterruptedException {
+        configureDidDocumentResponse(SIGNING_KEY, CONTROLLER, CONTROLLER, "no-store, max-age=60");
+        underTest.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+        underTest.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void servesStaleKeyWhileRevalidating() throws IOException, InterruptedException {
+        TestClock testClock = new TestClock(Instant.ofEpochSecond(0), ZoneId.systemDefault());
+        var backgroundTasks = new ArrayList<Runnable>();
+        var validator = createValidator(testClock, backgroundTasks::add);
+        configureDidDocumentResponse(
+                SIGNING_KEY, CONTROLLER, CONTROLLER, "max-age=60, stale-while-revalidate=30");
+        validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        testClock.setInstant(Instant.ofEpochSecond(75));
+        var result = validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+        validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        assertEquals(CoreIdentityValidator.Result.VALID, result);
+        verify(httpClient, times(1)).send(any(), any());
+        assertEquals(1, backgroundTasks.size());
+
+        backgroundTasks.get(0).run();
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void fetchesBeforeValidatingOnceStaleWindowHasPassed()
+            throws IOException, InterruptedException {
+        TestClock testClock = new TestClock(Instant.ofEpochSecond(0), ZoneId.systemDefault());
+        var validator = createValidator(testClock, task -> {});
+        configureDidDocumentResponse(
+                SIGNING_KEY, CONTROLLER, CONTROLLER, "max-age=60, stale-while-revalidate=30");
+        validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        testClock.setInstant(Instant.ofEpochSecond(91));
+        validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void servesStaleKeyIfRefreshErrors() throws IOException, InterruptedException {
+        TestClock testClock = new TestClock(Instant.ofEpochSecond(0), ZoneId.systemDefault());
+        var validator = createValidator(testClock, Runnable::run);
+        configureDidDocumentResponse(
+                SIGNING_KEY, CONTROLLER, CONTROLLER, "max-age=60, stale-if-error=300");
+        validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        var errorResponse = mock(HttpResponse.class);
+        when(errorResponse.statusCode()).thenReturn(503);
+        when(httpClient.send(any(), any())).thenReturn(errorResponse);
+        testClock.setInstant(Instant.ofEpochSecond(120));
+
+        var result = validator.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        assertEquals(CoreIdentityValidator.Result.VALID, result);
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void refetchesOnceForUnknownKidThenCachesTheMiss() throws IOException, InterruptedException {
+        configureDidDocumentResponse(SIGNING_KEY, CONTROLLER, CONTROLLER, 60);
+        underTest.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        var unknownKid = CONTROLLER + "#rotated-kid";
+        assertThrows(RuntimeException.class, () -> underTest.isValid(createJws(unknownKid)));
+        assertThrows(RuntimeException.class, () -> underTest.isValid(createJws(unknownKid)));
+
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @Test
+    void findsRotatedKeyAfterRefetchingForUnknownKid()
+            throws IOException, InterruptedException, JOSEException {
+        configureDidDocumentResponse(SIGNING_KEY, CONTROLLER, CONTROLLER, 60);
+        underTest.isValid(createJws(CONTROLLER + "#" + SIGNING_KEY_ID));
+
+        var rotatedKey =
+                new ECKeyGenerator(Curve.P_256)
+                        .keyUse(KeyUse.SIGNATURE)
+                        .keyID("rotated-kid")
+                        .generate();
+        configureDidDocumentResponse(rotatedKey, CONTROLLER, CONTROLLER, 60);
+        var result = underTest.isValid(createJws(CONTROLLER + "#rotated-kid", rotatedKey));
+
+        assertEquals(CoreIdentityValidator.Result.VALID, result);
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    private CoreIdentityValidator createValidator(TestClock testClock, Executor executor) {
+        var rpConfig = mock(RPConfig.class);
+        when(rpConfig.identitySigningKeyUrl()).thenReturn(DID_URL);
+        return CoreIdentityValidator.createValidator(rpConfig, testClock, httpTransport, executor);
+    }
+
     private String createJws(String kid) {
+        return createJws(kid, SIGNING_KEY);
+    }
+
+    private String createJws(String kid, ECKey signingKey) {
         JWTClaimsSet claims = new JWTClaimsSet.Builder().subject("example").build();
         try {
-            JWSSigner signer = new ECDSASigner(SIGNING_KEY);
+            JWSSigner signer = new ECDSASigner(signingKey);
             JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(kid).build();
             SignedJWT signedJwt = new SignedJWT(header, claims);
             signedJwt.sign(signer);
@@ -262,13 +369,18 @@ class CoreIdentityValidatorTest {
 
     private void configureDidDocumentResponse(
             ECKey ecKey, String keyIdPrefix, String controller, Integer maxAge) {
+        configureDidDocumentResponse(
+                ecKey, keyIdPrefix, controller, String.format("max-age=%s, private", maxAge));
+    }
+
+    private void configureDidDocumentResponse(
+            ECKey ecKey, String keyIdPrefix, String controller, String cacheControl) {
         var assertion = buildDidAssertion(ecKey, controller, keyIdPrefix);
         var documentResponse = buildDidDocumentResponse(assertion, controller);
         var httpResponse = mock(HttpResponse.class);
         when(httpResponse.statusCode()).thenReturn(200);
         var httpHeaders = mock(HttpHeaders.class);
-        when(httpHeaders.firstValue("cache-control"))
-                .thenReturn(Optional.of(String.format("max-age=%s, private", maxAge.toString())));
+        when(httpHeaders.firstValue("cache-control")).thenReturn(Optional.of(cacheControl));
         when(httpResponse.headers()).thenReturn(httpHeaders);
         when(httpResponse.body()).thenReturn(documentResponse);
         try {
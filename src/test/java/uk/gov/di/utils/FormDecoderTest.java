@@ -0,0 +1,66 @@
+package uk.gov.di.utils;
+
+import io.javalin.http.ContentTooLargeResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FormDecoderTest {
+
+    @Test
+    void shouldDecodeEscapesAsUtf8() {
+        var form = decode("login-hint=user%40example.com&name=Si%C3%A2n+Jones&lng=cy");
+
+        assertEquals("user@example.com", form.first("login-hint"));
+        assertEquals("Si\u00e2n Jones", form.first("name"));
+        assertEquals("cy", form.first("lng"));
+    }
+
+    @Test
+    void shouldKeepEveryValueOfRepeatedField() {
+        var form = decode("scope=openid&scope=email&scope=phone");
+
+        assertEquals("openid", form.first("scope"));
+        assertEquals(List.of("openid", "email", "phone"), form.all("scope"));
+    }
+
+    @Test
+    void shouldTreatMissingValuesAsEmpty() {
+        var form = decode("rp-sid=&max-age&&pkce=yes");
+
+        assertEquals("", form.first("rp-sid"));
+        assertEquals("", form.first("max-age"));
+        assertEquals("yes", form.first("pkce"));
+        assertFalse(form.has("channel"));
+        assertNull(form.first("channel"));
+        assertEquals("query", form.first("request", "query"));
+    }
+
+    @Test
+    void shouldKeepMalformedEscapesLiterally() {
+        var form = decode("discount=100%&code=%zz&end=%4");
+
+        assertEquals("100%", form.first("discount"));
+        assertEquals("%zz", form.first("code"));
+        assertEquals("%4", form.first("end"));
+    }
+
+    @Test
+    void shouldRejectBodyOverLimit() {
+        var body = "a=1234567890".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(ContentTooLargeResponse.class, () -> FormDecoder.decode(body, 8));
+        assertTrue(FormDecoder.decode(body, body.length).has("a"));
+    }
+
+    private static FormParameters decode(String body) {
+        return FormDecoder.decode(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
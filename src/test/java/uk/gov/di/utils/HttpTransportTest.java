@@ -0,0 +1,125 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.http.HTTPRequest;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpTransportTest {
+    private final AtomicReference<String> receivedBody = new AtomicReference<>();
+    private final AtomicReference<String> receivedContentType = new AtomicReference<>();
+    private HttpServer server;
+    private HttpTransport httpTransport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(
+                "/token",
+                exchange -> {
+                    receivedBody.set(
+                            new String(
+                                    exchange.getRequestBody().readAllBytes(),
+                                    StandardCharsets.UTF_8));
+                    receivedContentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+                    var response = "{\"access_token\":\"abc\"}".getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(200, response.length);
+                    exchange.getResponseBody().write(response);
+                    exchange.close();
+                });
+        server.createContext(
+                "/missing",
+                exchange -> {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                });
+        server.start();
+        httpTransport = new HttpTransport(HttpClient.newHttpClient(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldSendNimbusRequestsThroughSharedClient() throws IOException {
+        var request = new HTTPRequest(HTTPRequest.Method.POST, url("/token"));
+        request.setHeader("Content-Type", "application/x-www-form-urlencoded");
+        request.setBody("grant_type=authorization_code&code=123");
+
+        var response = request.send(httpTransport);
+
+        assertEquals(200, response.getStatusCode());
+        assertEquals("{\"access_token\":\"abc\"}", response.getBody());
+        assertEquals("grant_type=authorization_code&code=123", receivedBody.get());
+        assertTrue(receivedContentType.get().startsWith("application/x-www-form-urlencoded"));
+        assertEquals(1, httpTransport.stats().requests());
+    }
+
+    @Test
+    void shouldRetrieveResources() throws IOException {
+        var resource =
+                httpTransport
+                        .resourceRetriever(Duration.ofSeconds(1), 1024)
+                        .retrieveResource(url("/token"));
+
+        assertEquals("{\"access_token\":\"abc\"}", resource.getContent());
+        assertEquals("application/json", resource.getContentType());
+    }
+
+    @Test
+    void shouldRejectResourcesOverSizeLimit() {
+        var retriever = httpTransport.resourceRetriever(Duration.ofSeconds(1), 4);
+
+        assertThrows(IOException.class, () -> retriever.retrieveResource(url("/token")));
+    }
+
+    @Test
+    void shouldRejectUnsuccessfulResourceResponses() {
+        var retriever = httpTransport.resourceRetriever(Duration.ofSeconds(1), 1024);
+
+        assertThrows(IOException.class, () -> retriever.retrieveResource(url("/missing")));
+    }
+
+    @Test
+    void shouldAverageTimeToFirstByteOverResponsesOnly() throws Exception {
+        int closedPort;
+        try (var socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        var refused = HttpRequest.newBuilder(new URL("http://localhost:" + closedPort).toURI());
+
+        httpTransport.send(
+                HttpRequest.newBuilder(url("/token").toURI()),
+                HttpResponse.BodyHandlers.ofString());
+        assertThrows(
+                IOException.class,
+                () -> httpTransport.send(refused, HttpResponse.BodyHandlers.ofString()));
+
+        var stats = httpTransport.stats();
+        assertEquals(2, stats.requests());
+        assertEquals(stats.maxTimeToFirstByteMillis(), stats.meanTimeToFirstByteMillis(), 1e-9);
+    }
+
+    private URL url(String path) throws IOException {
+        return new URL("http://localhost:" + server.getAddress().getPort() + path);
+    }
+}
@@ -0,0 +1,139 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.helpers.TestClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryJourneyStoreTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final TestClock clock =
+            new TestClock(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void shouldOnlyReturnJourneyOnce() {
+        var store = new InMemoryJourneyStore(10, Long.MAX_VALUE, TTL, clock);
+        var journey = journey();
+        store.put(journey);
+
+        assertEquals(journey, store.take(journey.state()).orElseThrow());
+        assertTrue(store.take(journey.state()).isEmpty());
+        assertTrue(store.take(null).isEmpty());
+    }
+
+    @Test
+    void shouldNotReturnExpiredJourney() {
+        var store = new InMemoryJourneyStore(10, Long.MAX_VALUE, TTL, clock);
+        var journey = journey();
+        store.put(journey);
+
+        clock.setInstant(clock.instant().plus(TTL));
+
+        assertTrue(store.take(journey.state()).isEmpty());
+        assertEquals(1, store.stats().expired());
+    }
+
+    @Test
+    void shouldDropExpiredJourneysOnWrite() {
+        var store = new InMemoryJourneyStore(10, Long.MAX_VALUE, TTL, clock);
+        store.put(journey());
+        store.put(journey());
+
+        clock.setInstant(clock.instant().plus(TTL));
+        var latest = journey();
+        store.put(latest);
+
+        var stats = store.stats();
+        assertEquals(1, stats.entries());
+        assertEquals(2, stats.expired());
+        assertEquals(InMemoryJourneyStore.sizeOf(latest), stats.bytes());
+    }
+
+    @Test
+    void shouldEvictOldestJourneyWhenFull() {
+        var store = new InMemoryJourneyStore(2, Long.MAX_VALUE, TTL, clock);
+        var oldest = journey();
+        store.put(oldest);
+        store.put(journey());
+        store.put(journey());
+
+        assertTrue(store.take(oldest.state()).isEmpty());
+        assertEquals(2, store.stats().entries());
+        assertEquals(1, store.stats().evicted());
+    }
+
+    @Test
+    void shouldKeepWithinByteBudget() {
+        var journey = journey();
+        var store =
+                new InMemoryJourneyStore(
+                        100, 3L * InMemoryJourneyStore.sizeOf(journey), TTL, clock);
+        for (int i = 0; i < 10; i++) {
+            store.put(journey());
+        }
+
+        var stats = store.stats();
+        assertEquals(3, stats.entries());
+        assertEquals(7, stats.evicted());
+        assertTrue(stats.bytes() <= 3L * InMemoryJourneyStore.sizeOf(journey));
+    }
+
+    @Test
+    void shouldReleaseTakenJourneys() {
+        var store = new InMemoryJourneyStore(10, Long.MAX_VALUE, TTL, clock);
+        var journey = journey();
+        store.put(journey);
+        store.take(journey.state());
+
+        var stats = store.stats();
+        assertEquals(0, stats.entries());
+        assertEquals(0, stats.bytes());
+        assertEquals(0, stats.evicted());
+    }
+
+    @Test
+    void shouldNotCountTakenJourneysAgainstBudget() {
+        var store = new InMemoryJourneyStore(2, Long.MAX_VALUE, TTL, clock);
+        for (int i = 0; i < 10; i++) {
+            var taken = journey();
+            store.put(taken);
+            store.take(taken.state());
+        }
+        var waiting = journey();
+        store.put(waiting);
+        store.put(journey());
+
+        assertEquals(waiting, store.take(waiting.state()).orElseThrow());
+        assertEquals(0, store.stats().evicted());
+    }
+
+    @Test
+    void shouldKeepWithinByteBudgetWhenJourneysAreTaken() {
+        var journey = journey();
+        var store =
+                new InMemoryJourneyStore(
+                        100, 3L * InMemoryJourneyStore.sizeOf(journey), TTL, clock);
+        var first = journey();
+        store.put(first);
+        for (int i = 0; i < 10; i++) {
+            var taken = journey();
+            store.put(taken);
+            store.take(taken.state());
+        }
+
+        var stats = store.stats();
+        assertEquals(1, stats.entries());
+        assertEquals(InMemoryJourneyStore.sizeOf(first), stats.bytes());
+        assertEquals(0, stats.evicted());
+    }
+
+    private Journey journey() {
+        return Journey.start("client-id", null, false, clock.instant());
+    }
+}
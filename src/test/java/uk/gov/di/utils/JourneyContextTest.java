@@ -0,0 +1,63 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JourneyContextTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldCarryJourneyIntoStages() throws Exception {
+        MDC.put(JourneyContext.CLIENT_ID, "some-client");
+        JourneyContext.putState("some-state");
+
+        var seen =
+                new StageGroup(executor)
+                        .run(
+                                "stage",
+                                TIMEOUT,
+                                () ->
+                                        MDC.get(JourneyContext.CLIENT_ID)
+                                                + " "
+                                                + MDC.get(JourneyContext.STATE))
+                        .get();
+
+        assertEquals("some-client some-state", seen);
+    }
+
+    @Test
+    void shouldLeaveWorkerThreadCleanAfterStage() throws Exception {
+        JourneyContext.putSid("some-sid");
+        new StageGroup(executor).run("stage", TIMEOUT, () -> "done").get();
+        MDC.clear();
+
+        var leftOver = executor.submit(() -> MDC.get(JourneyContext.SID)).get();
+
+        assertNull(leftOver);
+    }
+
+    @Test
+    void shouldIgnoreMissingValues() {
+        JourneyContext.putState(null);
+        JourneyContext.putSid("");
+
+        assertNull(MDC.get(JourneyContext.STATE));
+        assertNull(MDC.get(JourneyContext.SID));
+    }
+}
@@ -0,0 +1,80 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JourneyTimingTest {
+    private static final Instant STARTED_AT = Instant.parse("2026-01-01T00:00:00.123Z");
+
+    private static final JourneyTiming.Options OPTIONS =
+            JourneyTiming.Options.of(
+                    "timing-test-client",
+                    List.of("P2.Cl.Cm", "P1.Cl.Cm"),
+                    List.of(
+                            "https://vocab.account.gov.uk/v1/passport",
+                            "https://vocab.account.gov.uk/v1/coreIdentityJWT"),
+                    "jar",
+                    true,
+                    false);
+
+    @Test
+    void shouldOpenWhatWasSealed() {
+        var started = JourneyTiming.open(JourneyTiming.seal(OPTIONS, STARTED_AT)).orElseThrow();
+
+        assertEquals(OPTIONS, started.options());
+        assertEquals(STARTED_AT, started.startedAt());
+        assertEquals("coreIdentityJWT passport", started.options().claims());
+    }
+
+    @Test
+    void shouldRejectTamperedValues() {
+        var sealed = JourneyTiming.seal(OPTIONS, STARTED_AT);
+        var earlier = JourneyTiming.seal(OPTIONS, STARTED_AT.minus(Duration.ofHours(1)));
+        var forged =
+                earlier.substring(0, earlier.indexOf('.')) + sealed.substring(sealed.indexOf('.'));
+
+        assertTrue(JourneyTiming.open(forged).isEmpty());
+        assertTrue(JourneyTiming.open(sealed + "A").isEmpty());
+    }
+
+    @Test
+    void shouldRejectMalformedValues() {
+        assertTrue(JourneyTiming.open(null).isEmpty());
+        assertTrue(JourneyTiming.open("").isEmpty());
+        assertTrue(JourneyTiming.open("not-sealed").isEmpty());
+        assertTrue(JourneyTiming.open("a.!!").isEmpty());
+    }
+
+    @Test
+    void shouldSummariseJourneysSinceLastSummary() {
+        var options =
+                JourneyTiming.Options.of(
+                        "summary-test-client", List.of("Cl"), List.of(), "query", false, true);
+        JourneyLatency.record(options, Duration.ofSeconds(8));
+        JourneyLatency.record(options, Duration.ofSeconds(40));
+
+        assertTrue(
+                JourneyLatency.summarise()
+                        .contains(
+                                "summary-test-client vtr=[Cl] claims=[none] query alternative_domain"
+                                        + " n=2 p50<=10s p95<=60s"));
+        assertFalse(JourneyLatency.summarise().contains("summary-test-client"));
+
+        var output = new StringBuilder();
+        JourneyLatency.writeTo(output);
+        assertTrue(
+                output.toString()
+                        .contains(
+                                "rp_stub_journey_duration_seconds_count{"
+                                        + "client_id=\"summary-test-client\",vtr=\"Cl\","
+                                        + "claims=\"none\",request=\"query\",pkce=\"false\","
+                                        + "use_alternative_domain=\"true\"} 2"));
+    }
+}
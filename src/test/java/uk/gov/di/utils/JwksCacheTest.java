@@ -0,0 +1,143 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.util.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.helpers.TestClock;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwksCacheTest {
+    private static final JwksCache.Settings SETTINGS =
+            new JwksCache.Settings(
+                    Duration.ofMinutes(5),
+                    Duration.ofSeconds(30),
+                    Duration.ZERO,
+                    Duration.ofSeconds(30),
+                    Duration.ofSeconds(2),
+                    Duration.ofSeconds(10));
+
+    private final TestClock clock = new TestClock(Instant.EPOCH, ZoneId.of("UTC"));
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final AtomicInteger refreshes = new AtomicInteger();
+    private ECKey signingKey;
+    private JWKSet published;
+    private boolean failFetches;
+    private JwksCache cache;
+
+    @BeforeEach
+    void setUp() throws JOSEException, MalformedURLException {
+        signingKey = new ECKeyGenerator(Curve.P_256).keyID("key-1").generate();
+        published = new JWKSet(signingKey.toPublicJWK());
+        cache =
+                new JwksCache(
+                        new URL("https://oidc.example.com/.well-known/jwks.json"),
+                        url -> retrieve(fetches),
+                        url -> retrieve(refreshes),
+                        clock,
+                        SETTINGS,
+                        backgroundTasks::add);
+    }
+
+    @Test
+    void shouldServeKeysFromCacheAfterFirstFetch() throws KeySourceException {
+        assertEquals(1, cache.get(selectorFor("key-1"), null).size());
+        assertEquals(1, cache.get(selectorFor("key-1"), null).size());
+
+        assertEquals(1, fetches.get());
+        assertEquals(new JwksCache.Stats(1, 1, 0, 0, 0), cache.stats());
+    }
+
+    @Test
+    void shouldRefreshInBackgroundAheadOfExpiry() throws KeySourceException {
+        cache.get(selectorFor("key-1"), null);
+
+        clock.setInstant(Instant.EPOCH.plus(Duration.ofMinutes(5)).minusSeconds(30));
+        cache.get(selectorFor("key-1"), null);
+        cache.get(selectorFor("key-1"), null);
+
+        assertEquals(1, backgroundTasks.size());
+        backgroundTasks.remove(0).run();
+        assertEquals(1, refreshes.get());
+        assertEquals(1, fetches.get());
+        assertEquals(1, cache.stats().refreshes());
+    }
+
+    @Test
+    void shouldFetchAgainOnceExpired() throws KeySourceException {
+        cache.get(selectorFor("key-1"), null);
+
+        clock.setInstant(Instant.EPOCH.plus(Duration.ofMinutes(5)));
+        cache.get(selectorFor("key-1"), null);
+
+        assertEquals(2, fetches.get());
+        assertEquals(2, cache.stats().misses());
+    }
+
+    @Test
+    void shouldForceRefreshForUnknownKeyIdAndRateLimitRepeats()
+            throws KeySourceException, JOSEException {
+        cache.get(selectorFor("key-1"), null);
+        var rotatedKey = new ECKeyGenerator(Curve.P_256).keyID("key-2").generate();
+        published = new JWKSet(List.of(signingKey.toPublicJWK(), rotatedKey.toPublicJWK()));
+
+        assertEquals(1, cache.get(selectorFor("key-2"), null).size());
+        assertTrue(cache.get(selectorFor("unknown"), null).isEmpty());
+
+        assertEquals(2, fetches.get());
+        assertEquals(1, cache.stats().forcedRefreshes());
+        assertEquals(1, cache.stats().rateLimited());
+    }
+
+    @Test
+    void shouldServeStaleKeysWhenFetchFailsAfterExpiry() throws KeySourceException {
+        cache.get(selectorFor("key-1"), null);
+
+        failFetches = true;
+        clock.setInstant(Instant.EPOCH.plus(Duration.ofMinutes(5)));
+
+        assertEquals(1, cache.get(selectorFor("key-1"), null).size());
+        assertEquals(1, cache.get(selectorFor("key-1"), null).size());
+        assertEquals(1, fetches.get());
+    }
+
+    @Test
+    void shouldThrowWhenFirstFetchFails() {
+        failFetches = true;
+
+        assertThrows(KeySourceException.class, () -> cache.get(selectorFor("key-1"), null));
+    }
+
+    private Resource retrieve(AtomicInteger counter) throws IOException {
+        if (failFetches) {
+            throw new IOException("Connection refused");
+        }
+        counter.incrementAndGet();
+        return new Resource(published.toString(), "application/json");
+    }
+
+    private static JWKSelector selectorFor(String keyId) {
+        return new JWKSelector(new JWKMatcher.Builder().keyID(keyId).build());
+    }
+}
@@ -0,0 +1,34 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.utils.LogoutEvents.Event;
+import uk.gov.di.utils.LogoutEvents.Outcome;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LogoutEventsTest {
+
+    @Test
+    void shouldWriteQueuedEventsInBatches() {
+        var events = new LogoutEvents(10, 2);
+        for (int i = 0; i < 5; i++) {
+            events.add(new Event("client", "sid-" + i, "jti-" + i, Outcome.ACCEPTED));
+        }
+
+        assertEquals(5, events.flush());
+        assertEquals(0, events.flush());
+    }
+
+    @Test
+    void shouldCountEveryOutcomeAndDropWhenFull() {
+        var events = new LogoutEvents(2, 10);
+
+        events.add(new Event("client", "sid", "jti-1", Outcome.ACCEPTED));
+        events.add(new Event("client", "sid", "jti-1", Outcome.REPLAYED));
+        events.add(new Event("client", null, null, Outcome.INVALID));
+        events.add(new Event("other", null, null, Outcome.UNKNOWN_CLIENT));
+
+        assertEquals(new LogoutEvents.Stats(1, 1, 1, 1, 2), events.counts());
+        assertEquals(2, events.flush());
+    }
+}
@@ -0,0 +1,124 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URL;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void histogramCountsEachObservationInItsBucketAndAbove() {
+        var histogram = new Histogram();
+
+        histogram.record(Duration.ofMillis(3).toNanos());
+        histogram.record(Duration.ofMillis(40).toNanos());
+        histogram.record(Duration.ofMillis(50).toNanos());
+        histogram.record(Duration.ofMinutes(1).toNanos());
+
+        var snapshot = histogram.snapshot();
+        assertArrayEquals(
+                new long[] {1, 1, 1, 3, 3, 3, 3, 3, 3, 3, 3, 3, 4}, snapshot.cumulativeCounts());
+        assertEquals(4, snapshot.count());
+        assertEquals(60.093, snapshot.sumSeconds(), 1e-9);
+    }
+
+    @Test
+    void snapshotDifferenceGivesQuantilesForTheInterval() {
+        var histogram = new Histogram(Histogram.JOURNEY_BUCKET_BOUNDS);
+        histogram.record(Duration.ofMinutes(30).toNanos());
+        var earlier = histogram.snapshot();
+
+        histogram.record(Duration.ofSeconds(3).toNanos());
+        histogram.record(Duration.ofSeconds(4).toNanos());
+        histogram.record(Duration.ofSeconds(25).toNanos());
+        histogram.record(Duration.ofHours(2).toNanos());
+        var interval = histogram.snapshot().minus(earlier);
+
+        assertEquals(4, interval.count());
+        assertEquals(5, interval.quantileBound(0.5));
+        assertEquals(Double.POSITIVE_INFINITY, interval.quantileBound(0.95));
+        assertEquals(7232, interval.sumSeconds(), 1e-9);
+    }
+
+    @Test
+    void stageTimersAreSharedPerClient() {
+        var timer =
+                Metrics.stageTimers("metrics-test-client").get(Metrics.Stage.TOKEN_REQUEST, true);
+
+        assertSame(
+                timer,
+                Metrics.stageTimers("metrics-test-client").get(Metrics.Stage.TOKEN_REQUEST, true));
+    }
+
+    @Test
+    void scrapeWritesStageAndRouteHistograms() {
+        Metrics.stageTimers("scrape-test-client")
+                .get(Metrics.Stage.USERINFO_REQUEST, false)
+                .record(Duration.ofMillis(20).toNanos());
+        Metrics.recordRequest(
+                "GET", "/oidc/authorization-code/callback", "scrape-test-client", true, 1_000_000);
+
+        var output = Metrics.scrape();
+
+        assertTrue(output.contains("# TYPE rp_stub_stage_duration_seconds histogram"));
+        assertTrue(
+                output.contains(
+                        "rp_stub_stage_duration_seconds_bucket{stage=\"userinfo_request\","
+                                + "client_id=\"scrape-test-client\","
+                                + "use_alternative_domain=\"false\",le=\"0.025\"} 1"));
+        assertTrue(
+                output.contains(
+                        "rp_stub_request_duration_seconds_count{method=\"GET\","
+                                + "route=\"/oidc/authorization-code/callback\","
+                                + "client_id=\"scrape-test-client\","
+                                + "use_alternative_domain=\"true\"} 1"));
+    }
+
+    @Test
+    void scrapeEscapesLabelValues() {
+        Metrics.keyFetchTimer("https://example.com/\"quoted\"").record(1);
+
+        assertTrue(Metrics.scrape().contains("uri=\"https://example.com/\\\"quoted\\\"\""));
+    }
+
+    @Test
+    void scrapeWritesOutboundHttpStats() {
+        Metrics.timeToFirstByteTimer().record(Duration.ofMillis(20).toNanos());
+
+        var output = Metrics.scrape();
+
+        assertTrue(output.contains("# TYPE rp_stub_outbound_requests_total counter"));
+        assertTrue(output.contains("# TYPE rp_stub_outbound_tls_connections_total counter"));
+        assertTrue(output.contains("# TYPE rp_stub_outbound_connection_reuse_ratio gauge"));
+        assertTrue(output.contains("# TYPE rp_stub_outbound_time_to_first_byte_seconds histogram"));
+        assertTrue(output.contains("rp_stub_outbound_time_to_first_byte_seconds_count{} "));
+    }
+
+    @Test
+    void scrapeWritesJwksCacheCountersPerUrl() throws Exception {
+        JwksCache.forUrl(new URL("https://metrics-test.example.com/.well-known/jwks.json"));
+
+        var output = Metrics.scrape();
+
+        assertTrue(
+                output.contains(
+                        "rp_stub_jwks_cache_lookups_total{"
+                                + "uri=\"https://metrics-test.example.com/.well-known/jwks.json\","
+                                + "result=\"hit\"} 0"));
+        assertTrue(
+                output.contains(
+                        "rp_stub_jwks_refreshes_total{"
+                                + "uri=\"https://metrics-test.example.com/.well-known/jwks.json\","
+                                + "trigger=\"unknown_kid\"} 0"));
+        assertTrue(
+                output.contains(
+                        "rp_stub_jwks_refreshes_rate_limited_total{"
+                                + "uri=\"https://metrics-test.example.com/.well-known/jwks.json\"} 0"));
+    }
+}
@@ -0,0 +1,207 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.ConfigurationChange;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.helpers.TestClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OidcClientRegistryTest {
+    private static final Duration TTL = Duration.ofMinutes(15);
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(30);
+
+    private final TestClock clock = new TestClock(Instant.ofEpochSecond(0), ZoneId.of("UTC"));
+    private final List<Runnable> pendingRefreshes = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldReuseClientForSameRelyingParty() {
+        var registry = registry(config -> countedLoad());
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+
+        var first = registry.get(config);
+        var second = registry.get(config);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldLoadSeparateClientsPerClientId() {
+        var registry = registry(config -> countedLoad());
+
+        var first = registry.get(rpConfig("client-1", "https://oidc.example.com/"));
+        var second = registry.get(rpConfig("client-2", "https://oidc.example.com/"));
+
+        assertNotSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldReloadWhenRelyingPartyConfigChanges() {
+        var registry = registry(config -> countedLoad());
+
+        var first = registry.get(rpConfig("client-1", "https://oidc.example.com/"));
+        var second = registry.get(rpConfig("client-1", "https://oidc.other.example.com/"));
+
+        assertNotSame(first, second);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldServeStaleClientWhileRefreshingInBackground() {
+        var registry = registry(config -> countedLoad());
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+        var original = registry.get(config);
+
+        clock.setInstant(Instant.EPOCH.plus(TTL));
+
+        assertSame(original, registry.get(config));
+        assertSame(original, registry.get(config));
+        assertEquals(1, pendingRefreshes.size());
+
+        pendingRefreshes.remove(0).run();
+
+        assertSame(original, registry.get(config));
+        verify(original).refreshProviderMetadata();
+        assertEquals(1, loads.get());
+        assertEquals(0, pendingRefreshes.size());
+    }
+
+    @Test
+    void shouldKeepStaleClientAndBackOffWhenRefreshFails() {
+        var registry = registry(config -> countedLoad());
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+        var original = registry.get(config);
+
+        doThrow(new RuntimeException("OP unavailable")).when(original).refreshProviderMetadata();
+        clock.setInstant(Instant.EPOCH.plus(TTL));
+        registry.get(config);
+        pendingRefreshes.remove(0).run();
+
+        assertSame(original, registry.get(config));
+        assertEquals(0, pendingRefreshes.size());
+
+        clock.setInstant(Instant.EPOCH.plus(TTL).plus(RETRY_INTERVAL));
+        registry.get(config);
+        assertEquals(1, pendingRefreshes.size());
+    }
+
+    @Test
+    void shouldNotCacheFailedInitialLoad() {
+        var failing = new AtomicInteger(1);
+        var registry =
+                registry(
+                        config -> {
+                            if (failing.getAndDecrement() > 0) {
+                                throw new RuntimeException("OP unavailable");
+                            }
+                            return countedLoad();
+                        });
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+
+        var exception = assertThrows(RuntimeException.class, () -> registry.get(config));
+        assertEquals("OP unavailable", exception.getMessage());
+
+        registry.get(config);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldLoadOnceForConcurrentFirstRequests() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var registry =
+                registry(
+                        config -> {
+                            try {
+                                release.await(5, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return countedLoad();
+                        });
+        var config = rpConfig("client-1", "https://oidc.example.com/");
+        var executor = Executors.newFixedThreadPool(8);
+        var results = new ArrayList<Future<Oidc>>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> registry.get(config)));
+        }
+
+        release.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertEquals(1, loads.get());
+        results.forEach(
+                result -> {
+                    try {
+                        assertSame(results.get(0).get(), result.get());
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+    }
+
+    @Test
+    void shouldLoadChangedAndDropRemovedRelyingPartiesOnConfigurationChange() {
+        var registry = registry(config -> countedLoad());
+        var unchanged = rpConfig("client-1", "https://oidc.example.com/");
+        var removed = rpConfig("client-2", "https://oidc.example.com/");
+        var added = rpConfig("client-3", "https://oidc.example.com/");
+        var original = registry.get(unchanged);
+        registry.get(removed);
+
+        registry.apply(new ConfigurationChange(List.of(added), List.of(removed)));
+
+        assertEquals(3, loads.get());
+        assertSame(original, registry.get(unchanged));
+        registry.get(added);
+        assertEquals(3, loads.get());
+        registry.get(removed);
+        assertEquals(4, loads.get());
+    }
+
+    private OidcClientRegistry registry(Function<RPConfig, Oidc> loader) {
+        return new OidcClientRegistry(loader, clock, TTL, RETRY_INTERVAL, pendingRefreshes::add);
+    }
+
+    private Oidc countedLoad() {
+        loads.incrementAndGet();
+        return mock(Oidc.class);
+    }
+
+    private static RPConfig rpConfig(String clientId, String opBaseUrl) {
+        return new RPConfig(
+                "private-key",
+                null,
+                "https://home.example.com",
+                clientId,
+                "web",
+                "ES256",
+                "Test Service",
+                opBaseUrl,
+                null,
+                null,
+                null,
+                null);
+    }
+}
@@ -3,7 +3,9 @@ package uk.gov.di.utils;
 import com.nimbusds.oauth2.sdk.pkce.CodeChallenge;
 import com.nimbusds.oauth2.sdk.pkce.CodeChallengeMethod;
 import com.nimbusds.oauth2.sdk.pkce.CodeVerifier;
+import com.nimbusds.openid.connect.sdk.AuthenticationRequest;
 import com.nimbusds.openid.connect.sdk.OIDCClaimsRequest;
+import com.nimbusds.openid.connect.sdk.claims.ClaimRequirement;
 import com.nimbusds.openid.connect.sdk.claims.ClaimsSetRequest;
 import com.nimbusds.openid.connect.sdk.op.OIDCProviderMetadata;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,15 +14,20 @@ import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import uk.gov.di.config.RPConfig;
 
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.KeyPair;
 import java.security.interfaces.RSAPrivateKey;
 import java.text.ParseException;
 import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -51,7 +58,6 @@ public class OidcTest {
     void setup() throws com.nimbusds.oauth2.sdk.ParseException {
         when(rpConfig.clientPrivateKey()).thenReturn(serializedPrivateKey);
         when(rpConfig.clientId()).thenReturn(testClientId);
-        when(rpConfig.jwksConfiguration()).thenReturn(Map.of("public_key_id", "12345"));
         when(rpConfig.opBaseUrl()).thenReturn("https:/example.com/idp");
         var parsedIdpConfig = OIDCProviderMetadata.parse(mockIdpConfig);
 
@@ -193,4 +199,117 @@ public class OidcTest {
         assertEquals(expectedCodeChallengeClaim, jarClaims.getClaim("code_challenge"));
         assertEquals(codeChallengeMethod.getValue(), jarClaims.getClaim("code_challenge_method"));
     }
+
+    @Test
+    void shouldBuildSameQueryParamAuthorizeRequestFromTemplate() throws Exception {
+        var codeVerifier = new CodeVerifier();
+        var claim = "https://vocab.account.gov.uk/v1/coreIdentityJWT";
+        var expected =
+                oidc.buildQueryParamAuthorizeRequest(
+                        testCallbackUri,
+                        testVtr,
+                        testScopes,
+                        new ClaimsSetRequest()
+                                .add(
+                                        new ClaimsSetRequest.Entry(claim)
+                                                .withClaimRequirement(ClaimRequirement.ESSENTIAL)),
+                        "en",
+                        "login",
+                        "rp-sid",
+                        "123",
+                        CodeChallengeMethod.S256,
+                        codeVerifier,
+                        "web",
+                        false);
+        var options =
+                new AuthorizeRequestOptions(
+                        testCallbackUri,
+                        testVtr,
+                        testScopes,
+                        List.of(claim),
+                        "en",
+                        "login",
+                        "rp-sid",
+                        "123",
+                        "web",
+                        false);
+
+        var first = buildCachedQueryParamAuthorizeRequest(options, codeVerifier);
+        var hitsBefore = AuthorizeRequestTemplates.stats().hits();
+        var second = buildCachedQueryParamAuthorizeRequest(options, codeVerifier);
+
+        assertEquals(expected.getEndpointURI(), first.getEndpointURI());
+        assertEquals(withoutPerRequestValues(expected), withoutPerRequestValues(first));
+        assertEquals(expected.getCodeChallenge(), first.getCodeChallenge());
+        assertEquals(expected.getCodeChallengeMethod(), first.getCodeChallengeMethod());
+        assertNotNull(first.getNonce());
+        assertNotEquals(first.getState(), second.getState());
+        assertNotEquals(first.getNonce(), second.getNonce());
+        assertEquals(hitsBefore + 1, AuthorizeRequestTemplates.stats().hits());
+    }
+
+    @Test
+    void shouldKeepAuthorizeTemplatesWhenRefreshedMetadataIsUnchanged() throws Exception {
+        var options = templateOptions();
+        buildCachedQueryParamAuthorizeRequest(options, null);
+
+        refreshProviderMetadata(mockIdpConfig);
+        var hitsBefore = AuthorizeRequestTemplates.stats().hits();
+        buildCachedQueryParamAuthorizeRequest(options, null);
+
+        assertEquals(hitsBefore + 1, AuthorizeRequestTemplates.stats().hits());
+    }
+
+    @Test
+    void shouldRebuildAuthorizeTemplatesWhenRefreshedMetadataChanges() throws Exception {
+        var options = templateOptions();
+        buildCachedQueryParamAuthorizeRequest(options, null);
+
+        refreshProviderMetadata(
+                mockIdpConfig.replace(
+                        "http://localhost:8080/authorize", "http://localhost:9090/authorize"));
+        var request = buildCachedQueryParamAuthorizeRequest(options, null);
+
+        assertEquals(URI.create("http://localhost:9090/authorize"), request.getEndpointURI());
+    }
+
+    private AuthorizeRequestOptions templateOptions() {
+        return new AuthorizeRequestOptions(
+                testCallbackUri,
+                testVtr,
+                testScopes,
+                List.of(),
+                "en",
+                "login",
+                null,
+                null,
+                "web",
+                false);
+    }
+
+    private void refreshProviderMetadata(String idpConfig)
+            throws com.nimbusds.oauth2.sdk.ParseException {
+        var parsedIdpConfig = OIDCProviderMetadata.parse(idpConfig);
+        try (MockedStatic<OIDCProviderMetadata> metaDataClass =
+                Mockito.mockStatic(OIDCProviderMetadata.class)) {
+            metaDataClass
+                    .when(() -> OIDCProviderMetadata.resolve(any()))
+                    .thenReturn(parsedIdpConfig);
+            oidc.refreshProviderMetadata();
+        }
+    }
+
+    private AuthenticationRequest buildCachedQueryParamAuthorizeRequest(
+            AuthorizeRequestOptions options, CodeVerifier codeVerifier)
+            throws com.nimbusds.oauth2.sdk.ParseException {
+        return AuthenticationRequest.parse(
+                URI.create(oidc.buildCachedQueryParamAuthorizeRequest(options, codeVerifier)));
+    }
+
+    private static Map<String, List<String>> withoutPerRequestValues(
+            AuthenticationRequest request) {
+        var parameters = new HashMap<>(request.toParameters());
+        parameters.keySet().removeAll(Set.of("state", "nonce", "code_challenge"));
+        return parameters;
+    }
 }
@@ -1,13 +1,20 @@
 package uk.gov.di.utils;
 
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
 import org.junit.jupiter.api.Test;
 
 import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
 import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static uk.gov.di.helpers.keyHelper.encodeEcPrivateKey;
 import static uk.gov.di.helpers.keyHelper.generateRsaKeyPair;
 
 public class PrivateKeyReaderTest {
@@ -29,4 +36,35 @@ public class PrivateKeyReaderTest {
         var receivedPublicKey = privateKeyReader.getPublicKey();
         assertEquals(receivedPublicKey, publicKey);
     }
+
+    @Test
+    void shouldReadPublicKeyStoredWithEcPrivateKey() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).generate();
+        var reader = new PrivateKeyReader(encodeEcPrivateKey(ecKey), "EC");
+
+        assertEquals(ecKey.toECPrivateKey().getS(), ((ECPrivateKey) reader.get()).getS());
+        assertEquals(ecKey.toPublicKey(), reader.getPublicKey());
+    }
+
+    @Test
+    void shouldDerivePublicKeyFromJdkEcPrivateKey() throws Exception {
+        var generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp384r1"));
+        var keyPair = generator.generateKeyPair();
+        var reader =
+                new PrivateKeyReader(
+                        Base64.getMimeEncoder().encodeToString(keyPair.getPrivate().getEncoded()),
+                        "EC");
+
+        assertEquals(keyPair.getPublic(), reader.getPublicKey());
+    }
+
+    @Test
+    void shouldRejectEcPrivateKeyStoredWithAnotherPublicKey() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).generate();
+        var otherKey = new ECKeyGenerator(Curve.P_256).generate();
+        var reader = new PrivateKeyReader(encodeEcPrivateKey(ecKey, otherKey), "EC");
+
+        assertThrows(RuntimeException.class, reader::getPublicKey);
+    }
 }
@@ -0,0 +1,93 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.Test;
+import uk.gov.di.helpers.TestClock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplayCacheTest {
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+
+    private final TestClock clock =
+            new TestClock(Instant.parse("2026-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void shouldRefuseSecondUseInsideWindow() {
+        var cache = new ReplayCache(10, WINDOW, clock);
+
+        assertTrue(cache.firstUse("jti-1"));
+        clock.setInstant(clock.instant().plus(WINDOW).minusSeconds(1));
+
+        assertFalse(cache.firstUse("jti-1"));
+        assertTrue(cache.firstUse("jti-2"));
+    }
+
+    @Test
+    void shouldAllowReuseOnceWindowHasPassed() {
+        var cache = new ReplayCache(10, WINDOW, clock);
+        cache.firstUse("jti-1");
+
+        clock.setInstant(clock.instant().plus(WINDOW));
+
+        assertTrue(cache.firstUse("jti-1"));
+        assertFalse(cache.firstUse("jti-1"));
+    }
+
+    @Test
+    void shouldDropExpiredEntriesBeforeForgettingLiveOnes() {
+        var cache = new ReplayCache(2, WINDOW, clock);
+        cache.firstUse("old-1");
+        cache.firstUse("old-2");
+        clock.setInstant(clock.instant().plus(WINDOW));
+
+        cache.firstUse("new-1");
+
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.evictions());
+        assertFalse(cache.firstUse("new-1"));
+    }
+
+    @Test
+    void shouldStayBoundedWhenEverythingIsLive() {
+        var cache = new ReplayCache(2, WINDOW, clock);
+
+        cache.firstUse("jti-1");
+        cache.firstUse("jti-2");
+        cache.firstUse("jti-3");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void shouldStillRefuseRecentTokensAfterOverflow() {
+        var cache = new ReplayCache(2, WINDOW, clock);
+        cache.firstUse("jti-1");
+        clock.setInstant(clock.instant().plusSeconds(1));
+        cache.firstUse("jti-2");
+        cache.firstUse("jti-3");
+
+        assertFalse(cache.firstUse("jti-2"));
+        assertFalse(cache.firstUse("jti-3"));
+        assertTrue(cache.firstUse("jti-1"));
+    }
+
+    @Test
+    void shouldForgetReusedIdentifierOnlyOnceItsLatestWindowHasPassed() {
+        var cache = new ReplayCache(10, WINDOW, clock);
+        cache.firstUse("jti-1");
+        clock.setInstant(clock.instant().plus(WINDOW));
+        cache.firstUse("jti-1");
+
+        cache.firstUse("jti-2");
+
+        assertFalse(cache.firstUse("jti-1"));
+        assertEquals(2, cache.size());
+    }
+}
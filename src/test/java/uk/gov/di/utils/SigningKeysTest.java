@@ -0,0 +1,171 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.RPConfig;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static uk.gov.di.helpers.keyHelper.generateRsaKeyPair;
+
+class SigningKeysTest {
+    private final KeyPair rsaKeyPair = generateRsaKeyPair();
+    private final String serializedPrivateKey =
+            Base64.getMimeEncoder().encodeToString(rsaKeyPair.getPrivate().getEncoded());
+
+    @Test
+    void shouldDecodeKeysOncePerRelyingParty() {
+        var config = rpConfig("client-1", serializedPrivateKey, null);
+
+        var first = SigningKeys.forRelyingParty(config);
+        var second = SigningKeys.forRelyingParty(config);
+
+        assertSame(first, second);
+        assertEquals(rsaKeyPair.getPublic(), first.requestSigningPublicKey());
+    }
+
+    @Test
+    void shouldUseKeyThumbprintAsKeyId() throws Exception {
+        var keys = SigningKeys.forRelyingParty(rpConfig("client-5", serializedPrivateKey, null));
+
+        var expected =
+                new RSAKey.Builder((RSAPublicKey) rsaKeyPair.getPublic())
+                        .build()
+                        .computeThumbprint()
+                        .toString();
+        assertEquals(expected, keys.requestSigningKeyId());
+    }
+
+    @Test
+    void shouldSignRequestObjectsWithReusableSigner() throws Exception {
+        var keys = SigningKeys.forRelyingParty(rpConfig("client-2", serializedPrivateKey, null));
+
+        var jwt = sign(JWSAlgorithm.RS512, keys.requestSigner());
+
+        assertTrue(jwt.verify(new RSASSAVerifier((RSAPublicKey) rsaKeyPair.getPublic())));
+    }
+
+    @Test
+    void shouldSignInheritedIdentityWithEcKey() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).generate();
+        var encodedEcKey = Base64.getEncoder().encodeToString(ecKey.toPrivateKey().getEncoded());
+        var keys =
+                SigningKeys.forRelyingParty(
+                        rpConfig("client-3", serializedPrivateKey, encodedEcKey));
+
+        var jwt = sign(JWSAlgorithm.ES256, keys.inheritedIdentitySigner());
+
+        assertTrue(jwt.verify(new ECDSAVerifier(ecKey.toPublicJWK())));
+    }
+
+    @Test
+    void shouldSignRequestObjectsWithEcKeyWhenConfigured() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_256).generate();
+        var encodedEcKey = Base64.getEncoder().encodeToString(ecKey.toPrivateKey().getEncoded());
+        var keys = SigningKeys.forRelyingParty(rpConfig("client-6", encodedEcKey, null, "ES256"));
+
+        var jwt = sign(keys.requestSigningAlgorithm(), keys.requestSigner());
+
+        assertEquals(JWSAlgorithm.ES256, keys.requestSigningAlgorithm());
+        assertEquals(ecKey.toPublicKey(), keys.requestSigningPublicKey());
+        assertEquals(ecKey.computeThumbprint().toString(), keys.requestSigningKeyId());
+        assertTrue(jwt.verify(new ECDSAVerifier(ecKey.toPublicJWK())));
+    }
+
+    @Test
+    void shouldSignRequestObjectsWithRsaPssWhenConfigured() throws Exception {
+        var keys =
+                SigningKeys.forRelyingParty(
+                        rpConfig("client-7", serializedPrivateKey, null, "PS256"));
+
+        var jwt = sign(keys.requestSigningAlgorithm(), keys.requestSigner());
+
+        assertEquals(JWSAlgorithm.PS256, jwt.getHeader().getAlgorithm());
+        assertTrue(jwt.verify(new RSASSAVerifier((RSAPublicKey) rsaKeyPair.getPublic())));
+    }
+
+    @Test
+    void shouldDefaultToRs512ForRequestObjects() {
+        var keys = SigningKeys.forRelyingParty(rpConfig("client-8", serializedPrivateKey, null));
+
+        assertEquals(JWSAlgorithm.RS512, keys.requestSigningAlgorithm());
+    }
+
+    @Test
+    void shouldRejectUnsupportedRequestSigningAlgorithm() {
+        var config = rpConfig("client-9", serializedPrivateKey, null, "HS256");
+
+        var exception =
+                assertThrows(RuntimeException.class, () -> SigningKeys.forRelyingParty(config));
+        assertEquals(
+                "Unsupported request signing algorithm HS256", exception.getCause().getMessage());
+    }
+
+    @Test
+    void shouldRejectEcKeyOnWrongCurveForAlgorithm() throws Exception {
+        var ecKey = new ECKeyGenerator(Curve.P_384).generate();
+        var encodedEcKey = Base64.getEncoder().encodeToString(ecKey.toPrivateKey().getEncoded());
+        var config = rpConfig("client-10", encodedEcKey, null, "ES256");
+
+        assertThrows(RuntimeException.class, () -> SigningKeys.forRelyingParty(config));
+    }
+
+    @Test
+    void shouldRejectInvalidKeyWhenLoaded() {
+        var config = rpConfig("client-4", "placeholder", null);
+
+        var exception =
+                assertThrows(RuntimeException.class, () -> SigningKeys.forRelyingParty(config));
+        assertEquals("Invalid signing key configured for client-4", exception.getMessage());
+    }
+
+    private static SignedJWT sign(JWSAlgorithm algorithm, JWSSigner signer) throws JOSEException {
+        var jwt =
+                new SignedJWT(
+                        new JWSHeader(algorithm),
+                        new JWTClaimsSet.Builder().subject("example").build());
+        jwt.sign(signer);
+        return jwt;
+    }
+
+    private static RPConfig rpConfig(
+            String clientId, String clientPrivateKey, String inheritedIdentityKey) {
+        return rpConfig(clientId, clientPrivateKey, inheritedIdentityKey, null);
+    }
+
+    private static RPConfig rpConfig(
+            String clientId,
+            String clientPrivateKey,
+            String inheritedIdentityKey,
+            String requestSigningAlgorithm) {
+        return new RPConfig(
+                clientPrivateKey,
+                null,
+                "https://home.example.com",
+                clientId,
+                "web",
+                "ES256",
+                "Test Service",
+                "https://oidc.example.com/",
+                null,
+                inheritedIdentityKey,
+                null,
+                requestSigningAlgorithm);
+    }
+}
@@ -0,0 +1,122 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StageGroupTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final StageGroup stages = new StageGroup(executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldRunStagesConcurrently() throws Exception {
+        var bothStarted = new CountDownLatch(2);
+        var first = stages.run("first", TIMEOUT, () -> awaitOther(bothStarted, "one"));
+        var second = stages.run("second", TIMEOUT, () -> awaitOther(bothStarted, "two"));
+
+        assertEquals("one two", first.thenCombine(second, (a, b) -> a + " " + b).get());
+    }
+
+    @Test
+    void shouldCancelAndInterruptOtherStagesWhenOneFails() throws Exception {
+        var started = new CountDownLatch(1);
+        var interrupted = new CountDownLatch(1);
+        var slow =
+                stages.run(
+                        "slow",
+                        TIMEOUT,
+                        () -> {
+                            started.countDown();
+                            try {
+                                Thread.sleep(TIMEOUT.toMillis());
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                            }
+                            return "done";
+                        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        var failed =
+                stages.run(
+                        "failing",
+                        TIMEOUT,
+                        () -> {
+                            throw new RuntimeException("Broken");
+                        });
+
+        var exception = assertThrows(ExecutionException.class, failed::get);
+        assertEquals("Broken", exception.getCause().getMessage());
+        assertThrows(CancellationException.class, slow::get);
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldFailStageThatTimesOut() {
+        var sibling = stages.run("sibling", TIMEOUT, () -> sleep(TIMEOUT));
+        var stage = stages.run("Userinfo request", Duration.ofMillis(50), () -> sleep(TIMEOUT));
+
+        var exception = assertThrows(ExecutionException.class, stage::get);
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+        assertEquals("Userinfo request timed out after 50ms", exception.getCause().getMessage());
+        assertTrue(sibling.isCancelled());
+    }
+
+    @Test
+    void shouldNotCancelOtherStagesWhenOptionalStageFails() throws Exception {
+        var optional =
+                stages.runOptional(
+                        "optional",
+                        TIMEOUT,
+                        () -> {
+                            throw new RuntimeException("Broken");
+                        });
+        var required = stages.run("required", TIMEOUT, () -> "done");
+
+        assertNull(optional.get());
+        assertEquals("done", required.get());
+    }
+
+    @Test
+    void shouldNotStartStagesAfterCancellation() {
+        stages.cancel();
+
+        var stage = stages.run("late", TIMEOUT, () -> "done");
+
+        assertTrue(stage.isCancelled());
+    }
+
+    private static String awaitOther(CountDownLatch bothStarted, String value)
+            throws InterruptedException {
+        bothStarted.countDown();
+        if (!bothStarted.await(1, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Stages did not overlap");
+        }
+        return value;
+    }
+
+    private static String sleep(Duration duration) throws InterruptedException {
+        Thread.sleep(duration.toMillis());
+        return "done";
+    }
+}
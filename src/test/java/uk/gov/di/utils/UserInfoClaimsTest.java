@@ -0,0 +1,86 @@
+package uk.gov.di.utils;
+
+import com.nimbusds.oauth2.sdk.ParseException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserInfoClaimsTest {
+    private static final String ADDRESS = "https://vocab.account.gov.uk/v1/address";
+    private static final String PASSPORT = "https://vocab.account.gov.uk/v1/passport";
+
+    private static final String RESPONSE =
+            "{\"sub\":\"urn:fdc:gov.uk:2022:abc\",\"email\":\"user@example.com\","
+                    + "\"email_verified\":true,\"phone_number\":null,"
+                    + "\""
+                    + ADDRESS
+                    + "\":[{\"postalCode\":\"SW1A 2AA\",\"buildingNumber\":\"10\"}],"
+                    + "\""
+                    + PASSPORT
+                    + "\":[{\"documentNumber\":\"123456789\",\"expiryDate\":\"2030-01-01\"}],"
+                    + "\"doc-app-credential\":[\"eyJhbGciOiJFUzI1NiJ9.e30.c2ln\"],"
+                    + "\"locale\":\"cy\"}";
+
+    @Test
+    void shouldReadScalarClaims() throws ParseException {
+        var claims = read(RESPONSE);
+
+        assertEquals("urn:fdc:gov.uk:2022:abc", claims.stringClaim("sub"));
+        assertEquals("user@example.com", claims.stringClaim("email"));
+        assertEquals("true", claims.stringClaim("email_verified"));
+        assertEquals("cy", claims.claimAsText("locale"));
+    }
+
+    @Test
+    void shouldTreatNullClaimsAsMissing() throws ParseException {
+        var claims = read(RESPONSE);
+
+        assertFalse(claims.has("phone_number"));
+        assertNull(claims.stringClaim("phone_number"));
+        assertFalse(claims.has("wallet_subject_id"));
+        assertNull(claims.claimAsText("wallet_subject_id"));
+    }
+
+    @Test
+    void shouldKeepStructuredClaimsAsTheirJson() throws ParseException {
+        var claims = read(RESPONSE);
+
+        assertTrue(claims.has(PASSPORT));
+        assertNull(claims.stringClaim(ADDRESS));
+        assertEquals(
+                "[{\"postalCode\":\"SW1A 2AA\",\"buildingNumber\":\"10\"}]",
+                claims.claimAsText(ADDRESS));
+        assertEquals(
+                List.of("eyJhbGciOiJFUzI1NiJ9.e30.c2ln"),
+                claims.stringListClaim("doc-app-credential"));
+    }
+
+    @Test
+    void shouldKeepResponseForDisplay() throws ParseException {
+        var response = "{ \"sub\": \"caf\u00e9\",\n \"x\": {\"a\": [1, 2]} }";
+        var claims = read(response);
+
+        assertEquals(response, claims.json());
+        assertEquals("caf\u00e9", claims.stringClaim("sub"));
+        assertEquals("{\"a\": [1, 2]}", claims.claimAsText("x"));
+    }
+
+    @Test
+    void shouldRejectInvalidResponses() {
+        assertThrows(ParseException.class, () -> read("[]"));
+        assertThrows(ParseException.class, () -> read("{\"sub\":\"abc\""));
+        assertThrows(ParseException.class, () -> read("{\"sub\":\"abc\"} {}"));
+        assertThrows(ParseException.class, () -> read(""));
+    }
+
+    private static UserInfoClaims read(String json) throws ParseException {
+        return UserInfoClaims.read(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,89 @@
+package uk.gov.di.utils;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import uk.gov.di.config.RPConfig;
+import uk.gov.di.fakeop.FakeOp;
+import uk.gov.di.fakeop.FakeOpSettings;
+
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WarmUpTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(20);
+
+    private static String clientPrivateKey;
+
+    @BeforeAll
+    static void generateClientKey() throws Exception {
+        var keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        clientPrivateKey =
+                Base64.getMimeEncoder()
+                        .encodeToString(
+                                keyPairGenerator.generateKeyPair().getPrivate().getEncoded());
+    }
+
+    @Test
+    void shouldLoadClientsAndKeysBeforeReportingComplete() throws Exception {
+        RPConfig relyingPartyConfig;
+        Oidc warmedClient;
+        try (var fakeOp = FakeOp.start(FakeOpSettings.defaults())) {
+            relyingPartyConfig = rpConfig("warm-up-client", fakeOp.issuer());
+            var warmUp = new WarmUp(List.of(relyingPartyConfig), 10, TIMEOUT);
+
+            assertFalse(warmUp.isComplete());
+            warmUp.start();
+            awaitCompletion(warmUp);
+            warmedClient = OidcClientRegistry.getClient(relyingPartyConfig);
+        }
+
+        // With the OP gone, everything the journey needs must already be cached
+        assertSame(warmedClient, OidcClientRegistry.getClient(relyingPartyConfig));
+        warmedClient.prefetchKeys();
+        CoreIdentityValidator.forRelyingParty(relyingPartyConfig).prefetch();
+    }
+
+    @Test
+    void shouldCompleteWhenProviderIsUnreachable() throws Exception {
+        var warmUp =
+                new WarmUp(
+                        List.of(rpConfig("unreachable-op-client", "http://localhost:1")),
+                        10,
+                        TIMEOUT);
+
+        warmUp.start();
+
+        awaitCompletion(warmUp);
+    }
+
+    private static void awaitCompletion(WarmUp warmUp) throws InterruptedException {
+        var deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!warmUp.isComplete() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(warmUp.isComplete());
+    }
+
+    private static RPConfig rpConfig(String clientId, String opBaseUrl) {
+        return new RPConfig(
+                clientPrivateKey,
+                opBaseUrl + "/.well-known/did.json",
+                null,
+                clientId,
+                "web",
+                "ES256",
+                "Warm-up test",
+                opBaseUrl,
+                null,
+                null,
+                null,
+                null);
+    }
+}